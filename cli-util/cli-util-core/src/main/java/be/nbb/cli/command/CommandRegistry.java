@@ -40,7 +40,7 @@ import org.openide.util.NbBundle;
 @lombok.Builder(builderClassName = "Builder")
 @NbBundle.Messages({
     "# {0} - app name",
-    "commandRegistry.usage=usage: {0} <command> [<args>]\n",
+    "commandRegistry.usage=usage: {0} <command> [<args>]\n   or: {0} pipe <command> [<args>] ! <command> [<args>] ...\n",
     "commandRegistry.available=Available commands:",
     "# {0} - app name",
     "# {1} - command name",
@@ -67,6 +67,9 @@ public final class CommandRegistry {
             return 0;
         } else {
             String commandName = args[0];
+            if (commandName.equals(PipeCommand.NAME)) {
+                return new PipeCommand(this::getCommand).exec(Arrays.copyOfRange(args, 1, args.length));
+            }
             Optional<? extends CommandReference> cp = getCommandByName(commandName);
             if (cp.isPresent()) {
                 return cp.get().getCommand().exec(Arrays.copyOfRange(args, 1, args.length));
@@ -87,6 +90,10 @@ public final class CommandRegistry {
         return commands.stream().filter(getFilterByName(commandName)).findFirst();
     }
 
+    private Optional<Command> getCommand(String commandName) {
+        return getCommandByName(commandName).map(CommandReference::getCommand);
+    }
+
     private List<CommandReference> getPossibleCommands(String query) {
         return commands.stream().filter(getFilterByQuery(query)).collect(Collectors.toList());
     }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command;
+
+import be.nbb.cli.util.StdioPipe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import org.openide.util.NbBundle;
+
+/**
+ * Runs a chain of commands separated by {@value #SEPARATOR} in the same
+ * process. Each stage reads the output of the previous one through a
+ * {@link StdioPipe} so that values are handed over in memory instead of being
+ * serialized and parsed back. The chain stops at the first stage that fails.
+ *
+ * @author Philippe Charles
+ */
+@lombok.Value
+@NbBundle.Messages({
+    "pipeCommand.empty=pipe: missing command",
+    "# {0} - command name",
+    "pipeCommand.invalid=pipe: ''{0}'' is not a valid command"
+})
+public class PipeCommand implements Command {
+
+    public static final String NAME = "pipe";
+    public static final String SEPARATOR = "!";
+
+    @lombok.NonNull
+    Function<String, Optional<? extends Command>> commands;
+
+    @Override
+    public int exec(String[] args) {
+        List<String[]> stages = split(args);
+        if (stages.stream().anyMatch(o -> o.length == 0)) {
+            System.err.println(Bundle.pipeCommand_empty());
+            return -1;
+        }
+
+        List<Command> resolved = new ArrayList<>();
+        for (String[] stage : stages) {
+            Optional<? extends Command> command = commands.apply(stage[0]);
+            if (!command.isPresent()) {
+                System.err.println(Bundle.pipeCommand_invalid(stage[0]));
+                return -1;
+            }
+            resolved.add(command.get());
+        }
+
+        StdioPipe pipe = new StdioPipe();
+        for (int i = 0; i < stages.size(); i++) {
+            Command command = resolved.get(i);
+            String[] stageArgs = Arrays.copyOfRange(stages.get(i), 1, stages.get(i).length);
+            int status = pipe.exec(i > 0, i < stages.size() - 1, () -> command.exec(stageArgs));
+            if (status != 0) {
+                return status;
+            }
+        }
+        return 0;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    static List<String[]> split(String[] args) {
+        List<String[]> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= args.length; i++) {
+            if (i == args.length || args[i].equals(SEPARATOR)) {
+                result.add(Arrays.copyOfRange(args, start, i));
+                start = i + 1;
+            }
+        }
+        return result;
+    }
+    //</editor-fold>
+}
@@ -18,10 +18,12 @@ package be.nbb.cli.command.core;
 
 import be.nbb.cli.command.Command;
 import be.nbb.cli.util.MediaType;
+import be.nbb.cli.util.Metrics;
 import be.nbb.cli.util.Serializer;
 import be.nbb.cli.util.SerializerFactory;
 import be.nbb.cli.util.StandardOptions;
 import be.nbb.cli.util.Utils;
+import be.nbb.cli.util.jaxb.JaxbCache;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.function.Function;
@@ -77,6 +79,20 @@ public final class OptionsParsingCommand<T> implements Command {
             return 0;
         }
 
+        if (soInstance.isMetrics()) {
+            // each run resets the peak usage of the JVM-wide heap pools
+            synchronized (METRICS_LOCK) {
+                return exec(params, soInstance, Metrics.enabled());
+            }
+        }
+        return exec(params, soInstance, Metrics.disabled());
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Internal implementation">
+    private static final Object METRICS_LOCK = new Object();
+
+    private int exec(T params, StandardOptions soInstance, Metrics metrics) {
+        Metrics previous = Metrics.setCurrent(metrics);
         try {
             long startTime = System.currentTimeMillis();
             if (soInstance.isVerbose()) {
@@ -85,6 +101,10 @@ public final class OptionsParsingCommand<T> implements Command {
             executor.get().exec(params);
             if (soInstance.isVerbose()) {
                 System.err.println("Executed in " + (System.currentTimeMillis() - startTime) + "ms");
+                printCacheStats(System.err);
+            }
+            if (metrics.isEnabled()) {
+                printMetrics(soInstance, metrics.getReport());
             }
             return 0;
         } catch (Exception ex) {
@@ -94,10 +114,11 @@ public final class OptionsParsingCommand<T> implements Command {
                 System.err.println(ex.getMessage());
             }
             return -1;
+        } finally {
+            Metrics.setCurrent(previous);
         }
     }
 
-    //<editor-fold defaultstate="collapsed" desc="Internal implementation">
     private static <T> void printHelp(@Nonnull PrintStream stream, @Nonnull OptionsParser<T> parser) {
         parser.printHelp(stream);
     }
@@ -106,6 +127,21 @@ public final class OptionsParsingCommand<T> implements Command {
         Utils.printVersion(command.getClass(), stream);
     }
 
+    private static void printCacheStats(@Nonnull PrintStream stream) {
+        JaxbCache.Stats stats = JaxbCache.getDefault().getStats();
+        if (!stats.isEmpty()) {
+            stream.println("JAXB cache: " + stats);
+        }
+    }
+
+    private static void printMetrics(@Nonnull StandardOptions so, @Nonnull Metrics.Report report) throws IOException {
+        if (so.getMetricsFile() != null) {
+            SerializerFactory.of(MediaType.JSON_UTF_8, Metrics.Report.class, true).serialize(report, so.getMetricsFile());
+        } else {
+            System.err.println(report);
+        }
+    }
+
     private static <T> void printParams(@Nonnull T params, @Nonnull PrintStream stream) {
         Serializer serializer = SerializerFactory.of(MediaType.JSON_UTF_8, params.getClass(), true);
         try {
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command.daemon;
+
+import be.nbb.cli.command.Command;
+import static be.nbb.cli.command.daemon.DaemonProtocol.STDERR;
+import static be.nbb.cli.command.daemon.DaemonProtocol.STDOUT;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import org.openide.util.NbBundle;
+
+/**
+ * A long-running process that executes commands sent by
+ * {@link CommandDaemonClient} on a loopback socket. Commands run concurrently
+ * with their own stdin, stdout and stderr.
+ * <p>
+ * Since any local user can connect to a loopback socket, a request must carry
+ * a random token that the daemon writes at startup in a file that only its
+ * owner can read. Connections beyond the maximum number of concurrent
+ * commands wait in the backlog of the socket.
+ *
+ * @author Philippe Charles
+ */
+@lombok.extern.java.Log
+@NbBundle.Messages({
+    "# {0} - daemon working dir",
+    "# {1} - client working dir",
+    "commandDaemon.workingDirMismatch=The daemon runs in ''{0}'' but the client runs in ''{1}''",
+    "commandDaemon.invalidToken=Invalid token"
+})
+public final class CommandDaemon implements Closeable {
+
+    @Nonnull
+    public static CommandDaemon open(@Nonnull Command command, @Nonnegative int port, @Nonnull Path tokenFile) throws IOException {
+        return open(command, port, tokenFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Opens a daemon on a loopback port.
+     *
+     * @param command
+     * @param port a port number or 0 for any free port
+     * @param tokenFile the file that receives the token expected from clients
+     * @param maxCommands the maximum number of commands that run at once
+     * @return a non-null daemon
+     * @throws IOException
+     */
+    @Nonnull
+    public static CommandDaemon open(@Nonnull Command command, @Nonnegative int port, @Nonnull Path tokenFile, @Nonnegative int maxCommands) throws IOException {
+        String token = DaemonProtocol.newToken();
+        ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        try {
+            DaemonProtocol.writeTokenFile(tokenFile, token);
+        } catch (IOException ex) {
+            server.close();
+            throw ex;
+        }
+        return new CommandDaemon(command, server, Paths.get("").toAbsolutePath(), tokenFile, token, Math.max(1, maxCommands));
+    }
+
+    private final Command command;
+    private final ServerSocket server;
+    private final Path workingDir;
+    private final Path tokenFile;
+    private final String token;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    private CommandDaemon(Command command, ServerSocket server, Path workingDir, Path tokenFile, String token, int maxCommands) {
+        this.command = command;
+        this.server = server;
+        this.workingDir = workingDir;
+        this.tokenFile = tokenFile;
+        this.token = token;
+        this.permits = new Semaphore(maxCommands);
+        this.executor = Executors.newFixedThreadPool(maxCommands, new DaemonThreadFactory());
+    }
+
+    @Nonnegative
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    @Nonnull
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Accepts connections until this daemon is closed.
+     *
+     * @throws IOException
+     */
+    public void serve() throws IOException {
+        try {
+            while (!server.isClosed()) {
+                permits.acquireUninterruptibly();
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (IOException ex) {
+                    permits.release();
+                    throw ex;
+                }
+                executor.execute(() -> {
+                    try {
+                        handle(socket);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (SocketException ex) {
+            if (!server.isClosed()) {
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            server.close();
+        } finally {
+            executor.shutdown();
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private void handle(Socket socket) {
+        try (Socket closeable = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            PrintStream stdout = new PrintStream(new BufferedOutputStream(new DaemonProtocol.FrameOutputStream(out, STDOUT)), false);
+            PrintStream stderr = new PrintStream(new DaemonProtocol.FrameOutputStream(out, STDERR), true);
+            // a silent client must not hold a permit
+            socket.setSoTimeout(AUTH_TIMEOUT_MILLIS);
+            int status;
+            if (DaemonProtocol.isSameToken(token, DaemonProtocol.readToken(in))) {
+                socket.setSoTimeout(0);
+                DaemonProtocol.Request request = DaemonProtocol.readRequest(in);
+                // not a security check but a guard against relative paths resolved in the wrong place
+                if (workingDir.equals(Paths.get(request.getWorkingDir()))) {
+                    status = ThreadLocalStdio.call(new DaemonProtocol.FrameInputStream(in), stdout, stderr, () -> command.exec(request.getArgs()));
+                } else {
+                    stderr.println(Bundle.commandDaemon_workingDirMismatch(workingDir, request.getWorkingDir()));
+                    status = -1;
+                }
+            } else {
+                stderr.println(Bundle.commandDaemon_invalidToken());
+                status = -1;
+            }
+            DaemonProtocol.writeExit(out, status);
+            // let the client close first so that unread stdin doesn't reset the connection
+            socket.shutdownOutput();
+            DaemonProtocol.drain(in);
+        } catch (IOException | RuntimeException ex) {
+            log.log(Level.WARNING, "While handling request", ex);
+        }
+    }
+
+    private static final int AUTH_TIMEOUT_MILLIS = 10000;
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread result = new Thread(r, "command-daemon-" + count.incrementAndGet());
+            result.setDaemon(true);
+            return result;
+        }
+    }
+    //</editor-fold>
+}
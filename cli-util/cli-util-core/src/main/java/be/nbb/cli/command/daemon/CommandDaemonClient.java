@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command.daemon;
+
+import static be.nbb.cli.command.daemon.DaemonProtocol.EXIT;
+import static be.nbb.cli.command.daemon.DaemonProtocol.STDERR;
+import static be.nbb.cli.command.daemon.DaemonProtocol.STDOUT;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A thin client that forwards its arguments, working directory and stdin to a
+ * {@link CommandDaemon} and copies back stdout, stderr and the exit status. The
+ * token expected by the daemon is read from its token file.
+ *
+ * @author Philippe Charles
+ */
+@lombok.Value
+public class CommandDaemonClient {
+
+    @Nonnegative
+    int port;
+
+    @lombok.NonNull
+    Path tokenFile;
+
+    public int exec(@Nonnull String[] args, @Nonnull InputStream stdin, @Nonnull OutputStream stdout, @Nonnull OutputStream stderr) throws IOException {
+        String token = DaemonProtocol.readTokenFile(tokenFile);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DaemonProtocol.writeRequest(out, token, new DaemonProtocol.Request(Paths.get("").toAbsolutePath().toString(), args));
+            out.flush();
+
+            Thread pump = new Thread(() -> pump(stdin, out), "command-daemon-stdin");
+            pump.setDaemon(true);
+            pump.start();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte type = in.readByte();
+                int len = in.readInt();
+                switch (type) {
+                    case STDOUT:
+                        copy(in, len, stdout, buffer);
+                        break;
+                    case STDERR:
+                        copy(in, len, stderr, buffer);
+                        break;
+                    case EXIT:
+                        stdout.flush();
+                        stderr.flush();
+                        return len;
+                    default:
+                        throw new IOException("Unexpected frame");
+                }
+            }
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private static void copy(DataInputStream in, int len, OutputStream out, byte[] buffer) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, buffer.length);
+            in.readFully(buffer, 0, n);
+            out.write(buffer, 0, n);
+            len -= n;
+        }
+        out.flush();
+    }
+
+    private static void pump(InputStream stdin, DataOutputStream out) {
+        try (OutputStream frames = new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDIN)) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = stdin.read(buffer)) != -1) {
+                frames.write(buffer, 0, n);
+                frames.flush();
+            }
+        } catch (IOException ex) {
+            // the command has completed
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * Wire format shared by the daemon and its client.
+ * <p>
+ * The client sends a request (magic number, token, working directory and
+ * arguments) followed by stdin frames. The token is a secret shared through a
+ * file that only the owner of the daemon can read. The daemon answers with stdout and stderr frames
+ * and ends with an exit frame. A frame is a type byte followed by an int
+ * length and the payload; an empty stdin frame marks the end of stdin.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+class DaemonProtocol {
+
+    static final int MAGIC = 0x44454d31;
+
+    static final byte STDIN = 0;
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    @lombok.Value
+    static class Request {
+
+        String workingDir;
+        String[] args;
+    }
+
+    void writeRequest(DataOutputStream out, String token, Request request) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeUTF(token);
+        out.writeUTF(request.getWorkingDir());
+        out.writeInt(request.getArgs().length);
+        for (String arg : request.getArgs()) {
+            out.writeUTF(arg);
+        }
+    }
+
+    String readToken(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid request");
+        }
+        return in.readUTF();
+    }
+
+    Request readRequest(DataInputStream in) throws IOException {
+        String workingDir = in.readUTF();
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+        return new Request(workingDir, args);
+    }
+
+    String newToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder result = new StringBuilder();
+        for (byte o : bytes) {
+            result.append(String.format("%02x", o));
+        }
+        return result.toString();
+    }
+
+    boolean isSameToken(String expected, String actual) {
+        // constant time in order not to leak the token
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void writeTokenFile(Path file, String token) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        boolean posix = file.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.isDirectory(parent)) {
+            if (posix) {
+                Files.createDirectories(parent, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectories(parent);
+            }
+        }
+        // recreated so that the permissions are set before the token is written
+        Files.deleteIfExists(file);
+        if (posix) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+        }
+        Files.write(file, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    String readTokenFile(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+    }
+
+    void writeFrame(DataOutputStream out, byte type, byte[] b, int off, int len) throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            out.writeInt(len);
+            out.write(b, off, len);
+        }
+    }
+
+    void writeExit(DataOutputStream out, int status) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeInt(status);
+            out.flush();
+        }
+    }
+
+    /**
+     * An output stream that wraps its content into frames of a given type.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                writeFrame(out, type, b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (type == STDIN) {
+                writeFrame(out, type, new byte[0], 0, 0);
+            }
+            flush();
+        }
+    }
+
+    /**
+     * An input stream that unwraps the content of stdin frames.
+     */
+    static final class FrameInputStream extends InputStream {
+
+        private final DataInputStream in;
+        private int remaining;
+        private boolean eof;
+
+        FrameInputStream(DataInputStream in) {
+            this.in = in;
+            this.remaining = 0;
+            this.eof = false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] result = new byte[1];
+            return read(result, 0, 1) == -1 ? -1 : result[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextFrame()) {
+                return -1;
+            }
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n == -1) {
+                throw new IOException("Unexpected end of stream");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return eof ? 0 : Math.min(remaining, in.available());
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the socket is closed by the daemon
+        }
+
+        private boolean nextFrame() throws IOException {
+            while (!eof && remaining == 0) {
+                if (in.readByte() != STDIN) {
+                    throw new IOException("Unexpected frame");
+                }
+                remaining = in.readInt();
+                eof = remaining == 0;
+            }
+            return !eof;
+        }
+    }
+
+    long drain(InputStream in) {
+        long result = 0;
+        byte[] buffer = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                result += n;
+            }
+        } catch (IOException ex) {
+            // the peer has gone away
+        }
+        return result;
+    }
+}
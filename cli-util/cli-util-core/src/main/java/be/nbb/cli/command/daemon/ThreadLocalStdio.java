@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.IntSupplier;
+
+/**
+ * Redirects System.in, System.out and System.err on a per-thread basis so
+ * that several commands can run concurrently in the same JVM. Threads without
+ * redirection keep using the original streams.
+ * <p>
+ * The threads started by a command, such as the workers of its pools, inherit
+ * its streams until the command completes. The threads of the common
+ * fork-join pool are shared by all commands and therefore always use the
+ * original streams.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+class ThreadLocalStdio {
+
+    private final ThreadLocal<Stdio> CURRENT = new InheritableThreadLocal<>();
+    private volatile Stdio defaults = null;
+
+    int call(InputStream in, PrintStream out, PrintStream err, IntSupplier task) {
+        install();
+        Stdio stdio = new Stdio(in, out, err);
+        CURRENT.set(stdio);
+        try {
+            return task.getAsInt();
+        } finally {
+            // threads that outlive the command must not write to its client
+            stdio.active = false;
+            CURRENT.remove();
+            out.flush();
+            err.flush();
+        }
+    }
+
+    private synchronized void install() {
+        if (defaults == null) {
+            defaults = new Stdio(System.in, System.out, System.err);
+            System.setIn(new StdinProxy());
+            System.setOut(new PrintStream(new OutputProxy(false)));
+            System.setErr(new PrintStream(new OutputProxy(true)));
+        }
+    }
+
+    private Stdio get() {
+        Stdio result = CURRENT.get();
+        return result != null && result.active && !isSharedThread() ? result : defaults;
+    }
+
+    private boolean isSharedThread() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == ForkJoinPool.commonPool();
+    }
+
+    @lombok.RequiredArgsConstructor
+    private static final class Stdio {
+
+        final InputStream in;
+        final PrintStream out;
+        final PrintStream err;
+        volatile boolean active = true;
+    }
+
+    private static final class StdinProxy extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            return get().in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return get().in.read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return get().in.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return get().in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            get().in.close();
+        }
+    }
+
+    @lombok.AllArgsConstructor
+    private static final class OutputProxy extends OutputStream {
+
+        private final boolean err;
+
+        private PrintStream delegate() {
+            return err ? get().err : get().out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate().flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // never close the underlying streams
+            delegate().flush();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import org.openide.util.Lookup;
+import org.openide.util.LookupListener;
+
+/**
+ * Resolves the first factory of a lookup that can handle a media type and a
+ * class, and memoizes the result. Resolutions are dropped as soon as the
+ * content of the lookup changes or the default lookup is replaced.
+ *
+ * @author Philippe Charles
+ * @param <F>
+ */
+@ThreadSafe
+final class FactoryResolver<F> {
+
+    static final FactoryResolver<SerializerFactory> SERIALIZERS = new FactoryResolver<>(SerializerFactory.class, SerializerFactory::canHandle, Lookup::getDefault);
+    static final FactoryResolver<ItemSerializerFactory> ITEM_SERIALIZERS = new FactoryResolver<>(ItemSerializerFactory.class, ItemSerializerFactory::canHandle, Lookup::getDefault);
+
+    @FunctionalInterface
+    interface Matcher<F> {
+
+        boolean canHandle(F factory, MediaType mediaType, Class<?> type);
+    }
+
+    private final Class<F> service;
+    private final Matcher<F> matcher;
+    private final Supplier<Lookup> lookup;
+    private final Map<Key, Optional<F>> resolutions;
+    private final AtomicLong generation;
+    private final LookupListener listener;
+    private volatile State<F> state;
+
+    FactoryResolver(@Nonnull Class<F> service, @Nonnull Matcher<F> matcher, @Nonnull Supplier<Lookup> lookup) {
+        this.service = service;
+        this.matcher = matcher;
+        this.lookup = lookup;
+        this.resolutions = new ConcurrentHashMap<>();
+        this.generation = new AtomicLong();
+        this.listener = o -> invalidate();
+        this.state = null;
+    }
+
+    @Nonnull
+    Optional<F> resolve(@Nonnull MediaType mediaType, @Nonnull Class<?> type) {
+        Lookup current = lookup.get();
+        State<F> tmp = state;
+        if (tmp == null || tmp.lookup != current) {
+            tmp = reset(current);
+        }
+        Key key = new Key(mediaType, type);
+        Optional<F> result = resolutions.get(key);
+        if (result == null) {
+            long before = generation.get();
+            // not computeIfAbsent since aliases resolve other keys while matching
+            result = tmp.result.allInstances().stream()
+                    .filter(o -> matcher.canHandle(o, mediaType, type))
+                    .findFirst()
+                    .<F>map(o -> o);
+            resolutions.putIfAbsent(key, result);
+            if (generation.get() != before) {
+                resolutions.remove(key);
+            }
+        }
+        return result;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private void invalidate() {
+        generation.incrementAndGet();
+        resolutions.clear();
+    }
+
+    private synchronized State<F> reset(Lookup current) {
+        if (state != null && state.lookup == current) {
+            return state;
+        }
+        if (state != null) {
+            state.result.removeLookupListener(listener);
+        }
+        Lookup.Result<F> result = current.lookupResult(service);
+        result.addLookupListener(listener);
+        invalidate();
+        state = new State<>(current, result);
+        return state;
+    }
+
+    @lombok.Value
+    private static class Key {
+
+        MediaType mediaType;
+        Class<?> type;
+    }
+
+    @lombok.AllArgsConstructor
+    private static final class State<F> {
+
+        // the result is held strongly so that its listener stays registered
+        final Lookup lookup;
+        final Lookup.Result<F> result;
+    }
+    //</editor-fold>
+}
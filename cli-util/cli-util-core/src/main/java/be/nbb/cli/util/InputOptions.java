@@ -16,8 +16,11 @@
  */
 package be.nbb.cli.util;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 import javax.annotation.Nonnull;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -50,9 +53,29 @@ public final class InputOptions {
         Serializer<X> serializer = SerializerFactory.of(mediaType, clazz, false);
         if (getFile().isPresent()) {
             return serializer.deserialize(getFile().get());
-        } else {
-            return serializer.deserialize(System.in);
         }
+        Optional<StdioPipe> pipe = StdioPipe.getInput();
+        if (pipe.isPresent()) {
+            return pipe.get().read(clazz, serializer);
+        }
+        return serializer.deserialize(System.in);
+    }
+
+    @Nonnull
+    public <T, I> ItemReader<T, I> openReader(@Nonnull Class<T> type, @Nonnull Class<I> itemType) throws IOException {
+        ItemSerializer<T, I> serializer = ItemSerializerFactory.of(mediaType, type, itemType, false);
+        InputStream stream = new BufferedInputStream(getFile().isPresent() ? new FileInputStream(getFile().get()) : openStdin());
+        try {
+            return serializer.openReader(stream);
+        } catch (IOException | RuntimeException ex) {
+            stream.close();
+            throw ex;
+        }
+    }
+
+    private static InputStream openStdin() throws IOException {
+        Optional<StdioPipe> pipe = StdioPipe.getInput();
+        return pipe.isPresent() ? pipe.get().openInput() : NonCloseableStreams.of(System.in);
     }
 
     @XmlRootElement
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the items of a collection one at a time.
+ *
+ * @author Philippe Charles
+ * @param <T> the type of the collection
+ * @param <I> the type of the items
+ */
+public interface ItemReader<T, I> extends Closeable {
+
+    /**
+     * Gets the collection without its items. Only the fields that precede
+     * the items in the input are guaranteed to be set before the last item
+     * has been read.
+     *
+     * @return a non-null collection whose items are not set
+     */
+    @Nonnull
+    T getHeader();
+
+    /**
+     * Reads the next item.
+     *
+     * @return the next item or null if there is no more item
+     * @throws IOException
+     */
+    @Nullable
+    I read() throws IOException;
+}
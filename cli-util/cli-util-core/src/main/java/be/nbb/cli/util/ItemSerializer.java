@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+
+/**
+ * Streaming counterpart of {@link Serializer} for collections.
+ *
+ * @author Philippe Charles
+ * @param <T> the type of the collection
+ * @param <I> the type of the items
+ */
+public interface ItemSerializer<T, I> {
+
+    /**
+     * Opens a reader on a stream. The stream is closed with the reader.
+     *
+     * @param input
+     * @return
+     * @throws IOException
+     */
+    @Nonnull
+    ItemReader<T, I> openReader(@Nonnull InputStream input) throws IOException;
+
+    /**
+     * Opens a writer on a stream. The stream is closed with the writer.
+     *
+     * @param output
+     * @param header a supplier of the collection without its items
+     * @return
+     * @throws IOException
+     */
+    @Nonnull
+    ItemWriter<T, I> openWriter(@Nonnull OutputStream output, @Nonnull Supplier<? extends T> header) throws IOException;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import javax.annotation.Nonnull;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public interface ItemSerializerFactory {
+
+    @Nonnull
+    boolean canHandle(@Nonnull MediaType mediaType, @Nonnull Class<?> type);
+
+    @Nonnull
+    <T, I> ItemSerializer<T, I> create(@Nonnull Class<T> type, @Nonnull Class<I> itemType, boolean formattedOutput);
+
+    @Nonnull
+    public static <T, I> ItemSerializer<T, I> of(@Nonnull MediaType mediaType, @Nonnull Class<T> type, @Nonnull Class<I> itemType, boolean formattedOutput) {
+        return FactoryResolver.ITEM_SERIALIZERS.resolve(mediaType, type)
+                .orElseThrow(() -> new IllegalArgumentException("Don't know how to stream media type '" + mediaType + "' for class '" + type.getName() + "'"))
+                .create(type, itemType, formattedOutput);
+    }
+}
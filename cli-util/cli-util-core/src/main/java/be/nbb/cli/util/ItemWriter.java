@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+
+/**
+ * Writes the items of a collection one at a time. The header of the
+ * collection is requested when the first item is written or when the writer
+ * is finished, whichever comes first.
+ * <p>
+ * The collection is only terminated by {@link #finish()}; a writer closed
+ * without it leaves an incomplete document so that readers fail instead of
+ * taking a partial collection for a complete one.
+ *
+ * @author Philippe Charles
+ * @param <T> the type of the collection
+ * @param <I> the type of the items
+ */
+public interface ItemWriter<T, I> extends Closeable {
+
+    void write(@Nonnull I item) throws IOException;
+
+    /**
+     * Terminates the collection once all the items have been written.
+     *
+     * @throws IOException
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+
+/**
+ * The field of a JAXB-annotated collection that holds its items.
+ *
+ * @author Philippe Charles
+ */
+public final class ItemsProperty {
+
+    @Nonnull
+    public static ItemsProperty of(@Nonnull Class<?> type, @Nonnull Class<?> itemType) throws IllegalArgumentException {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && isItemsField(field, itemType)) {
+                    field.setAccessible(true);
+                    return new ItemsProperty(field, itemType);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Cannot find items of type '" + itemType.getName() + "' in class '" + type.getName() + "'");
+    }
+
+    /**
+     * Finds the items of a collection whose item type is unknown. The items
+     * are the only field that holds an array or a list of beans.
+     *
+     * @param type
+     * @return a non-null optional, empty if there is no such field or if
+     * there is more than one
+     */
+    @Nonnull
+    public static Optional<ItemsProperty> find(@Nonnull Class<?> type) {
+        List<ItemsProperty> result = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                Class<?> itemType = getBeanItemType(field);
+                if (!Modifier.isStatic(field.getModifiers()) && itemType != null) {
+                    field.setAccessible(true);
+                    result.add(new ItemsProperty(field, itemType));
+                }
+            }
+        }
+        return result.size() == 1 ? Optional.of(result.get(0)) : Optional.empty();
+    }
+
+    private final Field field;
+    private final Class<?> itemType;
+    private final String elementName;
+    private final String wrapperName;
+
+    private ItemsProperty(Field field, Class<?> itemType) {
+        this.field = field;
+        this.itemType = itemType;
+        XmlElement element = field.getAnnotation(XmlElement.class);
+        this.elementName = element != null ? getName(element.name(), field) : field.getName();
+        XmlElementWrapper wrapper = field.getAnnotation(XmlElementWrapper.class);
+        this.wrapperName = wrapper != null ? getName(wrapper.name(), field) : null;
+    }
+
+    @Nonnull
+    public Class<?> getItemType() {
+        return itemType;
+    }
+
+    /**
+     * Gets the name of the XML elements of the items.
+     *
+     * @return a non-null name
+     */
+    @Nonnull
+    public String getElementName() {
+        return elementName;
+    }
+
+    /**
+     * Gets the name of the XML element that wraps the items if any.
+     *
+     * @return a name if the items are wrapped, null otherwise
+     */
+    @Nullable
+    public String getWrapperName() {
+        return wrapperName;
+    }
+
+    /**
+     * Gets the names under which the items might appear in a non-XML format.
+     *
+     * @return a non-empty set of names
+     */
+    @Nonnull
+    public Set<String> getNames() {
+        Set<String> result = new LinkedHashSet<>();
+        result.add(elementName);
+        if (wrapperName != null) {
+            result.add(wrapperName);
+        }
+        result.add(field.getName());
+        return result;
+    }
+
+    @Nonnull
+    public List<Object> getItems(@Nonnull Object bean) {
+        Object value = get(bean);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (field.getType().isArray()) {
+            List<Object> result = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(value); i++) {
+                result.add(Array.get(value, i));
+            }
+            return result;
+        }
+        return new ArrayList<>((List<?>) value);
+    }
+
+    public void setItems(@Nonnull Object bean, @Nullable List<?> items) {
+        if (items == null) {
+            set(bean, null);
+        } else if (field.getType().isArray()) {
+            Object array = Array.newInstance(itemType, items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Array.set(array, i, items.get(i));
+            }
+            set(bean, array);
+        } else {
+            set(bean, new ArrayList<>(items));
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private Object get(Object bean) {
+        try {
+            return field.get(bean);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void set(Object bean, Object value) {
+        try {
+            field.set(bean, value);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final String DEFAULT_NAME = "##default";
+
+    private static String getName(String name, Field field) {
+        return DEFAULT_NAME.equals(name) ? field.getName() : name;
+    }
+
+    private static Class<?> getBeanItemType(Field field) {
+        Class<?> result = null;
+        if (field.getType().isArray()) {
+            result = field.getType().getComponentType();
+        } else if (List.class.equals(field.getType()) && field.getGenericType() instanceof ParameterizedType) {
+            Type arg = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            result = arg instanceof Class ? (Class<?>) arg : null;
+        }
+        return result != null && isBean(result) ? result : null;
+    }
+
+    private static boolean isBean(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !type.isEnum()
+                && !type.getName().startsWith("java.");
+    }
+
+    private static boolean isItemsField(Field field, Class<?> itemType) {
+        Class<?> fieldType = field.getType();
+        if (fieldType.isArray()) {
+            return fieldType.getComponentType().equals(itemType);
+        }
+        if (List.class.equals(fieldType)) {
+            Type genericType = field.getGenericType();
+            return genericType instanceof ParameterizedType
+                    && Arrays.asList(((ParameterizedType) genericType).getActualTypeArguments()).contains(itemType);
+        }
+        return false;
+    }
+    //</editor-fold>
+}
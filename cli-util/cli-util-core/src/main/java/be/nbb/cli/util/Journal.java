@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An append-only file of keyed records that survives the crash of its
+ * writer. Each record carries a checksum so that a record cut by a crash is
+ * detected and dropped when the journal is reopened. The journal is reset if
+ * its header doesn't match the expected one; the header typically describes
+ * the options of the run that produced the records.
+ * <p>
+ * Only the positions of the records are kept in memory.
+ *
+ * @author Philippe Charles
+ */
+@ThreadSafe
+public final class Journal implements Closeable {
+
+    @Nonnull
+    public static Journal open(@Nonnull Path file, @Nonnull String header) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Journal result = new Journal(channel);
+            result.load(header.getBytes(StandardCharsets.UTF_8));
+            return result;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private final FileChannel channel;
+    private final Map<String, long[]> index;
+    private long end;
+
+    private Journal(FileChannel channel) {
+        this.channel = channel;
+        this.index = new HashMap<>();
+        this.end = 0;
+    }
+
+    @Nonnegative
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Checks if a key has a record in the journal.
+     *
+     * @param key
+     * @return true if the key is in the journal, false otherwise
+     */
+    public synchronized boolean contains(@Nonnull String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Gets the payload of the last record of a key.
+     *
+     * @param key
+     * @return a payload if the key is in the journal, null otherwise
+     * @throws IOException
+     */
+    @Nullable
+    public byte[] get(@Nonnull String key) throws IOException {
+        long[] position;
+        synchronized (this) {
+            position = index.get(key);
+        }
+        if (position == null) {
+            return null;
+        }
+        ByteBuffer result = ByteBuffer.allocate((int) position[1]);
+        readFully(result, position[0]);
+        return result.array();
+    }
+
+    /**
+     * Appends a record at the end of the journal.
+     *
+     * @param key
+     * @param payload
+     * @throws IOException
+     */
+    public void append(@Nonnull String key, @Nonnull byte[] payload) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(8 + keyBytes.length + payload.length + 8)
+                .putInt(keyBytes.length)
+                .putInt(payload.length)
+                .put(keyBytes)
+                .put(payload)
+                .putLong(checksum(keyBytes, payload));
+        record.flip();
+        synchronized (this) {
+            long start = end;
+            while (record.hasRemaining()) {
+                channel.write(record, start + record.position());
+            }
+            end = start + record.capacity();
+            index.put(key, new long[]{start + 8 + keyBytes.length, payload.length});
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private static final int MAGIC = 0x4a524e31;
+
+    private void load(byte[] header) throws IOException {
+        long size = channel.size();
+        if (!hasHeader(header, size)) {
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.allocate(8 + header.length).putInt(MAGIC).putInt(header.length).put(header);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+            end = buffer.capacity();
+            return;
+        }
+        long pos = 8 + header.length;
+        while (true) {
+            long next = readRecord(pos, size);
+            if (next == -1) {
+                break;
+            }
+            pos = next;
+        }
+        if (pos < size) {
+            // a partial record left by a crash
+            channel.truncate(pos);
+        }
+        end = pos;
+    }
+
+    private boolean hasHeader(byte[] header, long size) throws IOException {
+        if (size < 8 + header.length) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8 + header.length);
+        readFully(buffer, 0);
+        buffer.flip();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != header.length) {
+            return false;
+        }
+        byte[] actual = new byte[header.length];
+        buffer.get(actual);
+        return Arrays.equals(actual, header);
+    }
+
+    private long readRecord(long pos, long size) throws IOException {
+        if (size - pos < 8) {
+            return -1;
+        }
+        ByteBuffer lengths = ByteBuffer.allocate(8);
+        readFully(lengths, pos);
+        lengths.flip();
+        int keyLength = lengths.getInt();
+        int payloadLength = lengths.getInt();
+        if (keyLength < 0 || payloadLength < 0 || size - pos < 8L + keyLength + payloadLength + 8) {
+            return -1;
+        }
+        ByteBuffer content = ByteBuffer.allocate(keyLength + payloadLength + 8);
+        readFully(content, pos + 8);
+        content.flip();
+        byte[] key = new byte[keyLength];
+        byte[] payload = new byte[payloadLength];
+        content.get(key).get(payload);
+        if (content.getLong() != checksum(key, payload)) {
+            return -1;
+        }
+        index.put(new String(key, StandardCharsets.UTF_8), new long[]{pos + 8 + keyLength, payloadLength});
+        return pos + 8 + keyLength + payloadLength + 8;
+    }
+
+    private void readFully(ByteBuffer buffer, long pos) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, pos + buffer.position()) == -1) {
+                throw new IOException("Unexpected end of journal");
+            }
+        }
+    }
+
+    private static long checksum(byte[] key, byte[] payload) {
+        CRC32 result = new CRC32();
+        result.update(key);
+        result.update(payload);
+        return result.getValue();
+    }
+    //</editor-fold>
+}
@@ -81,6 +81,7 @@ public final class MediaType {
 
     public static final MediaType XML_UTF_8 = new MediaType("text", "xml", UTF_8);
     public static final MediaType JSON_UTF_8 = new MediaType("application", "json", UTF_8);
+    public static final MediaType NDJSON_UTF_8 = new MediaType("application", "x-ndjson", UTF_8);
     public static final MediaType JPEG = new MediaType("image", "jpeg");
     public static final MediaType PNG = new MediaType("image", "png");
     public static final MediaType SVG_UTF_8 = new MediaType("image", "svg+xml", UTF_8);
@@ -115,6 +116,23 @@ public final class MediaType {
         return parameters.isEmpty() ? this : new MediaType(type, subtype);
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MediaType)) {
+            return false;
+        }
+        MediaType that = (MediaType) obj;
+        return type.equals(that.type) && subtype.equals(that.subtype) && parameters.equals(that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * type.hashCode() + subtype.hashCode()) + parameters.hashCode();
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder().append(type).append("/").append(subtype);
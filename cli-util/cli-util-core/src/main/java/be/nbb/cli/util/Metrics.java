@@ -0,0 +1,304 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Timing and throughput metrics of a command execution.
+ * <p>
+ * The metrics of the running command are bound to its thread by the command
+ * itself; executors should therefore get them with {@link #current()} before
+ * handing some work to other threads.
+ *
+ * @author Philippe Charles
+ */
+@ThreadSafe
+public final class Metrics {
+
+    public enum Phase {
+
+        DESERIALIZATION, PROCESSING, SERIALIZATION;
+    }
+
+    @FunctionalInterface
+    public interface Call<X, E extends Exception> {
+
+        X call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+
+        void run() throws E;
+    }
+
+    @Nonnull
+    public static Metrics current() {
+        Metrics result = CURRENT.get();
+        return result != null ? result : DISABLED;
+    }
+
+    /**
+     * Binds some metrics to the current thread.
+     *
+     * @param metrics
+     * @return the metrics that were previously bound
+     */
+    @Nonnull
+    public static Metrics setCurrent(@Nonnull Metrics metrics) {
+        Metrics result = current();
+        CURRENT.set(metrics != DISABLED ? metrics : null);
+        return result;
+    }
+
+    @Nonnull
+    public static Metrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Creates enabled metrics. The peak usage of the heap pools is reset since
+     * they are JVM-wide; the caller must therefore not create enabled metrics
+     * while others are in use.
+     *
+     * @return a non-null metrics
+     */
+    @Nonnull
+    public static Metrics enabled() {
+        return enabled(System::nanoTime);
+    }
+
+    /**
+     * Creates enabled metrics that read the time from the specified ticker.
+     *
+     * @param ticker a source of nanoseconds
+     * @return a non-null metrics
+     */
+    @Nonnull
+    static Metrics enabled(@Nonnull LongSupplier ticker) {
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(o -> o.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+        return new Metrics(true, ticker);
+    }
+
+    private final boolean enabled;
+    private final LongSupplier ticker;
+    private final long startTime;
+    private final Map<Phase, LongAdder> phases;
+    private final Latencies latencies;
+
+    private Metrics(boolean enabled, LongSupplier ticker) {
+        this.enabled = enabled;
+        this.ticker = ticker;
+        this.startTime = ticker.getAsLong();
+        this.phases = new EnumMap<>(Phase.class);
+        for (Phase o : Phase.values()) {
+            phases.put(o, new LongAdder());
+        }
+        this.latencies = new Latencies();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <X, E extends Exception> X time(@Nonnull Phase phase, @Nonnull Call<X, E> call) throws E {
+        if (!enabled) {
+            return call.call();
+        }
+        long start = ticker.getAsLong();
+        try {
+            return call.call();
+        } finally {
+            phases.get(phase).add(ticker.getAsLong() - start);
+        }
+    }
+
+    public <E extends Exception> void time(@Nonnull Phase phase, @Nonnull Task<E> task) throws E {
+        this.<Void, E>time(phase, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Decorates a function that processes a single series in order to record
+     * its latency.
+     *
+     * @param <X>
+     * @param <Y>
+     * @param function
+     * @param name a function that gives the name of a series
+     * @return a non-null function
+     */
+    @Nonnull
+    public <X, Y> Function<X, Y> perSeries(@Nonnull Function<X, Y> function, @Nonnull Function<? super X, String> name) {
+        if (!enabled) {
+            return function;
+        }
+        return o -> {
+            long start = ticker.getAsLong();
+            try {
+                return function.apply(o);
+            } finally {
+                latencies.add(name.apply(o), ticker.getAsLong() - start);
+            }
+        };
+    }
+
+    @Nonnull
+    public Report getReport() {
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        phases.forEach((k, v) -> phaseMillis.put(k.name().toLowerCase(), TimeUnit.NANOSECONDS.toMillis(v.sum())));
+        long elapsed = ticker.getAsLong() - startTime;
+        long[] sorted = latencies.getSorted();
+        return new Report(
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                phaseMillis,
+                sorted.length,
+                elapsed > 0 ? sorted.length / (elapsed / 1e9) : 0,
+                toMillis(percentile(sorted, 50)),
+                toMillis(percentile(sorted, 95)),
+                toMillis(percentile(sorted, 99)),
+                toMillis(sorted.length > 0 ? sorted[sorted.length - 1] : 0),
+                latencies.getSlowest(),
+                getPeakHeap());
+    }
+
+    @lombok.Value
+    public static class Report {
+
+        long elapsedMillis;
+        Map<String, Long> phaseMillis;
+        int seriesCount;
+        double seriesPerSecond;
+        double p50Millis;
+        double p95Millis;
+        double p99Millis;
+        double maxMillis;
+        List<SlowSeries> slowest;
+        /**
+         * Peak heap usage of the whole process since the metrics were
+         * created, including the other commands that run in the same JVM.
+         */
+        long peakHeapBytes;
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            result.append("Elapsed: ").append(elapsedMillis).append("ms");
+            phaseMillis.forEach((k, v) -> result.append(", ").append(k).append(": ").append(v).append("ms"));
+            result.append(System.lineSeparator());
+            if (seriesCount > 0) {
+                result.append(String.format("Series: %d (%.1f/s), latency p50 %.1fms, p95 %.1fms, p99 %.1fms, max %.1fms", seriesCount, seriesPerSecond, p50Millis, p95Millis, p99Millis, maxMillis));
+                result.append(System.lineSeparator());
+                slowest.forEach(o -> result.append("  ").append(o).append(System.lineSeparator()));
+            }
+            result.append("Peak heap (process): ").append(peakHeapBytes / (1024 * 1024)).append("MB");
+            return result.toString();
+        }
+    }
+
+    @lombok.Value
+    public static class SlowSeries {
+
+        String name;
+        double millis;
+
+        @Override
+        public String toString() {
+            return String.format("%.1fms %s", millis, name);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private static final ThreadLocal<Metrics> CURRENT = new ThreadLocal<>();
+    private static final Metrics DISABLED = new Metrics(false, System::nanoTime);
+    private static final int SLOWEST_COUNT = 10;
+
+    private static final class Latencies {
+
+        private long[] values = new long[1024];
+        private int size = 0;
+        private final PriorityQueue<Map.Entry<String, Long>> slowest = new PriorityQueue<>(Comparator.comparingLong(Map.Entry<String, Long>::getValue));
+
+        synchronized void add(@Nullable String name, long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+            slowest.add(new AbstractMap.SimpleImmutableEntry<>(String.valueOf(name), nanos));
+            if (slowest.size() > SLOWEST_COUNT) {
+                slowest.poll();
+            }
+        }
+
+        synchronized long[] getSorted() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        synchronized List<SlowSeries> getSlowest() {
+            List<SlowSeries> result = new ArrayList<>();
+            slowest.stream()
+                    .sorted(Comparator.comparingLong(Map.Entry<String, Long>::getValue).reversed())
+                    .forEach(o -> result.add(new SlowSeries(o.getKey(), toMillis(o.getValue()))));
+            return result;
+        }
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static long getPeakHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(o -> o.getType() == MemoryType.HEAP)
+                .mapToLong(o -> o.getPeakUsage().getUsed())
+                .sum();
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+class NonCloseableStreams {
+
+    @Nonnull
+    static InputStream of(@Nonnull InputStream stream) {
+        return new FilterInputStream(stream) {
+            @Override
+            public void close() throws IOException {
+                // do not close delegate
+            }
+        };
+    }
+
+    @Nonnull
+    static OutputStream of(@Nonnull OutputStream stream) {
+        return new FilterOutputStream(stream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // do not close delegate
+                flush();
+            }
+        };
+    }
+}
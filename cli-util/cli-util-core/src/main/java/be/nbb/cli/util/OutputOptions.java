@@ -16,9 +16,13 @@
  */
 package be.nbb.cli.util;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -51,11 +55,30 @@ public final class OutputOptions {
         Serializer<X> serializer = SerializerFactory.of(getMediaType(), clazz, isFormatted());
         if (getFile().isPresent()) {
             serializer.serialize(value, getFile().get());
+        } else if (StdioPipe.getOutput().isPresent()) {
+            StdioPipe.getOutput().get().write(clazz, value, serializer);
         } else {
             serializer.serialize(value, System.out);
         }
     }
 
+    @Nonnull
+    public <T, I> ItemWriter<T, I> openWriter(@Nonnull Class<T> type, @Nonnull Class<I> itemType, @Nonnull Supplier<? extends T> header) throws IOException {
+        ItemSerializer<T, I> serializer = ItemSerializerFactory.of(getMediaType(), type, itemType, isFormatted());
+        OutputStream stream = new BufferedOutputStream(getFile().isPresent() ? new FileOutputStream(getFile().get()) : openStdout());
+        try {
+            return serializer.openWriter(stream, header);
+        } catch (IOException | RuntimeException ex) {
+            stream.close();
+            throw ex;
+        }
+    }
+
+    private static OutputStream openStdout() {
+        Optional<StdioPipe> pipe = StdioPipe.getOutput();
+        return pipe.isPresent() ? pipe.get().openOutput() : NonCloseableStreams.of(System.out);
+    }
+
     @XmlRootElement
     public static final class XmlBean {
 
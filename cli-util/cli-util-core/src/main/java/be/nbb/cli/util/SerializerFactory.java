@@ -17,7 +17,6 @@
 package be.nbb.cli.util;
 
 import javax.annotation.Nonnull;
-import org.openide.util.Lookup;
 
 /**
  *
@@ -33,9 +32,7 @@ public interface SerializerFactory {
 
     @Nonnull
     public static <X> Serializer<X> of(@Nonnull MediaType mediaType, @Nonnull Class<X> type, boolean formattedOutput) {
-        return Lookup.getDefault().lookupAll(SerializerFactory.class).stream()
-                .filter(o -> o.canHandle(mediaType, type))
-                .findFirst()
+        return FactoryResolver.SERIALIZERS.resolve(mediaType, type)
                 .orElseThrow(() -> new IllegalArgumentException("Don't know how to handle media type '" + mediaType + "' for class '" + type.getName() + "'"))
                 .create(type, formattedOutput);
     }
@@ -40,6 +40,26 @@ public final class SerializerFactoryAlias {
         this.toMediaType = toMediaType;
     }
 
+    public boolean canHandle(@Nonnull MediaType mediaType, @Nonnull Class<?> type) {
+        return fromType.equals(type) && fromMediaType.isCompatible(mediaType)
+                && FactoryResolver.SERIALIZERS.resolve(toMediaType, type).isPresent();
+    }
+
+    @Nonnull
+    public <X> Serializer<X> create(@Nonnull Class<X> type, boolean formattedOutput) {
+        return SerializerFactory.of(toMediaType, type, formattedOutput);
+    }
+
+    public boolean canHandleItems(@Nonnull MediaType mediaType, @Nonnull Class<?> type) {
+        return fromType.equals(type) && fromMediaType.isCompatible(mediaType)
+                && FactoryResolver.ITEM_SERIALIZERS.resolve(toMediaType, type).isPresent();
+    }
+
+    @Nonnull
+    public <T, I> ItemSerializer<T, I> createItems(@Nonnull Class<T> type, @Nonnull Class<I> itemType, boolean formattedOutput) {
+        return ItemSerializerFactory.of(toMediaType, type, itemType, formattedOutput);
+    }
+
     public boolean canHandle(@Nonnull MediaType mediaType, @Nonnull Class<?> type, @Nonnull Collection<? extends SerializerFactory> factories) {
         return fromType.equals(type) && fromMediaType.isCompatible(mediaType)
                 && factories.stream().anyMatch(o -> o.canHandle(toMediaType, type));
@@ -53,4 +73,18 @@ public final class SerializerFactoryAlias {
                 .map(o -> o.create(type, formattedOutput))
                 .orElseThrow(RuntimeException::new);
     }
+
+    public boolean canHandleItems(@Nonnull MediaType mediaType, @Nonnull Class<?> type, @Nonnull Collection<? extends ItemSerializerFactory> factories) {
+        return fromType.equals(type) && fromMediaType.isCompatible(mediaType)
+                && factories.stream().anyMatch(o -> o.canHandle(toMediaType, type));
+    }
+
+    @Nonnull
+    public <T, I> ItemSerializer<T, I> createItems(@Nonnull Class<T> type, @Nonnull Class<I> itemType, boolean formattedOutput, @Nonnull Collection<? extends ItemSerializerFactory> factories) {
+        return factories.stream()
+                .filter(o -> o.canHandle(toMediaType, type))
+                .findFirst()
+                .map(o -> o.create(type, itemType, formattedOutput))
+                .orElseThrow(RuntimeException::new);
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Splits a list into contiguous shards that are processed concurrently, and
+ * merges the results in the order of the input. A shard that fails is
+ * retried, so that a crashed worker only costs its own shard.
+ *
+ * @author Philippe Charles
+ */
+@lombok.Value
+public class ShardRunner {
+
+    @Nonnegative
+    int shards;
+
+    @Nonnegative
+    int maxAttempts;
+
+    /**
+     * Applies a function to each shard of a list.
+     *
+     * @param <X>
+     * @param <Y>
+     * @param input
+     * @param function a function that maps a shard to a list of the same size
+     * @return a non-null list
+     * @throws IOException if a shard still fails after the last attempt
+     */
+    @Nonnull
+    public <X, Y> List<Y> map(@Nonnull List<X> input, @Nonnull Function<X, Y> function) throws IOException {
+        if (input.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<List<X>> parts = split(input, Math.max(1, shards));
+        ExecutorService executor = Executors.newFixedThreadPool(parts.size(), runnable -> {
+            Thread result = new Thread(runnable, "shard-runner");
+            result.setDaemon(true);
+            return result;
+        });
+        try {
+            List<Future<List<Y>>> tasks = new ArrayList<>();
+            for (int i = 0; i < parts.size(); i++) {
+                int index = i;
+                tasks.add(executor.submit(() -> apply(index, parts.get(index), function)));
+            }
+            List<Y> result = new ArrayList<>(input.size());
+            for (Future<List<Y>> task : tasks) {
+                result.addAll(task.get());
+            }
+            return result;
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the shards", ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Function<X, Y> {
+
+        @Nonnull
+        List<Y> apply(@Nonnull List<X> shard) throws IOException;
+    }
+
+    @Nonnull
+    static <X> List<List<X>> split(@Nonnull List<X> input, @Nonnegative int count) {
+        int n = Math.max(1, Math.min(count, input.size()));
+        List<List<X>> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(input.subList(i * input.size() / n, (i + 1) * input.size() / n));
+        }
+        return result;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private <X, Y> List<Y> apply(int index, List<X> shard, Function<X, Y> function) throws IOException {
+        IOException error = null;
+        for (int attempt = 0; attempt < Math.max(1, maxAttempts); attempt++) {
+            try {
+                List<Y> result = function.apply(shard);
+                if (result.size() != shard.size()) {
+                    throw new IOException("Expected " + shard.size() + " items but got " + result.size());
+                }
+                return result;
+            } catch (IOException | RuntimeException ex) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw ex;
+                }
+                IOException failure = ex instanceof IOException ? (IOException) ex : new IOException(ex);
+                if (error == null) {
+                    error = new IOException("Shard " + index + " failed after " + Math.max(1, maxAttempts) + " attempt(s)", failure);
+                } else {
+                    error.addSuppressed(failure);
+                }
+            }
+        }
+        throw error;
+    }
+    //</editor-fold>
+}
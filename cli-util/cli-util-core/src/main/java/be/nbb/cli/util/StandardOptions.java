@@ -16,15 +16,27 @@
  */
 package be.nbb.cli.util;
 
+import java.io.File;
+import javax.annotation.Nullable;
+
 /**
  *
  * @author Philippe Charles
  */
 @lombok.Data
+@lombok.AllArgsConstructor
 public final class StandardOptions {
 
     private final boolean showHelp;
     private final boolean showVersion;
     private final boolean verbose;
+    private final boolean metrics;
+    // metrics are reported to stderr if null
+    @Nullable
+    private final File metricsFile;
+
+    public StandardOptions(boolean showHelp, boolean showVersion, boolean verbose) {
+        this(showHelp, showVersion, verbose, false, null);
+    }
 
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.function.IntSupplier;
+import javax.annotation.Nonnull;
+
+/**
+ * An in-memory replacement of stdin and stdout that chains commands in the
+ * same thread. A value written to stdout by a stage is handed over as an
+ * object to the next stage and is only serialized if the next stage asks for
+ * another type or reads a stream.
+ *
+ * @author Philippe Charles
+ */
+public final class StdioPipe {
+
+    /**
+     * Gets the pipe of the current stage if it replaces stdin.
+     *
+     * @return an optional pipe
+     */
+    @Nonnull
+    public static Optional<StdioPipe> getInput() {
+        StdioPipe result = CURRENT.get();
+        return result != null && result.readsInput ? Optional.of(result) : Optional.empty();
+    }
+
+    /**
+     * Gets the pipe of the current stage if it replaces stdout.
+     *
+     * @return an optional pipe
+     */
+    @Nonnull
+    public static Optional<StdioPipe> getOutput() {
+        StdioPipe result = CURRENT.get();
+        return result != null && result.writesOutput ? Optional.of(result) : Optional.empty();
+    }
+
+    private Entry input;
+    private Entry output;
+    private ByteArrayOutputStream pending;
+    private boolean readsInput;
+    private boolean writesOutput;
+
+    public StdioPipe() {
+        this.input = null;
+        this.output = null;
+        this.pending = null;
+        this.readsInput = false;
+        this.writesOutput = false;
+    }
+
+    /**
+     * Runs a stage on the current thread. The output of the previous stage
+     * becomes the input of this one.
+     *
+     * @param readsInput true if the stage reads the previous output instead of
+     * stdin
+     * @param writesOutput true if the stage writes to the pipe instead of
+     * stdout
+     * @param stage
+     * @return the status of the stage
+     */
+    public int exec(boolean readsInput, boolean writesOutput, @Nonnull IntSupplier stage) {
+        StdioPipe previous = CURRENT.get();
+        this.input = readsInput ? output : null;
+        this.output = null;
+        this.pending = null;
+        this.readsInput = readsInput;
+        this.writesOutput = writesOutput;
+        CURRENT.set(this);
+        try {
+            return stage.getAsInt();
+        } finally {
+            closePending();
+            this.input = null;
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Reads the output of the previous stage.
+     *
+     * @param <X>
+     * @param type
+     * @param serializer a serializer used if the previous stage wrote another
+     * type
+     * @return
+     * @throws IOException
+     */
+    @Nonnull
+    public <X> X read(@Nonnull Class<X> type, @Nonnull Serializer<X> serializer) throws IOException {
+        if (input != null && type.equals(input.getType())) {
+            return type.cast(input.getValue());
+        }
+        return serializer.deserialize(openInput());
+    }
+
+    @Nonnull
+    public InputStream openInput() throws IOException {
+        if (input == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        if (input.getBytes() == null) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            input.getWriter().writeTo(result);
+            return new ByteArrayInputStream(result.toByteArray());
+        }
+        return new ByteArrayInputStream(input.getBytes());
+    }
+
+    /**
+     * Hands over a value to the next stage.
+     *
+     * @param <X>
+     * @param type
+     * @param value
+     * @param serializer a serializer used if the next stage asks for another
+     * type or reads a stream
+     */
+    public <X> void write(@Nonnull Class<X> type, @Nonnull X value, @Nonnull Serializer<X> serializer) {
+        output = new Entry(type, value, o -> serializer.serialize(value, o), null);
+    }
+
+    @Nonnull
+    public OutputStream openOutput() {
+        closePending();
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        pending = result;
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                result.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                result.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                if (pending == result) {
+                    closePending();
+                }
+            }
+        };
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private static final ThreadLocal<StdioPipe> CURRENT = new ThreadLocal<>();
+
+    @FunctionalInterface
+    private interface Writer {
+
+        void writeTo(OutputStream stream) throws IOException;
+    }
+
+    @lombok.Value
+    private static class Entry {
+
+        Class<?> type;
+        Object value;
+        Writer writer;
+        byte[] bytes;
+    }
+
+    private void closePending() {
+        if (pending != null) {
+            output = new Entry(null, null, null, pending.toByteArray());
+            pending = null;
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+/**
+ * Runs a command of the current application in a child JVM that shares its
+ * class path and JVM options. The main class of the application is read from
+ * the {@value #MAIN_CLASS_PROPERTY} system property that must be set by its
+ * launcher.
+ *
+ * @author Philippe Charles
+ */
+@lombok.Value
+public class WorkerProcess {
+
+    public static final String MAIN_CLASS_PROPERTY = "be.nbb.cli.mainClass";
+
+    @Nonnull
+    public static WorkerProcess current() throws IllegalStateException {
+        String mainClass = System.getProperty(MAIN_CLASS_PROPERTY);
+        if (mainClass == null) {
+            throw new IllegalStateException("Main class not defined in '" + MAIN_CLASS_PROPERTY + "'");
+        }
+        List<String> result = new ArrayList<>();
+        result.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(WorkerProcess::isForwarded)
+                .forEach(result::add);
+        result.add("-D" + MAIN_CLASS_PROPERTY + "=" + mainClass);
+        result.add("-cp");
+        result.add(System.getProperty("java.class.path"));
+        result.add(mainClass);
+        return new WorkerProcess(Collections.unmodifiableList(result));
+    }
+
+    @lombok.NonNull
+    List<String> command;
+
+    /**
+     * Runs a command in a new process and waits for its completion. Stdin is
+     * fed on another thread so that a worker that writes before it has read
+     * all its input cannot block. Stderr is kept in order to explain a
+     * failure.
+     *
+     * @param <X>
+     * @param args the arguments of the command
+     * @param input a writer of stdin
+     * @param output a reader of stdout
+     * @return the value read from stdout
+     * @throws IOException if the process cannot be started, exits with a
+     * non-zero status or if its output cannot be read
+     */
+    @Nonnull
+    public <X> X exec(@Nonnull List<String> args, @Nonnull Input input, @Nonnull Output<X> output) throws IOException {
+        List<String> list = new ArrayList<>(command);
+        list.addAll(args);
+        Process process = new ProcessBuilder(list).start();
+        try {
+            Future<byte[]> stderr = IO.submit(() -> readTail(process.getErrorStream()));
+            Future<?> stdin = IO.submit(() -> {
+                try (OutputStream stream = process.getOutputStream()) {
+                    input.write(stream);
+                }
+                return null;
+            });
+            X result = null;
+            IOException error = null;
+            try (InputStream stream = process.getInputStream()) {
+                result = output.read(stream);
+            } catch (IOException ex) {
+                error = ex;
+            }
+            int status = process.waitFor();
+            if (status != 0) {
+                IOException ex = new IOException("Worker exited with status " + status + getMessage(stderr.get()));
+                if (error != null) {
+                    ex.addSuppressed(error);
+                }
+                throw ex;
+            }
+            if (error != null) {
+                throw error;
+            }
+            stdin.get();
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the worker", ex);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Input {
+
+        void write(@Nonnull OutputStream stream) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Output<X> {
+
+        @Nonnull
+        X read(@Nonnull InputStream stream) throws IOException;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    // only the end of stderr is kept since it usually holds the cause
+    private static final int MAX_STDERR_BYTES = 8192;
+
+    private static final ExecutorService IO = Executors.newCachedThreadPool(runnable -> {
+        Thread result = new Thread(runnable, "worker-process-io");
+        result.setDaemon(true);
+        return result;
+    });
+
+    private static boolean isForwarded(String arg) {
+        // a second debugger or agent on the same port would prevent the start
+        return !arg.startsWith("-agentlib:")
+                && !arg.startsWith("-javaagent:")
+                && !arg.startsWith("-Xrunjdwp")
+                && !arg.equals("-Xdebug");
+    }
+
+    private static byte[] readTail(InputStream stream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[MAX_STDERR_BYTES];
+        int n;
+        while ((n = stream.read(buffer)) != -1) {
+            result.write(buffer, 0, n);
+            if (result.size() > 2 * MAX_STDERR_BYTES) {
+                byte[] tmp = result.toByteArray();
+                result.reset();
+                result.write(tmp, tmp.length - MAX_STDERR_BYTES, MAX_STDERR_BYTES);
+            }
+        }
+        return result.toByteArray();
+    }
+
+    private static String getMessage(byte[] stderr) {
+        String result = new String(stderr, Charset.defaultCharset()).trim();
+        return result.isEmpty() ? "" : ": " + result;
+    }
+    //</editor-fold>
+}
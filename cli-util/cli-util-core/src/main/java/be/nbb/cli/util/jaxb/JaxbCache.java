@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util.jaxb;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * A bounded cache of JAXB contexts with pools of idle marshallers and
+ * unmarshallers. Contexts are expensive to create and thread-safe whereas
+ * marshallers and unmarshallers are cheaper but not thread-safe; hence the
+ * lease mechanism.
+ *
+ * @author Philippe Charles
+ */
+public final class JaxbCache {
+
+    @Nonnull
+    public static JaxbCache getDefault() {
+        return DEFAULT;
+    }
+
+    private static final JaxbCache DEFAULT = new JaxbCache(64, 8);
+
+    private final Map<Class<?>, Entry> entries;
+    private final int maxIdle;
+    private final LongAdder contextHits = new LongAdder();
+    private final LongAdder contextMisses = new LongAdder();
+    private final LongAdder poolHits = new LongAdder();
+    private final LongAdder poolMisses = new LongAdder();
+
+    public JaxbCache(@Nonnegative int maxContexts, @Nonnegative int maxIdle) {
+        this.entries = new LinkedHashMap<Class<?>, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Class<?>, Entry> eldest) {
+                return size() > maxContexts;
+            }
+        };
+        this.maxIdle = maxIdle;
+    }
+
+    @Nonnull
+    public JAXBContext getContext(@Nonnull Class<?> type) throws JAXBException {
+        return getEntry(type).context;
+    }
+
+    /**
+     * Borrows a marshaller for the specified type.
+     *
+     * @param type
+     * @param formattedOutput
+     * @param fragment
+     * @return a lease that must be closed in order to give the marshaller back
+     * @throws JAXBException
+     */
+    @Nonnull
+    public Lease<Marshaller> getMarshaller(@Nonnull Class<?> type, boolean formattedOutput, boolean fragment) throws JAXBException {
+        Entry entry = getEntry(type);
+        Marshaller result = entry.marshallers.poll();
+        if (result != null) {
+            poolHits.increment();
+        } else {
+            poolMisses.increment();
+            result = entry.context.createMarshaller();
+        }
+        result.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formattedOutput);
+        result.setProperty(Marshaller.JAXB_FRAGMENT, fragment);
+        return new Lease<>(result, entry.marshallers::offer);
+    }
+
+    /**
+     * Borrows an unmarshaller for the specified type.
+     *
+     * @param type
+     * @return a lease that must be closed in order to give the unmarshaller
+     * back
+     * @throws JAXBException
+     */
+    @Nonnull
+    public Lease<Unmarshaller> getUnmarshaller(@Nonnull Class<?> type) throws JAXBException {
+        Entry entry = getEntry(type);
+        Unmarshaller result = entry.unmarshallers.poll();
+        if (result != null) {
+            poolHits.increment();
+        } else {
+            poolMisses.increment();
+            result = entry.context.createUnmarshaller();
+        }
+        return new Lease<>(result, entry.unmarshallers::offer);
+    }
+
+    @Nonnull
+    public Stats getStats() {
+        return new Stats(contextHits.sum(), contextMisses.sum(), poolHits.sum(), poolMisses.sum());
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @lombok.Value
+    public static class Stats {
+
+        long contextHits;
+        long contextMisses;
+        long poolHits;
+        long poolMisses;
+
+        public boolean isEmpty() {
+            return contextHits + contextMisses + poolHits + poolMisses == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "contexts " + contextHits + " hits/" + contextMisses + " misses, "
+                    + "(un)marshallers " + poolHits + " hits/" + poolMisses + " misses";
+        }
+    }
+
+    public static final class Lease<X> implements AutoCloseable {
+
+        private final X resource;
+        private final Consumer<X> onClose;
+        private boolean closed;
+
+        private Lease(X resource, Consumer<X> onClose) {
+            this.resource = resource;
+            this.onClose = onClose;
+            this.closed = false;
+        }
+
+        @Nonnull
+        public X get() {
+            if (closed) {
+                throw new IllegalStateException("Lease closed");
+            }
+            return resource;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                onClose.accept(resource);
+            }
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private Entry getEntry(Class<?> type) throws JAXBException {
+        Entry result;
+        synchronized (entries) {
+            result = entries.get(type);
+        }
+        if (result != null) {
+            contextHits.increment();
+            return result;
+        }
+        contextMisses.increment();
+        // created outside of the lock since it might take a while
+        Entry created = new Entry(JAXBContext.newInstance(type), maxIdle);
+        synchronized (entries) {
+            result = entries.putIfAbsent(type, created);
+        }
+        return result != null ? result : created;
+    }
+
+    private static final class Entry {
+
+        final JAXBContext context;
+        final Queue<Marshaller> marshallers;
+        final Queue<Unmarshaller> unmarshallers;
+
+        Entry(JAXBContext context, int maxIdle) {
+            this.context = context;
+            this.marshallers = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+            this.unmarshallers = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util.jaxb;
+
+import be.nbb.cli.util.ItemReader;
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemWriter;
+import be.nbb.cli.util.ItemsProperty;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Streams the items of a JAXB-annotated collection with StAX.
+ *
+ * @author Philippe Charles
+ */
+final class JaxbItemSerializer<T, I> implements ItemSerializer<T, I> {
+
+    private final JaxbCache cache;
+    private final Class<T> type;
+    private final Class<I> itemType;
+    private final ItemsProperty property;
+    private final boolean formattedOutput;
+
+    JaxbItemSerializer(JaxbCache cache, Class<T> type, Class<I> itemType, ItemsProperty property, boolean formattedOutput) {
+        this.cache = cache;
+        this.type = type;
+        this.itemType = itemType;
+        this.property = property;
+        this.formattedOutput = formattedOutput;
+    }
+
+    @Override
+    public ItemReader<T, I> openReader(InputStream input) throws IOException {
+        JaxbCache.Lease<Unmarshaller> unmarshaller = null;
+        try {
+            unmarshaller = cache.getUnmarshaller(type);
+            XMLStreamReader xml = newInputFactory().createXMLStreamReader(input);
+            return new JaxbItemReader<>(unmarshaller, xml, input, type, itemType, property);
+        } catch (XMLStreamException | JAXBException ex) {
+            close(unmarshaller);
+            throw new IOException(ex);
+        } catch (IOException | RuntimeException ex) {
+            close(unmarshaller);
+            throw ex;
+        }
+    }
+
+    @Override
+    public ItemWriter<T, I> openWriter(OutputStream output, Supplier<? extends T> header) throws IOException {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            return new JaxbItemWriter<>(cache.getMarshaller(type, formattedOutput, true), writer, header, itemType, property, formattedOutput);
+        } catch (JAXBException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static void close(JaxbCache.Lease<?> lease) {
+        if (lease != null) {
+            lease.close();
+        }
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory result = XMLInputFactory.newFactory();
+        result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return result;
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    /**
+     * Reads the header of the collection into a DOM fragment that is
+     * unmarshalled on its own and then unmarshals the items one by one.
+     */
+    private static final class JaxbItemReader<T, I> implements ItemReader<T, I> {
+
+        private final JaxbCache.Lease<Unmarshaller> unmarshaller;
+        private final XMLStreamReader xml;
+        private final InputStream input;
+        private final Class<I> itemType;
+        private final String elementName;
+        private final T header;
+        private boolean hasNext;
+
+        public JaxbItemReader(JaxbCache.Lease<Unmarshaller> unmarshaller, XMLStreamReader xml, InputStream input, Class<T> type, Class<I> itemType, ItemsProperty property) throws XMLStreamException, JAXBException, IOException {
+            this.unmarshaller = unmarshaller;
+            this.xml = xml;
+            this.input = input;
+            this.itemType = itemType;
+            this.elementName = property.getElementName();
+            this.header = readHeader(type, property.getWrapperName());
+        }
+
+        private T readHeader(Class<T> type, String wrapperName) throws XMLStreamException, JAXBException, IOException {
+            if (nextElement(xml) != START_ELEMENT) {
+                throw new IOException("Missing root element");
+            }
+            Document doc = newDocument();
+            Element root = copyStartElement(xml, doc);
+            doc.appendChild(root);
+            hasNext = false;
+            while (nextElement(xml) == START_ELEMENT) {
+                String localName = xml.getLocalName();
+                if (wrapperName != null && wrapperName.equals(localName)) {
+                    nextElement(xml);
+                    hasNext = seekItem();
+                    break;
+                }
+                if (wrapperName == null && elementName.equals(localName)) {
+                    hasNext = true;
+                    break;
+                }
+                copyElement(xml, doc, root);
+            }
+            return unmarshaller.get().unmarshal(doc, type).getValue();
+        }
+
+        private boolean seekItem() throws XMLStreamException {
+            int event = xml.getEventType();
+            if (event != START_ELEMENT && event != END_ELEMENT) {
+                event = nextElement(xml);
+            }
+            while (event == START_ELEMENT && !elementName.equals(xml.getLocalName())) {
+                skipElement(xml);
+                event = nextElement(xml);
+            }
+            return event == START_ELEMENT;
+        }
+
+        @Override
+        public T getHeader() {
+            return header;
+        }
+
+        @Override
+        public I read() throws IOException {
+            if (!hasNext) {
+                return null;
+            }
+            try {
+                I result = unmarshaller.get().unmarshal(xml, itemType).getValue();
+                hasNext = seekItem();
+                return result;
+            } catch (XMLStreamException | JAXBException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                xml.close();
+            } catch (XMLStreamException ex) {
+                throw new IOException(ex);
+            } finally {
+                try {
+                    input.close();
+                } finally {
+                    unmarshaller.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Marshals the header of the collection with a single placeholder item
+     * and writes the items as fragments in place of that placeholder.
+     */
+    private static final class JaxbItemWriter<T, I> implements ItemWriter<T, I> {
+
+        private static final String PLACEHOLDER = "<!--items-->";
+
+        private final JaxbCache.Lease<Marshaller> marshaller;
+        private final Writer writer;
+        private final Supplier<? extends T> header;
+        private final Class<I> itemType;
+        private final ItemsProperty property;
+        private final boolean formattedOutput;
+        private QName itemName;
+        private String suffix;
+
+        public JaxbItemWriter(JaxbCache.Lease<Marshaller> marshaller, Writer writer, Supplier<? extends T> header, Class<I> itemType, ItemsProperty property, boolean formattedOutput) {
+            this.marshaller = marshaller;
+            this.writer = writer;
+            this.header = header;
+            this.itemType = itemType;
+            this.property = property;
+            this.formattedOutput = formattedOutput;
+            this.itemName = null;
+            this.suffix = null;
+        }
+
+        private void writeHeader() throws IOException {
+            if (itemName != null) {
+                return;
+            }
+            try {
+                T value = header.get();
+                List<Object> items = property.getItems(value);
+                property.setItems(value, Collections.singletonList(itemType.newInstance()));
+                Document doc = newDocument();
+                try {
+                    marshaller.get().setProperty(Marshaller.JAXB_FRAGMENT, false);
+                    marshaller.get().marshal(value, new DOMResult(doc));
+                } finally {
+                    marshaller.get().setProperty(Marshaller.JAXB_FRAGMENT, true);
+                    property.setItems(value, items);
+                }
+                Element placeholder = findPlaceholder(doc.getDocumentElement());
+                itemName = new QName(nullToEmpty(placeholder.getNamespaceURI()), placeholder.getLocalName());
+                placeholder.getParentNode().replaceChild(doc.createComment(PLACEHOLDER.substring(4, PLACEHOLDER.length() - 3)), placeholder);
+                String text = toString(doc, formattedOutput);
+                int index = text.indexOf(PLACEHOLDER);
+                writer.write(text, 0, index);
+                suffix = text.substring(index + PLACEHOLDER.length());
+            } catch (InstantiationException | IllegalAccessException | JAXBException | TransformerException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        private Element findPlaceholder(Element root) throws IOException {
+            String wrapperName = property.getWrapperName();
+            Element parent = wrapperName != null ? findChild(root, wrapperName) : root;
+            Element result = parent != null ? findChild(parent, property.getElementName()) : null;
+            if (result == null) {
+                throw new IOException("Cannot locate items in '" + root.getLocalName() + "'");
+            }
+            return result;
+        }
+
+        @Override
+        public void write(I item) throws IOException {
+            writeHeader();
+            try {
+                marshaller.get().marshal(new JAXBElement<>(itemName, itemType, item), writer);
+            } catch (JAXBException ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writeHeader();
+            writer.write(suffix);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.close();
+            } finally {
+                marshaller.close();
+            }
+        }
+
+        private static String toString(Document doc, boolean formattedOutput) throws TransformerException {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.ENCODING, StandardCharsets.UTF_8.name());
+            transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
+            if (formattedOutput) {
+                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+                transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
+            }
+            StringWriter result = new StringWriter();
+            transformer.transform(new DOMSource(doc), new StreamResult(result));
+            return result.toString();
+        }
+    }
+
+    private static Document newDocument() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            return factory.newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static int nextElement(XMLStreamReader xml) throws XMLStreamException {
+        int event = xml.next();
+        while (event != START_ELEMENT && event != END_ELEMENT && event != END_DOCUMENT) {
+            event = xml.next();
+        }
+        return event;
+    }
+
+    private static void skipElement(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (xml.next()) {
+                case START_ELEMENT:
+                    depth++;
+                    break;
+                case END_ELEMENT:
+                    depth--;
+                    break;
+            }
+        }
+    }
+
+    private static Element copyStartElement(XMLStreamReader xml, Document doc) {
+        String prefix = xml.getPrefix();
+        String localName = xml.getLocalName();
+        Element result = doc.createElementNS(emptyToNull(xml.getNamespaceURI()), prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName);
+        for (int i = 0; i < xml.getNamespaceCount(); i++) {
+            String nsPrefix = xml.getNamespacePrefix(i);
+            result.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, nsPrefix == null || nsPrefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + nsPrefix, xml.getNamespaceURI(i));
+        }
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            String attPrefix = xml.getAttributePrefix(i);
+            String attName = xml.getAttributeLocalName(i);
+            result.setAttributeNS(emptyToNull(xml.getAttributeNamespace(i)), attPrefix == null || attPrefix.isEmpty() ? attName : attPrefix + ":" + attName, xml.getAttributeValue(i));
+        }
+        return result;
+    }
+
+    private static void copyElement(XMLStreamReader xml, Document doc, Node parent) throws XMLStreamException {
+        Element element = copyStartElement(xml, doc);
+        parent.appendChild(element);
+        while (true) {
+            switch (xml.next()) {
+                case START_ELEMENT:
+                    copyElement(xml, doc, element);
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                    element.appendChild(doc.createTextNode(xml.getText()));
+                    break;
+                case END_ELEMENT:
+                    return;
+            }
+        }
+    }
+
+    private static Element findChild(Element parent, String localName) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && localName.equals(node.getLocalName())) {
+                return (Element) node;
+            }
+        }
+        return null;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+    //</editor-fold>
+}
@@ -16,6 +16,9 @@
  */
 package be.nbb.cli.util.jaxb;
 
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemSerializerFactory;
+import be.nbb.cli.util.ItemsProperty;
 import be.nbb.cli.util.MediaType;
 import be.nbb.cli.util.Serializer;
 import be.nbb.cli.util.SerializerFactory;
@@ -23,18 +26,21 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
 
 /**
  *
  * @author Philippe Charles
  */
-@ServiceProvider(service = SerializerFactory.class)
-public final class XmlSerializerFactory implements SerializerFactory {
+@ServiceProviders({
+    @ServiceProvider(service = SerializerFactory.class),
+    @ServiceProvider(service = ItemSerializerFactory.class)
+})
+public final class XmlSerializerFactory implements SerializerFactory, ItemSerializerFactory {
 
     @Override
     public boolean canHandle(MediaType mediaType, Class<?> type) {
@@ -44,8 +50,20 @@ public final class XmlSerializerFactory implements SerializerFactory {
     @Override
     public <X> Serializer<X> create(Class<X> type, boolean formattedOutput) {
         try {
-            JAXBContext context = JAXBContext.newInstance(type);
-            return new JaxbSerializer(context, formattedOutput);
+            JaxbCache cache = JaxbCache.getDefault();
+            cache.getContext(type);
+            return new JaxbSerializer(cache, type, formattedOutput);
+        } catch (JAXBException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public <T, I> ItemSerializer<T, I> create(Class<T> type, Class<I> itemType, boolean formattedOutput) {
+        try {
+            JaxbCache cache = JaxbCache.getDefault();
+            cache.getContext(type);
+            return new JaxbItemSerializer<>(cache, type, itemType, ItemsProperty.of(type, itemType), formattedOutput);
         } catch (JAXBException ex) {
             throw new RuntimeException(ex);
         }
@@ -54,28 +72,28 @@ public final class XmlSerializerFactory implements SerializerFactory {
     //<editor-fold defaultstate="collapsed" desc="Implementation details">
     private static final class JaxbSerializer<X> implements Serializer<X> {
 
-        private final JAXBContext context;
+        private final JaxbCache cache;
+        private final Class<X> type;
         private final boolean formattedOutput;
 
-        public JaxbSerializer(JAXBContext context, boolean formattedOutput) {
-            this.context = context;
+        public JaxbSerializer(JaxbCache cache, Class<X> type, boolean formattedOutput) {
+            this.cache = cache;
+            this.type = type;
             this.formattedOutput = formattedOutput;
         }
 
-        private Marshaller getMarshaller() throws JAXBException {
-            Marshaller result = context.createMarshaller();
-            result.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formattedOutput);
-            return result;
+        private JaxbCache.Lease<Marshaller> getMarshaller() throws JAXBException {
+            return cache.getMarshaller(type, formattedOutput, false);
         }
 
-        private Unmarshaller getUnmarshaller() throws JAXBException {
-            return context.createUnmarshaller();
+        private JaxbCache.Lease<Unmarshaller> getUnmarshaller() throws JAXBException {
+            return cache.getUnmarshaller(type);
         }
 
         @Override
         public void serialize(X value, File output) throws IOException {
-            try {
-                getMarshaller().marshal(value, output);
+            try (JaxbCache.Lease<Marshaller> marshaller = getMarshaller()) {
+                marshaller.get().marshal(value, output);
             } catch (JAXBException ex) {
                 throw new IOException(ex);
             }
@@ -83,8 +101,8 @@ public final class XmlSerializerFactory implements SerializerFactory {
 
         @Override
         public void serialize(X value, OutputStream output) throws IOException {
-            try {
-                getMarshaller().marshal(value, output);
+            try (JaxbCache.Lease<Marshaller> marshaller = getMarshaller()) {
+                marshaller.get().marshal(value, output);
             } catch (JAXBException ex) {
                 throw new IOException(ex);
             }
@@ -92,8 +110,8 @@ public final class XmlSerializerFactory implements SerializerFactory {
 
         @Override
         public X deserialize(File input) throws IOException {
-            try {
-                return (X) getUnmarshaller().unmarshal(input);
+            try (JaxbCache.Lease<Unmarshaller> unmarshaller = getUnmarshaller()) {
+                return (X) unmarshaller.get().unmarshal(input);
             } catch (JAXBException ex) {
                 throw new IOException(ex);
             }
@@ -101,8 +119,8 @@ public final class XmlSerializerFactory implements SerializerFactory {
 
         @Override
         public X deserialize(InputStream input) throws IOException {
-            try {
-                return (X) getUnmarshaller().unmarshal(input);
+            try (JaxbCache.Lease<Unmarshaller> unmarshaller = getUnmarshaller()) {
+                return (X) unmarshaller.get().unmarshal(input);
             } catch (JAXBException ex) {
                 throw new IOException(ex);
             }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command;
+
+import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.OutputOptions;
+import be.nbb.cli.util.StdioPipe;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.xml.bind.annotation.XmlRootElement;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class PipeCommandTest {
+
+    @XmlRootElement
+    public static class Foo {
+
+        public String text;
+    }
+
+    private static final InputOptions STDIN = InputOptions.create(Optional.empty(), Optional.empty());
+    private static final OutputOptions STDOUT = OutputOptions.create(Optional.empty(), Optional.empty(), false);
+
+    private final List<Foo> instances = new ArrayList<>();
+
+    // writes its args as a value
+    private final Command create = args -> {
+        Foo result = new Foo();
+        result.text = String.join(" ", args);
+        instances.add(result);
+        return write(result);
+    };
+
+    // appends its args to the value it reads
+    private final Command append = args -> {
+        try {
+            Foo result = STDIN.read(Foo.class);
+            result.text += String.join(" ", args);
+            instances.add(result);
+            return write(result);
+        } catch (IOException ex) {
+            return -1;
+        }
+    };
+
+    // streams its input as is
+    private final Command copy = args -> {
+        try {
+            StdioPipe pipe = StdioPipe.getInput().get();
+            byte[] bytes = new byte[1024];
+            int n = pipe.openInput().read(bytes);
+            try (OutputStream stream = StdioPipe.getOutput().get().openOutput()) {
+                stream.write(bytes, 0, n);
+            }
+            return 0;
+        } catch (IOException ex) {
+            return -1;
+        }
+    };
+
+    private final Command fail = args -> 2;
+
+    private Optional<Command> getCommand(String name) {
+        switch (name) {
+            case "create":
+                return Optional.of(create);
+            case "append":
+                return Optional.of(append);
+            case "copy":
+                return Optional.of(copy);
+            case "fail":
+                return Optional.of(fail);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static int write(Foo value) {
+        try {
+            STDOUT.write(Foo.class, value);
+            return 0;
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        assertThat(PipeCommand.split(new String[]{"a", "b", "!", "c"})).containsExactly(new String[]{"a", "b"}, new String[]{"c"});
+        assertThat(PipeCommand.split(new String[]{"a", "!"})).containsExactly(new String[]{"a"}, new String[0]);
+    }
+
+    @Test
+    public void testExec() throws IOException {
+        PipeCommand pipe = new PipeCommand(this::getCommand);
+
+        // values are handed over as is
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        PrintStream previous = System.out;
+        System.setOut(new PrintStream(stdout, true, "UTF-8"));
+        try {
+            assertThat(pipe.exec(new String[]{"create", "hello", "!", "append", "world"})).isEqualTo(0);
+        } finally {
+            System.setOut(previous);
+        }
+        assertThat(instances).hasSize(2).allMatch(o -> o == instances.get(0));
+        assertThat(instances.get(0).text).isEqualTo("helloworld");
+        assertThat(new String(stdout.toByteArray(), StandardCharsets.UTF_8)).contains("<text>helloworld</text>");
+
+        // values are serialized for streams
+        instances.clear();
+        System.setOut(new PrintStream(stdout = new ByteArrayOutputStream(), true, "UTF-8"));
+        try {
+            assertThat(pipe.exec(new String[]{"create", "hello", "!", "copy", "!", "append", "!"})).isEqualTo(-1);
+            assertThat(pipe.exec(new String[]{"create", "hello", "!", "copy", "!", "append", "world"})).isEqualTo(0);
+        } finally {
+            System.setOut(previous);
+        }
+        assertThat(instances).hasSize(2);
+        assertThat(instances.get(1)).isNotSameAs(instances.get(0));
+        assertThat(instances.get(1).text).isEqualTo("helloworld");
+
+        assertThat(pipe.exec(new String[]{"create", "!", "fail", "!", "append"})).isEqualTo(2);
+        assertThat(pipe.exec(new String[]{"create", "!", "unknown"})).isEqualTo(-1);
+        assertThat(StdioPipe.getInput()).isEmpty();
+        assertThat(StdioPipe.getOutput()).isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command.core;
+
+import be.nbb.cli.util.StandardOptions;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class OptionsParsingCommandTest {
+
+    @Test
+    public void testMetricsRunOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        OptionsParsingCommand<StandardOptions> command = OptionsParsingCommand.of(Parser::new, () -> o -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+        }, o -> o);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> command.exec(new String[]{"metrics"}), executor));
+            }
+            for (CompletableFuture<Integer> o : results) {
+                assertThat(o.get()).isEqualTo(0);
+            }
+            assertThat(maxRunning.get()).isEqualTo(1);
+
+            // commands without metrics still run concurrently
+            maxRunning.set(0);
+            results.clear();
+            for (int i = 0; i < 4; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> command.exec(new String[0]), executor));
+            }
+            for (CompletableFuture<Integer> o : results) {
+                assertThat(o.get()).isEqualTo(0);
+            }
+            assertThat(maxRunning.get()).isGreaterThan(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static final class Parser implements OptionsParser<StandardOptions> {
+
+        @Override
+        public StandardOptions parse(String[] args) {
+            return new StandardOptions(false, false, false, args.length > 0, null);
+        }
+
+        @Override
+        public void printHelp(PrintStream stream) {
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command.daemon;
+
+import be.nbb.cli.command.Command;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class CommandDaemonTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    // echoes stdin to stdout in upper case and the args to stderr
+    private static final Command UPPER = args -> {
+        try {
+            ByteArrayOutputStream input = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = System.in.read(buffer)) != -1) {
+                input.write(buffer, 0, n);
+            }
+            System.out.print(new String(input.toByteArray(), StandardCharsets.UTF_8).toUpperCase());
+            System.err.print(String.join(",", args));
+            return args.length;
+        } catch (IOException ex) {
+            return -1;
+        }
+    };
+
+    @Test
+    public void testExec() throws Exception {
+        // fewer commands at once than clients
+        try (CommandDaemon daemon = CommandDaemon.open(UPPER, 0, getTokenFile(), 3)) {
+            start(daemon);
+            CommandDaemonClient client = new CommandDaemonClient(daemon.getPort(), daemon.getTokenFile());
+
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String text = IntStream.range(0, 10000).mapToObj(j -> "hello").collect(Collectors.joining(" ")) + i;
+                String[] args = {"a", "b" + i};
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+                    ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+                    try {
+                        int status = client.exec(args, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), stdout, stderr);
+                        return status + "|" + stderr.toString("UTF-8") + "|" + stdout.toString("UTF-8");
+                    } catch (IOException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                String expected = IntStream.range(0, 10000).mapToObj(j -> "HELLO").collect(Collectors.joining(" ")) + i;
+                assertThat(results.get(i).get()).isEqualTo("2|a,b" + i + "|" + expected);
+            }
+        }
+    }
+
+    @Test
+    public void testWorkerThreads() throws Exception {
+        Command command = args -> {
+            Thread thread = new Thread(() -> {
+                System.out.print("out");
+                System.err.print("err");
+            });
+            thread.start();
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                thread.join();
+                pool.submit(() -> System.out.print("-pool")).join();
+            } catch (InterruptedException ex) {
+                return -1;
+            } finally {
+                pool.shutdown();
+            }
+            return 0;
+        };
+        try (CommandDaemon daemon = CommandDaemon.open(command, 0, getTokenFile())) {
+            start(daemon);
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            int status = new CommandDaemonClient(daemon.getPort(), daemon.getTokenFile()).exec(new String[0], new ByteArrayInputStream(new byte[0]), stdout, stderr);
+            assertThat(status).isEqualTo(0);
+            assertThat(stdout.toString("UTF-8")).isEqualTo("out-pool");
+            assertThat(stderr.toString("UTF-8")).isEqualTo("err");
+        }
+    }
+
+    @Test
+    public void testEmptyStdin() throws Exception {
+        try (CommandDaemon daemon = CommandDaemon.open(UPPER, 0, getTokenFile())) {
+            start(daemon);
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            int status = new CommandDaemonClient(daemon.getPort(), daemon.getTokenFile()).exec(new String[0], new ByteArrayInputStream(new byte[0]), stdout, stderr);
+            assertThat(status).isEqualTo(0);
+            assertThat(stdout.size()).isEqualTo(0);
+            assertThat(stderr.size()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testToken() throws Exception {
+        Path tokenFile = getTokenFile();
+        try (CommandDaemon daemon = CommandDaemon.open(UPPER, 0, tokenFile)) {
+            start(daemon);
+            assertThat(tokenFile).exists();
+            if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile))).isEqualTo("rw-------");
+            }
+
+            Path forged = temp.newFile("forged.token").toPath();
+            Files.write(forged, "0123456789".getBytes(StandardCharsets.UTF_8));
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+            int status = new CommandDaemonClient(daemon.getPort(), forged).exec(new String[]{"a"}, new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), stdout, stderr);
+            assertThat(status).isEqualTo(-1);
+            assertThat(stdout.size()).isEqualTo(0);
+            assertThat(stderr.toString("UTF-8")).contains("Invalid token");
+        }
+        assertThat(tokenFile).doesNotExist();
+    }
+
+    private Path getTokenFile() {
+        return temp.getRoot().toPath().resolve("daemon").resolve("daemon.token");
+    }
+
+    private static void start(CommandDaemon daemon) {
+        Thread thread = new Thread(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
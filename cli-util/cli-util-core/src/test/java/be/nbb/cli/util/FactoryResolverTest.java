@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.AbstractLookup;
+import org.openide.util.lookup.InstanceContent;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class FactoryResolverTest {
+
+    @lombok.AllArgsConstructor
+    static final class MockFactory implements SerializerFactory {
+
+        final MediaType mediaType;
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public boolean canHandle(MediaType mediaType, Class<?> type) {
+            calls.incrementAndGet();
+            return String.class.equals(type) && this.mediaType.isCompatible(mediaType);
+        }
+
+        @Override
+        public <X> Serializer<X> create(Class<X> type, boolean formattedOutput) {
+            return new Serializer<X>() {
+                @Override
+                public void serialize(X value, OutputStream output) {
+                }
+
+                @Override
+                public X deserialize(InputStream input) {
+                    return null;
+                }
+            };
+        }
+    }
+
+    @Test
+    public void testResolve() {
+        InstanceContent content = new InstanceContent();
+        AtomicReference<Lookup> lookup = new AtomicReference<>(new AbstractLookup(content));
+        FactoryResolver<SerializerFactory> resolver = new FactoryResolver<>(SerializerFactory.class, SerializerFactory::canHandle, lookup::get);
+
+        MockFactory xml = new MockFactory(MediaType.XML_UTF_8);
+        content.add(xml);
+
+        assertThat(resolver.resolve(MediaType.XML_UTF_8, String.class)).containsSame(xml);
+        assertThat(resolver.resolve(MediaType.parse("text/xml; charset=utf-8"), String.class)).containsSame(xml);
+        assertThat(resolver.resolve(MediaType.JSON_UTF_8, String.class)).isEmpty();
+        assertThat(resolver.resolve(MediaType.JSON_UTF_8, String.class)).isEmpty();
+        assertThat(xml.calls).hasValue(2);
+
+        MockFactory json = new MockFactory(MediaType.JSON_UTF_8);
+        content.add(json);
+
+        assertThat(resolver.resolve(MediaType.JSON_UTF_8, String.class)).containsSame(json);
+        assertThat(resolver.resolve(MediaType.XML_UTF_8, String.class)).containsSame(xml);
+        assertThat(xml.calls).hasValue(4);
+
+        lookup.set(Lookup.EMPTY);
+        assertThat(resolver.resolve(MediaType.XML_UTF_8, String.class)).isEmpty();
+    }
+}
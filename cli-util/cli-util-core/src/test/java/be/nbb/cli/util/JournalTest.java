@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        Path file = new File(folder.getRoot(), "test.journal").toPath();
+
+        try (Journal journal = Journal.open(file, "v1")) {
+            assertThat(journal.size()).isEqualTo(0);
+            journal.append("a", bytes("hello"));
+            journal.append("b", bytes(""));
+            journal.append("a", bytes("world"));
+            assertThat(journal.get("a")).isEqualTo(bytes("world"));
+            assertThat(journal.get("c")).isNull();
+            assertThat(journal.contains("b")).isTrue();
+            assertThat(journal.contains("c")).isFalse();
+        }
+
+        try (Journal journal = Journal.open(file, "v1")) {
+            assertThat(journal.size()).isEqualTo(2);
+            assertThat(journal.contains("a")).isTrue();
+            assertThat(journal.get("a")).isEqualTo(bytes("world"));
+            assertThat(journal.get("b")).isEmpty();
+        }
+
+        try (Journal journal = Journal.open(file, "v2")) {
+            assertThat(journal.size()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testPartialRecord() throws Exception {
+        Path file = new File(folder.getRoot(), "test.journal").toPath();
+
+        try (Journal journal = Journal.open(file, "v1")) {
+            journal.append("a", bytes("hello"));
+            journal.append("b", bytes("world"));
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+
+        try (Journal journal = Journal.open(file, "v1")) {
+            assertThat(journal.size()).isEqualTo(1);
+            assertThat(journal.get("b")).isNull();
+            journal.append("b", bytes("again"));
+        }
+
+        try (Journal journal = Journal.open(file, "v1")) {
+            assertThat(journal.size()).isEqualTo(2);
+            assertThat(journal.get("a")).isEqualTo(bytes("hello"));
+            assertThat(journal.get("b")).isEqualTo(bytes("again"));
+        }
+    }
+}
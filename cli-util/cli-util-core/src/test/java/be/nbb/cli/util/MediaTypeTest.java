@@ -58,6 +58,15 @@ public class MediaTypeTest {
         });
     }
 
+    @Test
+    public void testEquals() {
+        assertThat(MediaType.parse("text/plain; charset=utf-8").hashCode()).isEqualTo(MediaType.PLAIN_TEXT_UTF_8.hashCode());
+        assertThat(MediaType.parse("text/plain; charset=utf-8"))
+                .isEqualTo(MediaType.PLAIN_TEXT_UTF_8)
+                .isNotEqualTo(MediaType.PLAIN_TEXT_UTF_8.withoutParameters())
+                .isNotEqualTo(MediaType.HTML_UTF_8);
+    }
+
     @Test
     public void testWithoutParameters() {
         assertThat(MediaType.SVG_UTF_8.withoutParameters()).hasToString("image/svg+xml");
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import be.nbb.cli.util.Metrics.Phase;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class MetricsTest {
+
+    @Test
+    public void testCurrent() {
+        assertThat(Metrics.current()).isSameAs(Metrics.disabled());
+
+        Metrics metrics = Metrics.enabled();
+        Metrics previous = Metrics.setCurrent(metrics);
+        try {
+            assertThat(previous).isSameAs(Metrics.disabled());
+            assertThat(Metrics.current()).isSameAs(metrics);
+        } finally {
+            Metrics.setCurrent(previous);
+        }
+        assertThat(Metrics.current()).isSameAs(Metrics.disabled());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        Function<String, Integer> length = String::length;
+        assertThat(Metrics.disabled().perSeries(length, o -> o)).isSameAs(length);
+        assertThat(Metrics.disabled().time(Phase.PROCESSING, () -> "hello")).isEqualTo("hello");
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        AtomicLong ticker = new AtomicLong();
+        Metrics metrics = Metrics.enabled(ticker::get);
+        Function<Integer, Integer> advance = o -> {
+            ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(o));
+            return o;
+        };
+
+        List<Integer> output = metrics.time(Phase.PROCESSING, () -> Arrays.asList(10, 40, 5, 20).stream()
+                .map(metrics.perSeries(advance, o -> "ts" + o))
+                .collect(Collectors.toList()));
+        assertThat(output).containsExactly(10, 40, 5, 20);
+        ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(25));
+
+        Metrics.Report report = metrics.getReport();
+        assertThat(report.getElapsedMillis()).isEqualTo(100);
+        assertThat(report.getPhaseMillis()).containsExactly(entry("deserialization", 0L), entry("processing", 75L), entry("serialization", 0L));
+        assertThat(report.getSeriesCount()).isEqualTo(4);
+        assertThat(report.getSeriesPerSecond()).isEqualTo(40);
+        assertThat(report.getP50Millis()).isEqualTo(10);
+        assertThat(report.getP95Millis()).isEqualTo(40);
+        assertThat(report.getMaxMillis()).isEqualTo(40);
+        assertThat(report.getSlowest()).extracting(Metrics.SlowSeries::getName).containsExactly("ts40", "ts20", "ts10", "ts5");
+        assertThat(report.getPeakHeapBytes()).isPositive();
+        assertThat(report.toString()).contains("Series: 4");
+    }
+}
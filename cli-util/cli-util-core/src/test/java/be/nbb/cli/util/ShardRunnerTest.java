@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class ShardRunnerTest {
+
+    static final List<Integer> INPUT = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+
+    static List<Integer> twice(List<Integer> shard) {
+        return shard.stream().map(o -> o * 2).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSplit() {
+        assertThat(ShardRunner.split(INPUT, 3)).extracting(List::size).containsExactly(3, 3, 4);
+        assertThat(ShardRunner.split(INPUT, 20)).hasSize(10);
+        assertThat(ShardRunner.split(Arrays.asList(), 3)).containsExactly(Arrays.asList());
+    }
+
+    @Test
+    public void testMap() throws IOException {
+        assertThat(new ShardRunner(4, 1).map(INPUT, ShardRunnerTest::twice))
+                .isEqualTo(twice(INPUT));
+        assertThat(new ShardRunner(4, 1).map(Arrays.<Integer>asList(), ShardRunnerTest::twice))
+                .isEmpty();
+    }
+
+    @Test
+    public void testRetry() throws IOException {
+        AtomicInteger crashes = new AtomicInteger();
+        ShardRunner.Function<Integer, Integer> flaky = o -> {
+            if (o.contains(0) && crashes.getAndIncrement() == 0) {
+                throw new IOException("crash");
+            }
+            return twice(o);
+        };
+        assertThat(new ShardRunner(3, 2).map(INPUT, flaky)).isEqualTo(twice(INPUT));
+        assertThat(crashes.get()).isEqualTo(2);
+
+        assertThatThrownBy(() -> new ShardRunner(3, 2).map(INPUT, o -> o.contains(0) ? o.subList(1, o.size()) : twice(o)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Shard 0");
+    }
+}
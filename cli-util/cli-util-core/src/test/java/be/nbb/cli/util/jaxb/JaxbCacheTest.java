@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util.jaxb;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class JaxbCacheTest {
+
+    @XmlRootElement
+    public static class Foo {
+
+        public String name;
+    }
+
+    @XmlRootElement
+    public static class Bar {
+
+        public String name;
+    }
+
+    @Test
+    public void testContexts() throws Exception {
+        JaxbCache cache = new JaxbCache(1, 2);
+
+        JAXBContext first = cache.getContext(Foo.class);
+        assertThat(cache.getContext(Foo.class)).isSameAs(first);
+        assertThat(cache.getStats()).isEqualTo(new JaxbCache.Stats(1, 1, 0, 0));
+
+        cache.getContext(Bar.class);
+        assertThat(cache.getContext(Foo.class)).isNotSameAs(first);
+        assertThat(cache.getStats()).isEqualTo(new JaxbCache.Stats(1, 3, 0, 0));
+    }
+
+    @Test
+    public void testPools() throws Exception {
+        JaxbCache cache = new JaxbCache(1, 2);
+
+        Marshaller marshaller;
+        try (JaxbCache.Lease<Marshaller> lease = cache.getMarshaller(Foo.class, true, false)) {
+            marshaller = lease.get();
+            assertThat(marshaller.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT)).isEqualTo(true);
+        }
+        try (JaxbCache.Lease<Marshaller> lease = cache.getMarshaller(Foo.class, false, true)) {
+            assertThat(lease.get()).isSameAs(marshaller);
+            assertThat(marshaller.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT)).isEqualTo(false);
+            assertThat(marshaller.getProperty(Marshaller.JAXB_FRAGMENT)).isEqualTo(true);
+            try (JaxbCache.Lease<Marshaller> other = cache.getMarshaller(Foo.class, false, false)) {
+                assertThat(other.get()).isNotSameAs(marshaller);
+            }
+        }
+
+        try (JaxbCache.Lease<Unmarshaller> first = cache.getUnmarshaller(Foo.class);
+                JaxbCache.Lease<Unmarshaller> second = cache.getUnmarshaller(Foo.class)) {
+            assertThat(first.get()).isNotSameAs(second.get());
+        }
+
+        assertThat(cache.getStats().getPoolHits()).isEqualTo(1);
+        assertThat(cache.getStats().getPoolMisses()).isEqualTo(4);
+    }
+}
@@ -36,6 +36,9 @@ public final class JacksonFileTypeDetector extends FileTypeDetector {
                 return "text/xml";
             case "json":
                 return "application/json";
+            case "ndjson":
+            case "jsonl":
+                return "application/x-ndjson";
             case "yaml":
             case "yml":
                 return "application/yaml";
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util.jackson;
+
+import be.nbb.cli.util.ItemReader;
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemWriter;
+import be.nbb.cli.util.ItemsProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Streams the items of a collection with the Jackson streaming API.
+ *
+ * @author Philippe Charles
+ */
+final class JacksonItemSerializer<T, I> implements ItemSerializer<T, I> {
+
+    private final ObjectMapper mapper;
+    private final Class<T> type;
+    private final Class<I> itemType;
+    private final ItemsProperty property;
+    private final boolean formattedOutput;
+
+    public JacksonItemSerializer(ObjectMapper mapper, Class<T> type, Class<I> itemType, boolean formattedOutput) {
+        this.mapper = mapper;
+        this.type = type;
+        this.itemType = itemType;
+        this.property = ItemsProperty.of(type, itemType);
+        this.formattedOutput = formattedOutput;
+    }
+
+    @Override
+    public ItemReader<T, I> openReader(InputStream input) throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(input);
+        try {
+            return new JacksonItemReader<>(mapper, parser, type, mapper.readerFor(itemType), property.getNames());
+        } catch (IOException | RuntimeException ex) {
+            parser.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public ItemWriter<T, I> openWriter(OutputStream output, Supplier<? extends T> header) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(output);
+        // an unfinished document must stay unterminated
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        if (formattedOutput) {
+            generator.useDefaultPrettyPrinter();
+        }
+        return new JacksonItemWriter<>(mapper, generator, header, mapper.writerFor(itemType).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE), property);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    /**
+     * Collects the fields that precede the items into a tree and then reads
+     * the items one by one. The fields that follow the items are collected
+     * once the items have been consumed.
+     */
+    private static final class JacksonItemReader<T, I> implements ItemReader<T, I> {
+
+        private final ObjectMapper mapper;
+        private final JsonParser parser;
+        private final Class<T> type;
+        private final ObjectReader itemReader;
+        private final Set<String> names;
+        private final ObjectNode header;
+        private boolean inItems;
+
+        public JacksonItemReader(ObjectMapper mapper, JsonParser parser, Class<T> type, ObjectReader itemReader, Set<String> names) throws IOException {
+            this.mapper = mapper;
+            this.parser = parser;
+            this.type = type;
+            this.itemReader = itemReader;
+            this.names = names;
+            this.header = mapper.createObjectNode();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected an object at " + parser.getCurrentLocation());
+            }
+            this.inItems = seekItems();
+        }
+
+        private boolean seekItems() throws IOException {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY && names.contains(name)) {
+                    return true;
+                }
+                JsonNode node = mapper.readTree(parser);
+                header.set(name, node != null ? node : NullNode.getInstance());
+            }
+            return false;
+        }
+
+        @Override
+        public T getHeader() {
+            return mapper.convertValue(header, type);
+        }
+
+        @Override
+        public I read() throws IOException {
+            while (inItems) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY) {
+                    inItems = seekItems();
+                } else if (token != JsonToken.VALUE_NULL) {
+                    return itemReader.readValue(parser);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    /**
+     * Writes the fields of the header first and then the items one by one.
+     */
+    private static final class JacksonItemWriter<T, I> implements ItemWriter<T, I> {
+
+        private final ObjectMapper mapper;
+        private final JsonGenerator generator;
+        private final Supplier<? extends T> header;
+        private final ObjectWriter itemWriter;
+        private final ItemsProperty property;
+        private boolean started;
+
+        public JacksonItemWriter(ObjectMapper mapper, JsonGenerator generator, Supplier<? extends T> header, ObjectWriter itemWriter, ItemsProperty property) {
+            this.mapper = mapper;
+            this.generator = generator;
+            this.header = header;
+            this.itemWriter = itemWriter;
+            this.property = property;
+            this.started = false;
+        }
+
+        private void writeHeader() throws IOException {
+            if (started) {
+                return;
+            }
+            started = true;
+            T value = header.get();
+            List<Object> items = property.getItems(value);
+            property.setItems(value, Collections.emptyList());
+            ObjectNode node;
+            try {
+                node = mapper.valueToTree(value);
+            } finally {
+                property.setItems(value, items);
+            }
+            String itemsName = getItemsName(node);
+            node.remove(itemsName);
+            generator.writeStartObject();
+            for (Iterator<Map.Entry<String, JsonNode>> iter = node.fields(); iter.hasNext();) {
+                Map.Entry<String, JsonNode> field = iter.next();
+                generator.writeFieldName(field.getKey());
+                mapper.writeTree(generator, field.getValue());
+            }
+            generator.writeArrayFieldStart(itemsName);
+        }
+
+        private String getItemsName(ObjectNode node) {
+            return property.getNames().stream()
+                    .filter(o -> node.has(o) && node.get(o).isArray())
+                    .findFirst()
+                    .orElse(property.getElementName());
+        }
+
+        @Override
+        public void write(I item) throws IOException {
+            writeHeader();
+            itemWriter.writeValue(generator, item);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writeHeader();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+    //</editor-fold>
+}
@@ -16,6 +16,8 @@
  */
 package be.nbb.cli.util.jackson;
 
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemSerializerFactory;
 import be.nbb.cli.util.MediaType;
 import be.nbb.cli.util.Serializer;
 import be.nbb.cli.util.SerializerFactory;
@@ -24,13 +26,17 @@ import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
 import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
 
 /**
  *
  * @author Philippe Charles
  */
-@ServiceProvider(service = SerializerFactory.class)
-public final class JsonSerializerFactory implements SerializerFactory {
+@ServiceProviders({
+    @ServiceProvider(service = SerializerFactory.class),
+    @ServiceProvider(service = ItemSerializerFactory.class)
+})
+public final class JsonSerializerFactory implements SerializerFactory, ItemSerializerFactory {
 
     private final boolean available = JacksonModule.jackson_core.isAvailable()
             && JacksonModule.jackson_databind.isAvailable()
@@ -47,6 +53,11 @@ public final class JsonSerializerFactory implements SerializerFactory {
         return new JacksonSerializer(Holder.newMapper(), type, formattedOutput);
     }
 
+    @Override
+    public <T, I> ItemSerializer<T, I> create(Class<T> type, Class<I> itemType, boolean formattedOutput) {
+        return new JacksonItemSerializer<>(Holder.newMapper(), type, itemType, formattedOutput);
+    }
+
     // prevents ClassNotFoundException
     private static final class Holder {
 
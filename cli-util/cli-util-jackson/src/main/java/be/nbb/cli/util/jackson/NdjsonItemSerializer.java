@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util.jackson;
+
+import be.nbb.cli.util.ItemReader;
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemWriter;
+import be.nbb.cli.util.ItemsProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Streams the items of a collection as newline-delimited JSON. The writer
+ * flushes every line so that the next command of a pipe can start on the
+ * first items while the following ones are still being produced.
+ *
+ * @author Philippe Charles
+ */
+final class NdjsonItemSerializer<T, I> implements ItemSerializer<T, I> {
+
+    private final ObjectMapper mapper;
+    private final Class<T> type;
+    private final Class<I> itemType;
+    private final ItemsProperty property;
+
+    public NdjsonItemSerializer(ObjectMapper mapper, Class<T> type, Class<I> itemType) {
+        this.mapper = mapper;
+        this.type = type;
+        this.itemType = itemType;
+        this.property = ItemsProperty.of(type, itemType);
+    }
+
+    @Override
+    public ItemReader<T, I> openReader(InputStream input) throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(input);
+        try {
+            T header = readHeader(mapper, parser, type);
+            return new NdjsonItemReader<>(parser, header, mapper.readerFor(itemType));
+        } catch (IOException | RuntimeException ex) {
+            parser.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public ItemWriter<T, I> openWriter(OutputStream output, Supplier<? extends T> header) throws IOException {
+        return new NdjsonItemWriter<>(mapper, newGenerator(mapper, output), header, property, mapper.writerFor(itemType));
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    static JsonGenerator newGenerator(ObjectMapper mapper, OutputStream output) throws IOException {
+        JsonGenerator result = mapper.getFactory().createGenerator(output);
+        // lines are separated explicitly
+        result.setRootValueSeparator(null);
+        return result;
+    }
+
+    static <T> T readHeader(ObjectMapper mapper, JsonParser parser, Class<T> type) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected an object at " + parser.getCurrentLocation());
+        }
+        return mapper.readValue(parser, type);
+    }
+
+    static void writeHeader(ObjectMapper mapper, JsonGenerator generator, Object value, ItemsProperty property) throws IOException {
+        List<Object> items = property.getItems(value);
+        property.setItems(value, Collections.emptyList());
+        ObjectNode node;
+        try {
+            node = mapper.valueToTree(value);
+        } finally {
+            property.setItems(value, items);
+        }
+        node.remove(property.getNames());
+        mapper.writeTree(generator, node);
+        generator.writeRaw('\n');
+    }
+
+    static void writeLine(ObjectWriter writer, JsonGenerator generator, Object value) throws IOException {
+        writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+
+    private static final class NdjsonItemReader<T, I> implements ItemReader<T, I> {
+
+        private final JsonParser parser;
+        private final T header;
+        private final ObjectReader itemReader;
+
+        public NdjsonItemReader(JsonParser parser, T header, ObjectReader itemReader) {
+            this.parser = parser;
+            this.header = header;
+            this.itemReader = itemReader;
+        }
+
+        @Override
+        public T getHeader() {
+            return header;
+        }
+
+        @Override
+        public I read() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.VALUE_NULL) {
+                    return itemReader.readValue(parser);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static final class NdjsonItemWriter<T, I> implements ItemWriter<T, I> {
+
+        private final ObjectMapper mapper;
+        private final JsonGenerator generator;
+        private final Supplier<? extends T> header;
+        private final ItemsProperty property;
+        private final ObjectWriter itemWriter;
+        private boolean started;
+
+        public NdjsonItemWriter(ObjectMapper mapper, JsonGenerator generator, Supplier<? extends T> header, ItemsProperty property, ObjectWriter itemWriter) {
+            this.mapper = mapper;
+            this.generator = generator;
+            this.header = header;
+            this.property = property;
+            this.itemWriter = itemWriter;
+            this.started = false;
+        }
+
+        private void writeHeader() throws IOException {
+            if (!started) {
+                started = true;
+                NdjsonItemSerializer.writeHeader(mapper, generator, header.get(), property);
+            }
+        }
+
+        @Override
+        public void write(I item) throws IOException {
+            writeHeader();
+            writeLine(itemWriter, generator, item);
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writeHeader();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+    //</editor-fold>
+}
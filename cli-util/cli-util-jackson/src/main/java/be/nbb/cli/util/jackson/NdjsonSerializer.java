@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util.jackson;
+
+import be.nbb.cli.util.ItemsProperty;
+import be.nbb.cli.util.Serializer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes a whole collection in the same layout as {@link NdjsonItemSerializer}
+ * so that both can read each other's output. Values without items are written
+ * on a single line.
+ *
+ * @author Philippe Charles
+ */
+final class NdjsonSerializer<X> implements Serializer<X> {
+
+    private final ObjectMapper mapper;
+    private final Class<X> type;
+    private final Optional<ItemsProperty> property;
+
+    public NdjsonSerializer(ObjectMapper mapper, Class<X> type) {
+        this.mapper = mapper;
+        this.type = type;
+        this.property = ItemsProperty.find(type);
+    }
+
+    @Override
+    public void serialize(X value, OutputStream output) throws IOException {
+        try (JsonGenerator generator = NdjsonItemSerializer.newGenerator(mapper, output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (property.isPresent()) {
+                NdjsonItemSerializer.writeHeader(mapper, generator, value, property.get());
+                ObjectWriter itemWriter = mapper.writerFor(property.get().getItemType());
+                for (Object item : property.get().getItems(value)) {
+                    NdjsonItemSerializer.writeLine(itemWriter, generator, item);
+                }
+            } else {
+                NdjsonItemSerializer.writeLine(mapper.writerFor(type), generator, value);
+            }
+        }
+    }
+
+    @Override
+    public X deserialize(InputStream input) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(input)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            X result = NdjsonItemSerializer.readHeader(mapper, parser, type);
+            if (property.isPresent()) {
+                ObjectReader itemReader = mapper.readerFor(property.get().getItemType());
+                List<Object> items = new ArrayList<>();
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token != JsonToken.VALUE_NULL) {
+                        items.add(itemReader.readValue(parser));
+                    }
+                }
+                property.get().setItems(result, items);
+            }
+            return result;
+        }
+    }
+}
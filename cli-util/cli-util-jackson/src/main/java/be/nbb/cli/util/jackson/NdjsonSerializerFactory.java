@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.util.jackson;
+
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemSerializerFactory;
+import be.nbb.cli.util.MediaType;
+import be.nbb.cli.util.Serializer;
+import be.nbb.cli.util.SerializerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
+
+/**
+ * Newline-delimited JSON: the collection without its items on the first line
+ * and then one item per line. Formatted output is ignored since a value must
+ * fit on a single line.
+ *
+ * @author Philippe Charles
+ */
+@ServiceProviders({
+    @ServiceProvider(service = SerializerFactory.class),
+    @ServiceProvider(service = ItemSerializerFactory.class)
+})
+public final class NdjsonSerializerFactory implements SerializerFactory, ItemSerializerFactory {
+
+    private final boolean available = JacksonModule.jackson_core.isAvailable()
+            && JacksonModule.jackson_databind.isAvailable()
+            && JacksonModule.jackson_datatype_jdk8.isAvailable()
+            && JacksonModule.jackson_module_jaxb_annotations.isAvailable();
+
+    @Override
+    public boolean canHandle(MediaType mediaType, Class<?> type) {
+        return available && MediaType.NDJSON_UTF_8.isCompatible(mediaType);
+    }
+
+    @Override
+    public <X> Serializer<X> create(Class<X> type, boolean formattedOutput) {
+        return new NdjsonSerializer<>(Holder.newMapper(), type);
+    }
+
+    @Override
+    public <T, I> ItemSerializer<T, I> create(Class<T> type, Class<I> itemType, boolean formattedOutput) {
+        return new NdjsonItemSerializer<>(Holder.newMapper(), type, itemType);
+    }
+
+    // prevents ClassNotFoundException
+    private static final class Holder {
+
+        private static ObjectMapper newMapper() {
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.registerModule(new Jdk8Module());
+            mapper.setAnnotationIntrospector(new JaxbAnnotationIntrospector(TypeFactory.defaultInstance()));
+            return mapper;
+        }
+    }
+}
@@ -52,6 +52,24 @@ public interface ComposedOptionSpec<T> {
         return new OutputOptionsSpec(parser);
     }
 
+    /**
+     * Creates the option that sets the number of threads of a command that
+     * processes its items concurrently. Zero or less stands for the number of
+     * processors.
+     *
+     * @param parser
+     * @return a non-null spec whose value is strictly positive
+     */
+    @Nonnull
+    public static ComposedOptionSpec<Integer> newParallelismSpec(@Nonnull OptionParser parser) {
+        return newParallelismSpec(parser, 0);
+    }
+
+    @Nonnull
+    public static ComposedOptionSpec<Integer> newParallelismSpec(@Nonnull OptionParser parser, int defaultValue) {
+        return new ParallelismSpec(parser, defaultValue);
+    }
+
     //<editor-fold defaultstate="collapsed" desc="Implementation details">
     static <X> Optional<X> optional(OptionSet options, OptionSpec<X> spec) {
         return Optional.ofNullable(options.has(spec) ? spec.value(options) : null);
@@ -60,13 +78,17 @@ public interface ComposedOptionSpec<T> {
     @NbBundle.Messages({
         "standardOptions.help=Show help",
         "standardOptions.version=Show version",
-        "standardOptions.verbose=Verbose mode"
+        "standardOptions.verbose=Verbose mode",
+        "standardOptions.metrics=Report timing and throughput metrics to stderr",
+        "standardOptions.metricsFile=Report timing and throughput metrics to a JSON file"
     })
     static final class StandardOptionsSpec implements ComposedOptionSpec<StandardOptions> {
 
         private final OptionSpec<Void> help;
         private final OptionSpec<Void> version;
         private final OptionSpec<Void> verbose;
+        private final OptionSpec<Void> metrics;
+        private final OptionSpec<File> metricsFile;
 
         private StandardOptionsSpec(OptionParser p) {
             this.help = p
@@ -76,11 +98,18 @@ public interface ComposedOptionSpec<T> {
                     .accepts("version", Bundle.standardOptions_version());
             this.verbose = p
                     .acceptsAll(asList("v", "verbose"), Bundle.standardOptions_verbose());
+            this.metrics = p
+                    .accepts("metrics", Bundle.standardOptions_metrics());
+            this.metricsFile = p
+                    .accepts("metrics-file", Bundle.standardOptions_metricsFile())
+                    .withRequiredArg()
+                    .ofType(File.class)
+                    .describedAs("file");
         }
 
         @Override
         public StandardOptions value(OptionSet o) {
-            return new StandardOptions(o.has(help), o.has(version), o.has(verbose));
+            return new StandardOptions(o.has(help), o.has(version), o.has(verbose), o.has(metrics) || o.has(metricsFile), metricsFile.value(o));
         }
     }
 
@@ -143,5 +172,28 @@ public interface ComposedOptionSpec<T> {
             return OutputOptions.create(optional(o, file), optional(o, mediaType), o.has(formatting));
         }
     }
+
+    @NbBundle.Messages({
+        "parallelismOptions.threads=Number of threads used to process the items (number of processors if zero)"
+    })
+    static final class ParallelismSpec implements ComposedOptionSpec<Integer> {
+
+        private final OptionSpec<Integer> threads;
+
+        private ParallelismSpec(OptionParser p, int defaultValue) {
+            this.threads = p
+                    .acceptsAll(asList("threads", "parallelism"), Bundle.parallelismOptions_threads())
+                    .withRequiredArg()
+                    .ofType(Integer.class)
+                    .describedAs("count")
+                    .defaultsTo(defaultValue);
+        }
+
+        @Override
+        public Integer value(OptionSet o) {
+            int result = threads.value(o);
+            return result > 0 ? result : Runtime.getRuntime().availableProcessors();
+        }
+    }
     //</editor-fold>
 }
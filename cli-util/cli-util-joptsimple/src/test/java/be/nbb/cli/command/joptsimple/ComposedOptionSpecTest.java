@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.cli.command.joptsimple;
+
+import be.nbb.cli.util.StandardOptions;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
+import java.io.File;
+import java.util.List;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class ComposedOptionSpecTest {
+
+    @Test
+    public void testMetrics() {
+        Parser parser = new Parser();
+
+        Parser.Result result = parser.parse("--metrics", "ws1.xml", "ws2.xml");
+        assertThat(result.so.isMetrics()).isTrue();
+        assertThat(result.so.getMetricsFile()).isNull();
+        assertThat(result.files).containsExactly(new File("ws1.xml"), new File("ws2.xml"));
+
+        result = parser.parse("--metrics-file", "report.json", "ws1.xml");
+        assertThat(result.so.isMetrics()).isTrue();
+        assertThat(result.so.getMetricsFile()).isEqualTo(new File("report.json"));
+        assertThat(result.files).containsExactly(new File("ws1.xml"));
+
+        result = parser.parse("ws1.xml");
+        assertThat(result.so.isMetrics()).isFalse();
+        assertThat(result.so.getMetricsFile()).isNull();
+
+        assertThatThrownBy(() -> parser.parse("ws1.xml", "--metrics-file"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static final class Parser extends JOptSimpleParser<Parser.Result> {
+
+        @lombok.AllArgsConstructor
+        static final class Result {
+
+            StandardOptions so;
+            List<File> files;
+        }
+
+        private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
+        private final OptionSpec<File> files = parser.nonOptions("file").ofType(File.class);
+
+        @Override
+        protected Result parse(OptionSet o) {
+            return new Result(so.value(o), files.values(o));
+        }
+    }
+}
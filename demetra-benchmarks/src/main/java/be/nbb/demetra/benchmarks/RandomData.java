@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.benchmarks;
+
+import be.nbb.demetra.toolset.ProviderTool;
+import ec.tss.TsCollectionInformation;
+import ec.tss.tsproviders.common.random.RandomBean;
+import ec.tss.tsproviders.common.random.RandomProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Synthetic monthly time series used by the benchmarks.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+public class RandomData {
+
+    @Nonnull
+    public TsCollectionInformation getCollection(@Nonnegative int count, @Nonnegative int length) {
+        RandomBean bean = new RandomBean();
+        bean.setSeed(0);
+        bean.setCount(count);
+        bean.setLength(length);
+        try (RandomProvider p = new RandomProvider()) {
+            return ProviderTool.of(p).get(p.getSource(), bean);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
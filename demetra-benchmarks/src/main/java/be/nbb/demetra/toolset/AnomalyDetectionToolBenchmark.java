@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import be.nbb.demetra.benchmarks.RandomData;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.CheckLastOptions;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.DefaultSpec;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersOptions;
+import ec.tss.TsInformation;
+import ec.tstoolkit.modelling.arima.IPreprocessor;
+import ec.tstoolkit.modelling.DefaultTransformationType;
+import ec.tstoolkit.timeseries.regression.OutlierType;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Run with "-prof gc" to compare the allocations per series of a reused tool
+ * with those of a fresh one.
+ *
+ * @author Philippe Charles
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnomalyDetectionToolBenchmark {
+
+    @Param({"TR4", "TRfull"})
+    public DefaultSpec defaultSpec;
+
+    @Param({"120", "600"})
+    public int length;
+
+    private AnomalyDetectionTool tool;
+    private OutliersOptions outliersOptions;
+    private CheckLastOptions checkLastOptions;
+    private TsInformation ts;
+
+    @Setup
+    public void setup() {
+        tool = AnomalyDetectionTool.getDefault();
+        outliersOptions = new OutliersOptions(defaultSpec, 0, DefaultTransformationType.None, EnumSet.of(OutlierType.AO, OutlierType.LS, OutlierType.TC));
+        checkLastOptions = new CheckLastOptions(defaultSpec, 0, 1);
+        ts = RandomData.getCollection(1, length).items.get(0);
+    }
+
+    @Benchmark
+    public AnomalyDetectionTool.OutliersTs getOutliers() {
+        return tool.getOutliers(ts, outliersOptions);
+    }
+
+    @Benchmark
+    public AnomalyDetectionTool.CheckLastTs getCheckLast() {
+        return tool.getCheckLast(ts, checkLastOptions);
+    }
+
+    @Benchmark
+    public AnomalyDetectionTool.OutliersTs getOutliersWithFreshTool() {
+        return AnomalyDetectionTool.getDefault().getOutliers(ts, outliersOptions);
+    }
+
+    @Benchmark
+    public AnomalyDetectionTool.CheckLastTs getCheckLastWithFreshTool() {
+        return AnomalyDetectionTool.getDefault().getCheckLast(ts, checkLastOptions);
+    }
+
+    @Benchmark
+    public IPreprocessor buildPreprocessor() {
+        return AnomalyDetectionToolImpl.newInstance(defaultSpec).build();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import be.nbb.demetra.benchmarks.RandomData;
+import be.nbb.demetra.toolset.BenchmarkingTool.CholetteOptions;
+import be.nbb.demetra.toolset.BenchmarkingTool.DentonOptions;
+import be.nbb.demetra.toolset.BenchmarkingTool.ExpanderOptions;
+import ec.benchmarking.simplets.TsCholette;
+import ec.benchmarking.simplets.TsExpander;
+import ec.tss.TsCollectionInformation;
+import ec.tstoolkit.timeseries.TsAggregationType;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Temporal disaggregation of a monthly indicator on the yearly aggregate of
+ * another series.
+ *
+ * @author Philippe Charles
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchmarkingToolBenchmark {
+
+    @Param({"120", "600"})
+    public int length;
+
+    private BenchmarkingTool tool;
+    private TsData x;
+    private TsData y;
+
+    @Setup
+    public void setup() {
+        tool = BenchmarkingTool.getDefault();
+        TsCollectionInformation col = RandomData.getCollection(2, length);
+        x = col.items.get(0).data;
+        y = col.items.get(1).data.changeFrequency(TsFrequency.Yearly, TsAggregationType.Sum, true);
+    }
+
+    @Benchmark
+    public TsData computeDenton() {
+        return tool.computeDenton(x, y, new DentonOptions(true, true, 1, TsAggregationType.Sum));
+    }
+
+    @Benchmark
+    public TsData computeCholette() {
+        return tool.computeCholette(x, y, new CholetteOptions(.9, 1, TsCholette.BiasCorrection.None, TsAggregationType.Sum));
+    }
+
+    @Benchmark
+    public TsData expand() {
+        return tool.expand(TsFrequency.Monthly, y, new ExpanderOptions(false, .9, false, false, TsExpander.Model.I1, 1, TsAggregationType.Sum));
+    }
+}
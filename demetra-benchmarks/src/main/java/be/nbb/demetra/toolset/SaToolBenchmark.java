@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import be.nbb.demetra.benchmarks.RandomData;
+import ec.tss.TsInformation;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Seasonal adjustment of a single series. The fresh-tool variant rebuilds the
+ * processing for every series and therefore measures what the processing
+ * cache saves.
+ *
+ * @author Philippe Charles
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SaToolBenchmark {
+
+    @Param({"tramoseats", "x13"})
+    public String algorithm;
+
+    @Param({"RSA0", "RSA3"})
+    public String spec;
+
+    @Param({"120", "600"})
+    public int length;
+
+    private SaTool tool;
+    private SaTool.Options options;
+    private TsInformation ts;
+
+    @Setup
+    public void setup() {
+        tool = SaTool.getDefault();
+        options = new SaTool.Options(algorithm, spec, Arrays.asList("sa", "t", "s", "i"));
+        ts = RandomData.getCollection(1, length).items.get(0);
+    }
+
+    @Benchmark
+    public SaTool.SaTs create() {
+        return tool.create(ts, options);
+    }
+
+    @Benchmark
+    public SaTool.SaTs createWithFreshTool() {
+        return SaTool.getDefault().create(ts, options);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.chart;
+
+import be.nbb.cli.util.MediaType;
+import be.nbb.demetra.benchmarks.RandomData;
+import ec.tss.TsCollectionInformation;
+import ec.util.chart.impl.SmartColorScheme;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batch rendering of one chart per series through ChartToolImpl; the score is
+ * the time per chart so that the throughput in charts/s is 1000 divided by
+ * the score.
+ *
+ * @author Philippe Charles
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@OperationsPerInvocation(Ts2ChartBenchmark.COUNT)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+public class Ts2ChartBenchmark {
+
+    static final int COUNT = 10000;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ChartTool tool;
+    private ChartTool.Options options;
+    private List<TsCollectionInformation> charts;
+    private Path dir;
+
+    @Setup
+    public void setup() throws IOException {
+        tool = ChartTool.getDefault();
+        options = new ChartTool.Options(400, 300, SmartColorScheme.NAME, "", true);
+        charts = Ts2Chart.Executor.split(RandomData.getCollection(COUNT, 240), null);
+        dir = Files.createTempDirectory("ts2chart");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public void writeCharts() throws IOException {
+        Ts2Chart.Executor.writeCharts(tool, charts, options, MediaType.PNG, i -> dir.resolve(i + ".png"), parallelism);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.workspace;
+
+import ec.demetra.workspace.WorkspaceFamily;
+import ec.demetra.workspace.WorkspaceItem;
+import ec.demetra.workspace.file.FileFormat;
+import ec.demetra.workspace.file.FileWorkspace;
+import ec.satoolkit.tramoseats.TramoSeatsSpecification;
+import ec.tss.TsFactory;
+import ec.tss.TsInformationType;
+import ec.tss.TsMoniker;
+import ec.tss.sa.ISaProcessingFactory;
+import ec.tss.sa.SaItem;
+import ec.tss.sa.SaManager;
+import ec.tss.sa.SaProcessing;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scanning of a generated workspace made of many multi-processings.
+ *
+ * @author Philippe Charles
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WorkspaceToolBenchmark {
+
+    @Param({"200"})
+    public int processings;
+
+    @Param({"50"})
+    public int items;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Path dir;
+    private FileWorkspace ws;
+    private WorkspaceTool tool;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        ServiceLoader.load(ISaProcessingFactory.class).forEach(SaManager.instance::add);
+        dir = Files.createTempDirectory("workspace");
+        Path file = dir.resolve("ws.xml");
+        try (FileWorkspace generated = FileWorkspace.create(file, FileFormat.GENERIC)) {
+            for (int i = 0; i < processings; i++) {
+                generated.store(newItem(i), newProcessing(i, items));
+            }
+        }
+        ws = FileWorkspace.open(file);
+        tool = new WorkspaceToolImpl();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        ws.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path o : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(o);
+            }
+        }
+    }
+
+    @Benchmark
+    public Set<TsMoniker> mapMonikers() throws IOException {
+        return tool.mapMonikers(ws, pool);
+    }
+
+    @Benchmark
+    public List<WorkspaceTool.CheckResult> checkContent() throws IOException {
+        return tool.checkContent(ws, pool);
+    }
+
+    private static WorkspaceItem newItem(int index) {
+        return WorkspaceItem.builder().family(WorkspaceFamily.SA_MULTI).id("sa" + index).label("SA " + index).build();
+    }
+
+    private static SaProcessing newProcessing(int index, int count) {
+        SaProcessing result = new SaProcessing();
+        for (int i = 0; i < count; i++) {
+            TsMoniker moniker = new TsMoniker("random", index + "." + i);
+            result.add(new SaItem(TramoSeatsSpecification.RSAfull, TsFactory.instance.createTs("s" + i, moniker, TsInformationType.None)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.helpers;
+
+import be.nbb.cli.util.Journal;
+import be.nbb.cli.util.jaxb.JaxbCache;
+import be.nbb.demetra.toolset.StoreUtil;
+import ec.tss.TsInformation;
+import ec.tss.TsMoniker;
+import ec.tss.xml.IXmlConverter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Keeps track of the completed items of a per-series command so that a run
+ * that dies can be resumed. Each result is appended to a journal in the
+ * checkpoint directory under a key made of the moniker, the name and the data
+ * of its time series; a restarted run takes the results that are already in
+ * the journal instead of computing them again. A journal written with other
+ * options is discarded.
+ *
+ * @author Philippe Charles
+ * @param <T>
+ */
+public final class Checkpoint<T> implements Closeable {
+
+    @Nonnull
+    public static <T> Checkpoint<T> noOp() {
+        return new Checkpoint<>(null, null, null);
+    }
+
+    /**
+     * Opens the journal of a command in a checkpoint directory.
+     *
+     * @param <T>
+     * @param <X>
+     * @param dir the checkpoint directory, created if missing
+     * @param name the name of the command
+     * @param options the options of the run, compared by their string
+     * representation
+     * @param type the XML form of the results
+     * @param monikerSetter a function that gives back to a result the moniker
+     * of its time series since monikers don't survive XML
+     * @return a non-null checkpoint
+     * @throws IOException
+     */
+    @Nonnull
+    public static <T, X extends IXmlConverter<T>> Checkpoint<T> open(@Nonnull Path dir, @Nonnull String name, @Nonnull Object options, @Nonnull Class<X> type, @Nonnull BiConsumer<? super T, TsMoniker> monikerSetter) throws IOException {
+        Files.createDirectories(dir);
+        Journal journal = Journal.open(dir.resolve(name + ".journal"), name + " " + options);
+        return new Checkpoint<>(journal, type, monikerSetter);
+    }
+
+    private final Journal journal;
+    private final Class<? extends IXmlConverter<T>> type;
+    private final BiConsumer<? super T, TsMoniker> monikerSetter;
+
+    private Checkpoint(Journal journal, Class<? extends IXmlConverter<T>> type, BiConsumer<? super T, TsMoniker> monikerSetter) {
+        this.journal = journal;
+        this.type = type;
+        this.monikerSetter = monikerSetter;
+    }
+
+    /**
+     * Gets the number of completed items.
+     *
+     * @return
+     */
+    @Nonnegative
+    public int size() {
+        return journal != null ? journal.size() : 0;
+    }
+
+    /**
+     * Wraps a function so that its results are taken from and added to the
+     * journal. Results are journaled as soon as they are computed; use
+     * {@link #resume(Function)} and {@link #add(TsInformation, Object)} when
+     * some of them may be discarded afterwards.
+     *
+     * @param function
+     * @return a non-null function
+     */
+    @Nonnull
+    public Function<TsInformation, T> wrap(@Nonnull Function<? super TsInformation, ? extends T> function) {
+        if (journal == null) {
+            return function::apply;
+        }
+        return ts -> {
+            String key = getKey(ts);
+            T result = read(key);
+            if (result != null) {
+                monikerSetter.accept(result, ts.moniker);
+                return result;
+            }
+            result = function.apply(ts);
+            write(key, result);
+            return result;
+        };
+    }
+
+    /**
+     * Wraps a function so that its results are taken from the journal
+     * without adding new ones to it.
+     *
+     * @param function
+     * @return a non-null function
+     */
+    @Nonnull
+    public Function<TsInformation, T> resume(@Nonnull Function<? super TsInformation, ? extends T> function) {
+        if (journal == null) {
+            return function::apply;
+        }
+        return ts -> {
+            T result = read(getKey(ts));
+            if (result != null) {
+                monikerSetter.accept(result, ts.moniker);
+                return result;
+            }
+            return function.apply(ts);
+        };
+    }
+
+    /**
+     * Adds a result to the journal unless its time series is already in it.
+     *
+     * @param ts
+     * @param result
+     */
+    public void add(@Nonnull TsInformation ts, @Nonnull T result) {
+        if (journal == null) {
+            return;
+        }
+        String key = getKey(ts);
+        if (!journal.contains(key)) {
+            write(key, result);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Nonnull
+    static String getKey(@Nonnull TsInformation ts) {
+        MessageDigest digest = StoreUtil.newDigest();
+        StoreUtil.update(digest, ts.moniker != null ? ts.moniker.getSource() : null);
+        StoreUtil.update(digest, ts.moniker != null ? ts.moniker.getId() : null);
+        StoreUtil.update(digest, ts.name);
+        if (ts.data != null) {
+            StoreUtil.update(digest, ts.data);
+        }
+        return StoreUtil.toHex(digest);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private static final QName ITEM = new QName("item");
+
+    private T read(String key) {
+        try {
+            byte[] payload = journal.get(key);
+            if (payload == null) {
+                return null;
+            }
+            try (JaxbCache.Lease<Unmarshaller> lease = JaxbCache.getDefault().getUnmarshaller(type)) {
+                return lease.get().unmarshal(new StreamSource(new ByteArrayInputStream(payload)), type).getValue().create();
+            }
+        } catch (IOException | JAXBException | RuntimeException ex) {
+            // unreadable results are computed again
+            return null;
+        }
+    }
+
+    private void write(String key, T value) {
+        try {
+            IXmlConverter<T> xml = type.newInstance();
+            xml.copy(value);
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            try (JaxbCache.Lease<Marshaller> lease = JaxbCache.getDefault().getMarshaller(type, false, true)) {
+                lease.get().marshal(newElement(xml), payload);
+            }
+            journal.append(key, payload.toByteArray());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (JAXBException | InstantiationException | IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private JAXBElement<?> newElement(IXmlConverter<T> xml) {
+        return new JAXBElement<>(ITEM, (Class<IXmlConverter<T>>) type, xml);
+    }
+    //</editor-fold>
+}
@@ -18,6 +18,7 @@ package demetra.cli.helpers;
 
 import be.nbb.cli.util.MediaType;
 import static be.nbb.cli.util.MediaType.parse;
+import javax.annotation.Nonnull;
 
 /**
  *
@@ -29,4 +30,18 @@ public class DemetraMediaTypes {
     public static final MediaType TS_COLLECTION_XML = parse("application/vnd.demetra.tscollection+xml");
     public static final MediaType TS_COLLECTION_JSON = parse("application/vnd.demetra.tscollection+json");
     public static final MediaType TS_COLLECTION_YAML = parse("application/vnd.demetra.tscollection+yaml");
+    public static final MediaType TS_COLLECTION_NDJSON = parse("application/vnd.demetra.tscollection+ndjson");
+    public static final MediaType TS_COLLECTION_BINARY = parse("application/vnd.demetra.tscollection+binary");
+
+    /**
+     * Checks if a media type can be read and written one item at a time
+     * without holding the whole collection.
+     *
+     * @param mediaType
+     * @return true if the media type is newline-delimited JSON
+     */
+    public static boolean isLineDelimited(@Nonnull MediaType mediaType) {
+        return mediaType.isCompatible(MediaType.NDJSON_UTF_8.withoutParameters())
+                || mediaType.isCompatible(TS_COLLECTION_NDJSON);
+    }
 }
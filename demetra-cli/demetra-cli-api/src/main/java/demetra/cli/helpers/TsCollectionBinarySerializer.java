@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.helpers;
+
+import be.nbb.cli.util.Serializer;
+import be.nbb.demetra.toolset.TsCollectionBinaryFormat;
+import ec.tss.xml.XmlTsCollection;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A serializer of collections of time series that uses
+ * {@link TsCollectionBinaryFormat}. Files are read through a memory-mapped
+ * buffer.
+ *
+ * @author Philippe Charles
+ */
+final class TsCollectionBinarySerializer implements Serializer<XmlTsCollection> {
+
+    @Override
+    public void serialize(XmlTsCollection value, OutputStream output) throws IOException {
+        TsCollectionBinaryFormat.write(value, Channels.newChannel(output));
+        output.flush();
+    }
+
+    @Override
+    public XmlTsCollection deserialize(InputStream input) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] tmp = new byte[8192];
+        int n;
+        while ((n = input.read(tmp)) != -1) {
+            result.write(tmp, 0, n);
+        }
+        return TsCollectionBinaryFormat.read(ByteBuffer.wrap(result.toByteArray()));
+    }
+
+    @Override
+    public XmlTsCollection deserialize(File input) throws IOException {
+        return deserialize(input.toPath());
+    }
+
+    @Override
+    public XmlTsCollection deserialize(Path input) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + input);
+            }
+            return TsCollectionBinaryFormat.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+}
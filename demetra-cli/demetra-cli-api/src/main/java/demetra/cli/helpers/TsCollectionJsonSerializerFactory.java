@@ -16,31 +16,41 @@
  */
 package demetra.cli.helpers;
 
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemSerializerFactory;
 import be.nbb.cli.util.MediaType;
 import be.nbb.cli.util.Serializer;
 import be.nbb.cli.util.SerializerFactory;
 import be.nbb.cli.util.SerializerFactoryAlias;
 import static demetra.cli.helpers.DemetraMediaTypes.TS_COLLECTION_JSON;
 import ec.tss.xml.XmlTsCollection;
-import org.openide.util.Lookup;
 import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
 
 /**
  *
  * @author Philippe Charles
  */
-@ServiceProvider(service = SerializerFactory.class)
-public final class TsCollectionJsonSerializerFactory implements SerializerFactory {
+@ServiceProviders({
+    @ServiceProvider(service = SerializerFactory.class),
+    @ServiceProvider(service = ItemSerializerFactory.class)
+})
+public final class TsCollectionJsonSerializerFactory implements SerializerFactory, ItemSerializerFactory {
 
     private final SerializerFactoryAlias alias = SerializerFactoryAlias.of(XmlTsCollection.class, TS_COLLECTION_JSON, MediaType.JSON_UTF_8);
 
     @Override
     public boolean canHandle(MediaType mediaType, Class<?> type) {
-        return alias.canHandle(mediaType, type, Lookup.getDefault().lookupAll(SerializerFactory.class));
+        return alias.canHandle(mediaType, type);
     }
 
     @Override
     public <X> Serializer<X> create(Class<X> type, boolean formattedOutput) {
-        return alias.create(type, formattedOutput, Lookup.getDefault().lookupAll(SerializerFactory.class));
+        return alias.create(type, formattedOutput);
+    }
+
+    @Override
+    public <T, I> ItemSerializer<T, I> create(Class<T> type, Class<I> itemType, boolean formattedOutput) {
+        return alias.createItems(type, itemType, formattedOutput);
     }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.helpers;
+
+import be.nbb.cli.util.ItemSerializer;
+import be.nbb.cli.util.ItemSerializerFactory;
+import be.nbb.cli.util.MediaType;
+import be.nbb.cli.util.Serializer;
+import be.nbb.cli.util.SerializerFactory;
+import be.nbb.cli.util.SerializerFactoryAlias;
+import static demetra.cli.helpers.DemetraMediaTypes.TS_COLLECTION_NDJSON;
+import ec.tss.xml.XmlTsCollection;
+import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+@ServiceProviders({
+    @ServiceProvider(service = SerializerFactory.class),
+    @ServiceProvider(service = ItemSerializerFactory.class)
+})
+public final class TsCollectionNdjsonSerializerFactory implements SerializerFactory, ItemSerializerFactory {
+
+    private final SerializerFactoryAlias alias = SerializerFactoryAlias.of(XmlTsCollection.class, TS_COLLECTION_NDJSON, MediaType.NDJSON_UTF_8);
+
+    @Override
+    public boolean canHandle(MediaType mediaType, Class<?> type) {
+        return alias.canHandle(mediaType, type);
+    }
+
+    @Override
+    public <X> Serializer<X> create(Class<X> type, boolean formattedOutput) {
+        return alias.create(type, formattedOutput);
+    }
+
+    @Override
+    public <T, I> ItemSerializer<T, I> create(Class<T> type, Class<I> itemType, boolean formattedOutput) {
+        return alias.createItems(type, itemType, formattedOutput);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.helpers;
+
+import be.nbb.cli.util.MediaType;
+import be.nbb.cli.util.SerializerFactory;
+import be.nbb.cli.util.ShardRunner;
+import be.nbb.cli.util.WorkerProcess;
+import static demetra.cli.helpers.DemetraMediaTypes.TS_COLLECTION_BINARY;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.TsMoniker;
+import ec.tss.xml.IXmlConverter;
+import ec.tss.xml.XmlTsCollection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Shares the time series of a per-series command between worker processes.
+ * Each worker runs the same command on a contiguous shard that is sent in
+ * binary form and sends its results back in XML; the results are merged in
+ * the order of the input.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+public class TsShards {
+
+    /**
+     * Processes time series on worker processes.
+     *
+     * @param <T> the type of the results
+     * @param <C> the type of the collection of results
+     * @param <X> the XML form of the collection of results
+     * @param input
+     * @param workers the number of worker processes
+     * @param parallelism the number of threads that are divided between the
+     * workers
+     * @param args the command and the options of the workers, without the
+     * threads and the media types
+     * @param type the XML form of the output of the workers
+     * @param items a function that gives the results of a collection
+     * @param monikerSetter a function that gives back to a result the moniker
+     * of its time series
+     * @return a non-null list of results in the order of the input
+     * @throws IOException if a shard still fails after its last attempt
+     */
+    @Nonnull
+    public static <T, C, X extends IXmlConverter<C>> List<T> map(
+            @Nonnull List<TsInformation> input,
+            @Nonnegative int workers,
+            @Nonnegative int parallelism,
+            @Nonnull List<String> args,
+            @Nonnull Class<X> type,
+            @Nonnull Function<? super C, List<T>> items,
+            @Nonnull BiConsumer<? super T, TsMoniker> monikerSetter) throws IOException {
+        WorkerProcess worker = WorkerProcess.current();
+        ShardRunner runner = new ShardRunner(workers, MAX_ATTEMPTS);
+        List<String> workerArgs = getWorkerArgs(args, Math.max(1, parallelism / Math.max(1, workers)));
+        return runner.map(input, shard -> {
+            List<T> result = worker.exec(workerArgs, stream -> writeShard(shard, stream), stream -> items.apply(readShard(stream, type)));
+            restoreMonikers(shard, result, monikerSetter);
+            return result;
+        });
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    // a crashed worker is replaced once before giving up on its shard
+    private static final int MAX_ATTEMPTS = 2;
+
+    private static List<String> getWorkerArgs(List<String> args, int parallelism) {
+        List<String> result = new ArrayList<>(args);
+        result.addAll(Arrays.asList("--threads", String.valueOf(parallelism)));
+        result.addAll(Arrays.asList("--input-type", TS_COLLECTION_BINARY.toString()));
+        result.addAll(Arrays.asList("--output-type", MediaType.XML_UTF_8.toString()));
+        return result;
+    }
+
+    private static void writeShard(List<TsInformation> shard, OutputStream stream) throws IOException {
+        TsCollectionInformation info = new TsCollectionInformation();
+        info.items.addAll(shard);
+        XmlTsCollection value = new XmlTsCollection();
+        value.copy(info);
+        SerializerFactory.of(TS_COLLECTION_BINARY, XmlTsCollection.class, false).serialize(value, stream);
+    }
+
+    private static <C, X extends IXmlConverter<C>> C readShard(InputStream stream, Class<X> type) throws IOException {
+        return SerializerFactory.of(MediaType.XML_UTF_8, type, false).deserialize(stream).create();
+    }
+
+    // the binary input has no monikers and the XML results come back with dynamic ones
+    private static <T> void restoreMonikers(List<TsInformation> shard, List<T> result, BiConsumer<? super T, TsMoniker> monikerSetter) {
+        for (int i = 0; i < Math.min(shard.size(), result.size()); i++) {
+            monikerSetter.accept(result.get(i), shard.get(i).moniker);
+        }
+    }
+    //</editor-fold>
+}
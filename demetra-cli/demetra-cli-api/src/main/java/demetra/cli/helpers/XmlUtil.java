@@ -19,12 +19,20 @@ package demetra.cli.helpers;
 
 
 import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.ItemReader;
+import be.nbb.cli.util.ItemWriter;
+import be.nbb.cli.util.Metrics;
+import be.nbb.cli.util.Metrics.Phase;
 import be.nbb.cli.util.OutputOptions;
 import ec.tss.TsCollectionInformation;
 import ec.tss.xml.IXmlConverter;
 import ec.tss.xml.IXmlInfoConverter;
 import ec.tss.xml.XmlTsCollection;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -40,7 +48,7 @@ public class XmlUtil {
 
     @Nonnull
     public static <Y, X extends IXmlConverter<Y>> Y readValue(@Nonnull InputOptions options, @Nonnull Class<X> clazz) throws IOException {
-        return options.read(clazz).create();
+        return Metrics.current().time(Phase.DESERIALIZATION, () -> options.read(clazz).create());
     }
 
     @Nonnull
@@ -53,9 +61,56 @@ public class XmlUtil {
         try {
             X tmp = clazz.newInstance();
             tmp.copy(value);
-            options.write(clazz, tmp);
+            Metrics.current().time(Phase.SERIALIZATION, () -> options.write(clazz, tmp));
         } catch (InstantiationException | IllegalAccessException ex) {
             throw new RuntimeException(ex);
         }
     }
+
+    /**
+     * Transfers the items of a reader to a writer by batches so that only one
+     * batch is in memory at a time. The order of the items is preserved.
+     * Reading, processing and writing are reported to the current metrics.
+     *
+     * @param <I>
+     * @param <J>
+     * @param reader
+     * @param writer
+     * @param batchSize
+     * @param function a function that maps a batch of items to a list of the
+     * same size
+     * @return the number of items transferred
+     * @throws IOException
+     */
+    @Nonnegative
+    public static <I, J> int transferItems(@Nonnull ItemReader<?, I> reader, @Nonnull ItemWriter<?, J> writer, @Nonnegative int batchSize, @Nonnull Function<? super List<I>, ? extends List<J>> function) throws IOException {
+        Metrics metrics = Metrics.current();
+        int result = 0;
+        List<I> batch = new ArrayList<>(batchSize);
+        while (readBatch(reader, batch, batchSize, metrics) > 0) {
+            List<J> output = metrics.time(Phase.PROCESSING, () -> function.apply(batch));
+            result += writeBatch(writer, output, metrics);
+            batch.clear();
+        }
+        return result;
+    }
+
+    private static <I> int readBatch(ItemReader<?, I> reader, List<I> batch, int batchSize, Metrics metrics) throws IOException {
+        return metrics.time(Phase.DESERIALIZATION, () -> {
+            I item;
+            while (batch.size() < batchSize && (item = reader.read()) != null) {
+                batch.add(item);
+            }
+            return batch.size();
+        });
+    }
+
+    private static <J> int writeBatch(ItemWriter<?, J> writer, List<J> batch, Metrics metrics) throws IOException {
+        metrics.time(Phase.SERIALIZATION, () -> {
+            for (J o : batch) {
+                writer.write(o);
+            }
+        });
+        return batch.size();
+    }
 }
@@ -19,9 +19,12 @@ package demetra.cli;
 import be.nbb.cli.util.AppassemblerProperty;
 import be.nbb.cli.command.CommandReference;
 import be.nbb.cli.command.CommandRegistry;
+import be.nbb.cli.command.daemon.CommandDaemon;
 import be.nbb.cli.util.Utils;
+import be.nbb.cli.util.WorkerProcess;
 import demetra.cli.helpers.Categories;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import org.openide.util.Lookup;
 
@@ -33,19 +36,37 @@ import org.openide.util.Lookup;
 @lombok.experimental.UtilityClass
 public class JDemetraCli {
 
+    public static final String SERVE_COMMAND = "serve";
+    public static final String PORT_PROPERTY = "demetra.cli.daemon.port";
+    public static final int DEFAULT_PORT = 7373;
+
     public void main(String[] args) {
         initContext();
-        int status = CommandRegistry.builder()
+        CommandRegistry registry = CommandRegistry.builder()
                 .name(AppassemblerProperty.APP_NAME.value())
                 .description("Command line interface for JDemetra+")
                 .commands(Lookup.getDefault().lookupAll(CommandReference.class))
                 .categories(JDemetraCli::getCategoryLabel)
-                .build()
-                .exec(args);
+                .build();
+        int status = args.length > 0 && args[0].equals(SERVE_COMMAND)
+                ? serve(registry)
+                : registry.exec(args);
         System.exit(status);
     }
 
-    private void initContext() {
+    int getPort() {
+        return Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+    }
+
+    Path getTokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".jdemetra-cli", "daemon-" + port + ".token");
+    }
+
+    void initContext() {
+        // allows commands to start workers of this application
+        if (System.getProperty(WorkerProcess.MAIN_CLASS_PROPERTY) == null) {
+            System.setProperty(WorkerProcess.MAIN_CLASS_PROPERTY, JDemetraCli.class.getName());
+        }
         try {
             Utils.loadSystemProperties(Paths.get(AppassemblerProperty.BASEDIR.value(), "etc", "system.properties"));
         } catch (IOException ex) {
@@ -53,6 +74,18 @@ public class JDemetraCli {
         }
     }
 
+    private int serve(CommandRegistry registry) {
+        int port = getPort();
+        try (CommandDaemon daemon = CommandDaemon.open(registry::exec, port, getTokenFile(port))) {
+            System.err.println("Listening on port " + daemon.getPort());
+            daemon.serve();
+            return 0;
+        } catch (IOException ex) {
+            log.error("While serving commands", ex);
+            return -1;
+        }
+    }
+
     private String getCategoryLabel(String category) {
         switch (category) {
             case Categories.IO_CATEGORY:
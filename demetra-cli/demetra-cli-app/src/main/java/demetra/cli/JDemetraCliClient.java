@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli;
+
+import be.nbb.cli.command.daemon.CommandDaemonClient;
+import java.io.IOException;
+
+/**
+ * Sends a command to a daemon started with <code>dem serve</code>.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+public class JDemetraCliClient {
+
+    public void main(String[] args) {
+        JDemetraCli.initContext();
+        int port = JDemetraCli.getPort();
+        int status;
+        try {
+            status = new CommandDaemonClient(port, JDemetraCli.getTokenFile(port)).exec(args, System.in, System.out, System.err);
+        } catch (IOException ex) {
+            System.err.println("Cannot reach daemon on port " + port + ": " + ex.getMessage());
+            status = -1;
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.anomalydetection;
+
+import java.io.PrintStream;
+import java.util.function.IntConsumer;
+
+/**
+ * Prints the number of processed time series each time it changes.
+ *
+ * @author Philippe Charles
+ */
+@lombok.RequiredArgsConstructor
+final class ProgressPrinter implements IntConsumer {
+
+    private final PrintStream stream;
+    private final int total;
+    private int last = 0;
+
+    @Override
+    public void accept(int value) {
+        if (value != last) {
+            last = value;
+            stream.println("Processed " + value + "/" + total + " time series");
+        }
+    }
+}
@@ -21,24 +21,36 @@ import be.nbb.cli.command.core.OptionsExecutor;
 import be.nbb.cli.command.core.OptionsParsingCommand;
 import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newInputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
 import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.Metrics;
+import be.nbb.cli.util.Metrics.Phase;
 import be.nbb.cli.util.StandardOptions;
 import be.nbb.demetra.toolset.AnomalyDetectionTool;
 import be.nbb.demetra.toolset.AnomalyDetectionTool.CheckLastOptions;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.CheckLastTs;
+import be.nbb.demetra.toolset.SeriesScheduler;
 import com.google.common.base.Joiner;
+import demetra.cli.helpers.Checkpoint;
 import demetra.cli.helpers.CsvOutputOptions;
 import static demetra.cli.helpers.CsvOutputOptions.newCsvOutputOptionsSpec;
 import demetra.cli.helpers.XmlUtil;
 import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
-import ec.tstoolkit.information.InformationSet;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import static java.util.Arrays.asList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -63,6 +75,9 @@ public final class Terror {
         public InputOptions input;
         public CheckLastOptions spec;
         public CsvOutputOptions output;
+        public int parallelism;
+        public int timeout;
+        public File checkpoint;
     }
 
     @VisibleForTesting
@@ -74,13 +89,40 @@ public final class Terror {
         public void exec(Options o) throws Exception {
             TsCollectionInformation input = XmlUtil.readValue(o.input, XmlTsCollection.class);
 
+            int parallelism = o.parallelism;
+
             if (o.so.isVerbose()) {
-                System.err.println("Processing " + input.items.size() + " time series");
+                System.err.println("Processing " + input.items.size() + " time series on " + parallelism + " threads");
             }
 
-            List<InformationSet> output = tool.getCheckLast(input, o.spec);
+            Metrics metrics = Metrics.current();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            SeriesScheduler scheduler = new SeriesScheduler(pool, parallelism);
+            IntConsumer progress = o.so.isVerbose() ? new ProgressPrinter(System.err, input.items.size()) : n -> {
+            };
+            List<CheckLastTs> output;
+            try (Checkpoint<CheckLastTs> checkpoint = openCheckpoint(o)) {
+                // only the accepted results are journaled so that abandoned ones are retried on resume
+                output = metrics.time(Phase.PROCESSING, () -> scheduler.map(input.items, SeriesScheduler.byLength(),
+                        checkpoint.resume(metrics.perSeries((TsInformation ts) -> tool.getCheckLast(ts, o.spec), ts -> ts.name)),
+                        Duration.ofSeconds(o.timeout), CheckLastTs::timeout, checkpoint::add, progress));
+            } finally {
+                pool.shutdown();
+            }
 
-            o.output.write(output, items(o.spec.getNBacks()), false);
+            metrics.time(Phase.SERIALIZATION, () -> o.output.write(output.stream().map(CheckLastTs::generate).collect(Collectors.toList()), items(o.spec.getNBacks()), false));
+        }
+
+        private static Checkpoint<CheckLastTs> openCheckpoint(Options o) throws IOException {
+            if (o.checkpoint == null) {
+                return Checkpoint.noOp();
+            }
+            Checkpoint<CheckLastTs> result = Checkpoint.open(o.checkpoint.toPath(), "terror", o.spec, XmlCheckLastTs.class, (ts, moniker) -> {
+            });
+            if (o.so.isVerbose() && result.size() > 0) {
+                System.err.println("Resuming after " + result.size() + " completed time series");
+            }
+            return result;
         }
 
         private List<String> items(int n) {
@@ -92,21 +134,36 @@ public final class Terror {
                 items.add("forecast" + j);
                 items.add("score" + j);
             }
+            items.add("error");
             return items;
         }
     }
 
     @VisibleForTesting
+    @NbBundle.Messages({
+        "terror.timeout=Maximum number of seconds spent on a time series (0 for no limit)",
+        "terror.checkpoint=Directory of the journal of completed time series that allows an interrupted run to resume"
+    })
     static final class Parser extends JOptSimpleParser<Options> {
 
         private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
         private final ComposedOptionSpec<InputOptions> input = newInputOptionsSpec(parser);
         private final ComposedOptionSpec<CheckLastOptions> spec = new CheckLastOptionsSpec(parser);
         private final ComposedOptionSpec<CsvOutputOptions> output = newCsvOutputOptionsSpec(parser);
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser);
+        private final OptionSpec<Integer> timeout = parser
+                .accepts("timeout", Bundle.terror_timeout())
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
+        private final OptionSpec<File> checkpoint = parser
+                .accepts("checkpoint-dir", Bundle.terror_checkpoint())
+                .withRequiredArg()
+                .ofType(File.class);
 
         @Override
         protected Options parse(OptionSet o) {
-            return new Options(so.value(o), input.value(o), spec.value(o), output.value(o));
+            return new Options(so.value(o), input.value(o), spec.value(o), output.value(o), parallelism.value(o), timeout.value(o), checkpoint.value(o));
         }
     }
 
@@ -22,19 +22,27 @@ import be.nbb.cli.command.core.OptionsParsingCommand;
 import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newInputOptionsSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newOutputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
 import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.Metrics;
+import be.nbb.cli.util.Metrics.Phase;
 import be.nbb.cli.util.OutputOptions;
 import be.nbb.cli.util.StandardOptions;
 import be.nbb.demetra.toolset.AnomalyDetectionTool;
 import be.nbb.demetra.toolset.AnomalyDetectionTool.DefaultSpec;
 import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersOptions;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersTs;
 import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersTsCollection;
+import be.nbb.demetra.toolset.SeriesScheduler;
 import com.google.common.base.Joiner;
+import demetra.cli.helpers.Checkpoint;
+import demetra.cli.helpers.TsShards;
 import demetra.cli.helpers.XmlUtil;
 import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
 import ec.tstoolkit.modelling.DefaultTransformationType;
@@ -43,8 +51,17 @@ import static ec.tstoolkit.timeseries.regression.OutlierType.AO;
 import static ec.tstoolkit.timeseries.regression.OutlierType.LS;
 import static ec.tstoolkit.timeseries.regression.OutlierType.SO;
 import static ec.tstoolkit.timeseries.regression.OutlierType.TC;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import static java.util.Arrays.asList;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -69,6 +86,10 @@ public final class Ts2Outliers {
         public InputOptions input;
         public OutliersOptions spec;
         public OutputOptions output;
+        public int parallelism;
+        public int timeout;
+        public File checkpoint;
+        public int workers;
     }
 
     @VisibleForTesting
@@ -80,27 +101,110 @@ public final class Ts2Outliers {
         public void exec(Options params) throws Exception {
             TsCollectionInformation o = XmlUtil.readValue(params.input, XmlTsCollection.class);
 
+            if (params.workers > 0) {
+                execSharded(params, o);
+                return;
+            }
+
+            int parallelism = params.parallelism;
+
             if (params.so.isVerbose()) {
-                System.err.println("Processing " + o.items.size() + " time series");
+                System.err.println("Processing " + o.items.size() + " time series on " + parallelism + " threads");
             }
 
-            OutliersTsCollection output = tool.getOutliers(o, params.spec);
+            Metrics metrics = Metrics.current();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            SeriesScheduler scheduler = new SeriesScheduler(pool, parallelism);
+            IntConsumer progress = params.so.isVerbose() ? new ProgressPrinter(System.err, o.items.size()) : n -> {
+            };
+            OutliersTsCollection output;
+            try (Checkpoint<OutliersTs> checkpoint = openCheckpoint(params)) {
+                output = metrics.time(Phase.PROCESSING, () -> {
+                    OutliersTsCollection result = new OutliersTsCollection();
+                    result.setName(o.name);
+                    result.setMoniker(o.moniker);
+                    // only the accepted results are journaled so that abandoned ones are retried on resume
+                    result.setItems(scheduler.map(o.items, SeriesScheduler.byLength(), checkpoint.resume(metrics.perSeries((TsInformation ts) -> tool.getOutliers(ts, params.spec), ts -> ts.name)),
+                            Duration.ofSeconds(params.timeout), OutliersTs::timeout, checkpoint::add, progress));
+                    return result;
+                });
+            } finally {
+                pool.shutdown();
+            }
 
             XmlUtil.writeValue(params.output, XmlOutliersTsCollection.class, output);
         }
+
+        private void execSharded(Options o, TsCollectionInformation input) throws Exception {
+            if (o.so.isVerbose()) {
+                System.err.println("Processing " + input.items.size() + " time series on " + o.workers + " workers");
+            }
+
+            OutliersTsCollection output = Metrics.current().time(Phase.PROCESSING, () -> {
+                OutliersTsCollection result = new OutliersTsCollection();
+                result.setName(input.name);
+                result.setMoniker(input.moniker);
+                result.setItems(TsShards.map(input.items, o.workers, o.parallelism, getWorkerArgs(o), XmlOutliersTsCollection.class, OutliersTsCollection::getItems, OutliersTs::setMoniker));
+                return result;
+            });
+
+            XmlUtil.writeValue(o.output, XmlOutliersTsCollection.class, output);
+        }
+
+        private static List<String> getWorkerArgs(Options o) {
+            List<String> result = new ArrayList<>();
+            result.add("ts2outliers");
+            result.addAll(Arrays.asList("--default-spec", o.spec.getDefaultSpec().name()));
+            result.addAll(Arrays.asList("--critical-value", String.valueOf(o.spec.getCriticalValue())));
+            result.addAll(Arrays.asList("--transformation", o.spec.getTransformation().name()));
+            result.addAll(Arrays.asList("--outlier-types", o.spec.getOutlierTypes().stream().map(Enum::name).collect(Collectors.joining(","))));
+            result.addAll(Arrays.asList("--timeout", String.valueOf(o.timeout)));
+            return result;
+        }
+
+        private static Checkpoint<OutliersTs> openCheckpoint(Options o) throws IOException {
+            if (o.checkpoint == null) {
+                return Checkpoint.noOp();
+            }
+            Checkpoint<OutliersTs> result = Checkpoint.open(o.checkpoint.toPath(), "ts2outliers", o.spec, XmlOutliersTs.class, OutliersTs::setMoniker);
+            if (o.so.isVerbose() && result.size() > 0) {
+                System.err.println("Resuming after " + result.size() + " completed time series");
+            }
+            return result;
+        }
     }
 
     @VisibleForTesting
+    @NbBundle.Messages({
+        "ts2outliers.timeout=Maximum number of seconds spent on a time series (0 for no limit)",
+        "ts2outliers.checkpoint=Directory of the journal of completed time series that allows an interrupted run to resume (not used with workers)",
+        "ts2outliers.workers=Number of worker processes that share the time series; the threads are divided between them"
+    })
     static final class Parser extends JOptSimpleParser<Options> {
 
         private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
         private final ComposedOptionSpec<InputOptions> input = newInputOptionsSpec(parser);
         private final ComposedOptionSpec<AnomalyDetectionTool.OutliersOptions> spec = new OutliersOptionsSpec(parser);
         private final ComposedOptionSpec<OutputOptions> output = newOutputOptionsSpec(parser);
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser);
+        private final OptionSpec<Integer> timeout = parser
+                .accepts("timeout", Bundle.ts2outliers_timeout())
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
+        private final OptionSpec<File> checkpoint = parser
+                .accepts("checkpoint-dir", Bundle.ts2outliers_checkpoint())
+                .withRequiredArg()
+                .ofType(File.class);
+        private final OptionSpec<Integer> workers = parser
+                .accepts("workers", Bundle.ts2outliers_workers())
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
 
         @Override
         protected Options parse(OptionSet o) {
-            return new Options(so.value(o), input.value(o), spec.value(o), output.value(o));
+            return new Options(so.value(o), input.value(o), spec.value(o), output.value(o), parallelism.value(o), timeout.value(o), checkpoint.value(o), workers.value(o));
         }
     }
 
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.anomalydetection;
+
+import be.nbb.demetra.toolset.AnomalyDetectionTool;
+import ec.tss.xml.IXmlConverter;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public final class XmlCheckLastTs implements IXmlConverter<AnomalyDetectionTool.CheckLastTs> {
+
+    @XmlAttribute
+    public String name;
+    @XmlElement(name = "score")
+    public double[] scores;
+    @XmlElement(name = "forecast")
+    public double[] forecasts;
+    @XmlElement(name = "value")
+    public double[] values;
+    @XmlElement
+    public String invalidDataCause;
+
+    @Override
+    public AnomalyDetectionTool.CheckLastTs create() {
+        AnomalyDetectionTool.CheckLastTs result = new AnomalyDetectionTool.CheckLastTs();
+        result.setName(name);
+        result.setScores(scores);
+        result.setForecasts(forecasts);
+        result.setValues(values);
+        result.setInvalidDataCause(invalidDataCause);
+        return result;
+    }
+
+    @Override
+    public void copy(AnomalyDetectionTool.CheckLastTs t) {
+        name = t.getName();
+        scores = t.getScores();
+        forecasts = t.getForecasts();
+        values = t.getValues();
+        invalidDataCause = t.getInvalidDataCause();
+    }
+}
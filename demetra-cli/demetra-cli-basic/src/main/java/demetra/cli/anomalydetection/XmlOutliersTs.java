@@ -22,6 +22,7 @@ import ec.tss.TsMoniker;
 import ec.tss.xml.IXmlConverter;
 import ec.tstoolkit.timeseries.regression.OutlierEstimation;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.stream.Collectors;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
@@ -47,9 +48,12 @@ public final class XmlOutliersTs implements IXmlConverter<AnomalyDetectionTool.O
     public AnomalyDetectionTool.OutliersTs create() {
         AnomalyDetectionTool.OutliersTs result = new AnomalyDetectionTool.OutliersTs();
         result.setName(name);
-        result.setMoniker(new TsMoniker(source, identifier));
+        result.setMoniker(source != null && identifier != null ? new TsMoniker(source, identifier) : TsMoniker.createDynamicMoniker());
         if (invalidDataCause == null) {
-            result.setOutliers(Arrays.asList(outliers).stream().map(XmlOutlierEstimation::create).collect(Collectors.toList()));
+            // an empty array of outliers is read as null
+            result.setOutliers(outliers != null
+                    ? Arrays.asList(outliers).stream().map(XmlOutlierEstimation::create).collect(Collectors.toList())
+                    : Collections.emptyList());
         } else {
             result.setInvalidDataCause(invalidDataCause);
         }
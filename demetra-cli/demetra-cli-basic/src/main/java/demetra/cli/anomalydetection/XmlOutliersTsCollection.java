@@ -48,7 +48,7 @@ public final class XmlOutliersTsCollection implements IXmlConverter<AnomalyDetec
     public AnomalyDetectionTool.OutliersTsCollection create() {
         AnomalyDetectionTool.OutliersTsCollection result = new AnomalyDetectionTool.OutliersTsCollection();
         result.setName(name);
-        result.setMoniker(new TsMoniker(source, identifier));
+        result.setMoniker(source != null && identifier != null ? new TsMoniker(source, identifier) : TsMoniker.createDynamicMoniker());
         if (items != null) {
             result.setItems(Arrays.asList(items).stream().map(XmlOutliersTs::create).collect(Collectors.toList()));
         } else {
@@ -26,13 +26,21 @@ import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOption
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
 import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.ItemReader;
+import be.nbb.cli.util.ItemWriter;
 import be.nbb.cli.util.OutputOptions;
 import be.nbb.cli.util.StandardOptions;
 import be.nbb.demetra.toolset.SaTool;
+import static demetra.cli.helpers.DemetraMediaTypes.isLineDelimited;
 import demetra.cli.helpers.XmlUtil;
 import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.xml.XmlTs;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 import joptsimple.OptionSet;
 
 /**
@@ -62,6 +70,11 @@ public final class Sa2Ts {
 
         @Override
         public void exec(Options o) throws Exception {
+            if (isLineDelimited(o.input.getMediaType()) || isLineDelimited(o.output.getMediaType())) {
+                execStreaming(o);
+                return;
+            }
+
             SaTool.SaTsCollection input = XmlUtil.readValue(o.input, XmlSaTsCollection.class);
 
             if (o.so.isVerbose()) {
@@ -72,6 +85,44 @@ public final class Sa2Ts {
 
             XmlUtil.writeValue(o.output, XmlTsCollection.class, output);
         }
+
+        private void execStreaming(Options o) throws Exception {
+            try (ItemReader<XmlSaTsCollection, XmlSaTs> reader = o.input.openReader(XmlSaTsCollection.class, XmlSaTs.class);
+                    ItemWriter<XmlTsCollection, XmlTs> writer = o.output.openWriter(XmlTsCollection.class, XmlTs.class, () -> toHeader(reader.getHeader()))) {
+                int count = 0;
+                XmlSaTs item;
+                while ((item = reader.read()) != null) {
+                    for (XmlTs ts : process(item)) {
+                        writer.write(ts);
+                    }
+                    count++;
+                }
+                writer.finish();
+
+                if (o.so.isVerbose()) {
+                    System.err.println("Processed " + count + " items");
+                }
+            }
+        }
+
+        private List<XmlTs> process(XmlSaTs item) {
+            SaTool.SaTs ts = item.create();
+            return ts.getData() != null
+                    ? tool.toTs(ts).stream().map(Executor::toXml).collect(Collectors.toList())
+                    : Collections.emptyList();
+        }
+
+        private XmlTsCollection toHeader(XmlSaTsCollection input) {
+            XmlTsCollection result = new XmlTsCollection();
+            result.copy(tool.toTsCollection(input.create()));
+            return result;
+        }
+
+        private static XmlTs toXml(TsInformation info) {
+            XmlTs result = new XmlTs();
+            result.copy(info);
+            return result;
+        }
     }
 
     @VisibleForTesting
@@ -22,17 +22,37 @@ import be.nbb.cli.command.core.OptionsParsingCommand;
 import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newInputOptionsSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newOutputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
 import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.ItemReader;
+import be.nbb.cli.util.ItemWriter;
+import be.nbb.cli.util.Metrics;
+import be.nbb.cli.util.Metrics.Phase;
 import be.nbb.cli.util.OutputOptions;
 import be.nbb.cli.util.StandardOptions;
+import be.nbb.demetra.toolset.SaStore;
 import be.nbb.demetra.toolset.SaTool;
+import be.nbb.demetra.toolset.SeriesScheduler;
+import demetra.cli.helpers.Checkpoint;
+import static demetra.cli.helpers.DemetraMediaTypes.isLineDelimited;
+import demetra.cli.helpers.TsShards;
 import demetra.cli.helpers.XmlUtil;
 import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.xml.XmlTs;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -57,6 +77,11 @@ public final class Ts2Sa {
         public InputOptions input;
         public SaTool.Options saOptions;
         public OutputOptions output;
+        public boolean streaming;
+        public int parallelism;
+        public File store;
+        public int workers;
+        public File checkpoint;
     }
 
     @VisibleForTesting
@@ -66,29 +91,169 @@ public final class Ts2Sa {
 
         @Override
         public void exec(Options o) throws Exception {
+            if (o.streaming || isLineDelimited(o.input.getMediaType())) {
+                execStreaming(o);
+                return;
+            }
+
             TsCollectionInformation input = XmlUtil.readValue(o.input, XmlTsCollection.class);
 
+            if (o.workers > 0) {
+                execSharded(o, input);
+                return;
+            }
+
+            int parallelism = o.parallelism;
+
+            if (o.so.isVerbose()) {
+                System.err.println("Processing " + input.items.size() + " time series on " + parallelism + " threads");
+            }
+
+            Metrics metrics = Metrics.current();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            SeriesScheduler scheduler = new SeriesScheduler(pool, parallelism);
+            SaStore store = getStore(o);
+            SaTool.SaTsCollection output;
+            try (Checkpoint<SaTool.SaTs> checkpoint = openCheckpoint(o)) {
+                output = metrics.time(Phase.PROCESSING, () -> {
+                    SaTool.SaTsCollection result = newCollection(input, o.saOptions);
+                    result.setItems(scheduler.map(input.items, SeriesScheduler.byLength(), checkpoint.wrap(metrics.perSeries(ts -> tool.create(ts, o.saOptions, store), ts -> ts.name))));
+                    return result;
+                });
+            } finally {
+                pool.shutdown();
+            }
+
+            XmlUtil.writeValue(o.output, XmlSaTsCollection.class, output);
+        }
+
+        private void execSharded(Options o, TsCollectionInformation input) throws Exception {
             if (o.so.isVerbose()) {
-                System.err.println("Processing " + input.items.size() + " time series");
+                System.err.println("Processing " + input.items.size() + " time series on " + o.workers + " workers");
             }
 
-            SaTool.SaTsCollection output = tool.create(input, o.saOptions);
+            SaTool.SaTsCollection output = Metrics.current().time(Phase.PROCESSING, () -> {
+                SaTool.SaTsCollection result = newCollection(input, o.saOptions);
+                result.setItems(TsShards.map(input.items, o.workers, o.parallelism, getWorkerArgs(o), XmlSaTsCollection.class, SaTool.SaTsCollection::getItems, SaTool.SaTs::setMoniker));
+                return result;
+            });
 
             XmlUtil.writeValue(o.output, XmlSaTsCollection.class, output);
         }
+
+        private static List<String> getWorkerArgs(Options o) {
+            List<String> result = new ArrayList<>();
+            result.add("ts2sa");
+            result.addAll(Arrays.asList("--algorithm", o.saOptions.getAlgorithm()));
+            result.addAll(Arrays.asList("--spec", o.saOptions.getSpec()));
+            result.addAll(Arrays.asList("--items", String.join(",", o.saOptions.getItems())));
+            if (o.store != null) {
+                result.addAll(Arrays.asList("--store", o.store.getAbsolutePath()));
+            }
+            return result;
+        }
+
+        private void execStreaming(Options o) throws Exception {
+            int parallelism = o.parallelism;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            SeriesScheduler scheduler = new SeriesScheduler(pool, parallelism);
+            SaStore store = getStore(o);
+            try (Checkpoint<SaTool.SaTs> checkpoint = openCheckpoint(o);
+                    ItemReader<XmlTsCollection, XmlTs> reader = o.input.openReader(XmlTsCollection.class, XmlTs.class);
+                    ItemWriter<XmlSaTsCollection, XmlSaTs> writer = o.output.openWriter(XmlSaTsCollection.class, XmlSaTs.class, () -> toHeader(reader.getHeader(), o.saOptions))) {
+                Function<TsInformation, SaTool.SaTs> function = checkpoint.wrap(ts -> tool.create(ts, o.saOptions, store));
+                int count = XmlUtil.transferItems(reader, writer, BATCH_SIZE, batch -> process(batch, function, scheduler, Metrics.current()));
+                writer.finish();
+
+                if (o.so.isVerbose()) {
+                    System.err.println("Processed " + count + " time series on " + parallelism + " threads");
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        private List<XmlSaTs> process(List<XmlTs> batch, Function<TsInformation, SaTool.SaTs> function, SeriesScheduler scheduler, Metrics metrics) {
+            return scheduler.map(batch, Executor::getLength, metrics.perSeries(o -> toXml(function.apply(o.create())), o -> o.name));
+        }
+
+        private static SaStore getStore(Options o) {
+            return o.store != null ? SaStore.onDisk(o.store.toPath()) : SaStore.noOp();
+        }
+
+        private static Checkpoint<SaTool.SaTs> openCheckpoint(Options o) throws IOException {
+            if (o.checkpoint == null) {
+                return Checkpoint.noOp();
+            }
+            Checkpoint<SaTool.SaTs> result = Checkpoint.open(o.checkpoint.toPath(), "ts2sa", o.saOptions, XmlSaTs.class, SaTool.SaTs::setMoniker);
+            if (o.so.isVerbose() && result.size() > 0) {
+                System.err.println("Resuming after " + result.size() + " completed time series");
+            }
+            return result;
+        }
+
+        private static int getLength(XmlTs o) {
+            return o.data != null ? o.data.length : 0;
+        }
+
+        private XmlSaTsCollection toHeader(XmlTsCollection input, SaTool.Options options) {
+            XmlSaTsCollection result = new XmlSaTsCollection();
+            result.copy(newCollection(input.create(), options));
+            return result;
+        }
+
+        private static SaTool.SaTsCollection newCollection(TsCollectionInformation info, SaTool.Options options) {
+            SaTool.SaTsCollection result = new SaTool.SaTsCollection();
+            result.setName(info.name);
+            result.setMoniker(info.moniker);
+            result.setAlgorithm(options.getAlgorithm());
+            result.setSpec(options.getSpec());
+            result.setItems(Collections.emptyList());
+            return result;
+        }
+
+        private static XmlSaTs toXml(SaTool.SaTs value) {
+            XmlSaTs result = new XmlSaTs();
+            result.copy(value);
+            return result;
+        }
+
+        // number of time series in memory at once while streaming
+        private static final int BATCH_SIZE = 256;
     }
 
     @VisibleForTesting
+    @NbBundle.Messages({
+        "ts2sa.streaming=Processes the time series one batch at a time instead of loading the whole collection (implied by a newline-delimited input)",
+        "ts2sa.store=Directory of previous results that are reused for unchanged time series",
+        "ts2sa.workers=Number of worker processes that share the time series; the threads are divided between them (ignored when streaming)",
+        "ts2sa.checkpoint=Directory of the journal of completed time series that allows an interrupted run to resume (not used with workers)"
+    })
     static final class Parser extends JOptSimpleParser<Options> {
 
         private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
         private final ComposedOptionSpec<InputOptions> input = newInputOptionsSpec(parser);
         private final ComposedOptionSpec<SaTool.Options> saOptions = new SaOptionsSpec(parser);
         private final ComposedOptionSpec<OutputOptions> output = newOutputOptionsSpec(parser);
+        private final OptionSpec<Void> streaming = parser.accepts("stream", Bundle.ts2sa_streaming());
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser);
+        private final OptionSpec<File> store = parser
+                .accepts("store", Bundle.ts2sa_store())
+                .withRequiredArg()
+                .ofType(File.class);
+        private final OptionSpec<Integer> workers = parser
+                .accepts("workers", Bundle.ts2sa_workers())
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(0);
+        private final OptionSpec<File> checkpoint = parser
+                .accepts("checkpoint-dir", Bundle.ts2sa_checkpoint())
+                .withRequiredArg()
+                .ofType(File.class);
 
         @Override
         protected Options parse(OptionSet o) {
-            return new Options(so.value(o), input.value(o), saOptions.value(o), output.value(o));
+            return new Options(so.value(o), input.value(o), saOptions.value(o), output.value(o), o.has(streaming), parallelism.value(o), store.value(o), workers.value(o), checkpoint.value(o));
         }
     }
 
@@ -22,6 +22,8 @@ import ec.tss.xml.IXmlConverter;
 import ec.tss.xml.XmlTsData;
 import ec.tstoolkit.timeseries.simplets.TsData;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -55,8 +57,11 @@ public final class XmlSaTs implements IXmlConverter<SaTool.SaTs> {
         result.setMoniker(TsMoniker.createDynamicMoniker());
         result.setAlgorithm(algorithm);
         result.setSpec(spec);
-        if (invalidDataCause == null && values != null) {
-            result.setData(Arrays.asList(values).stream().filter(o-> o.data != null ).collect(Collectors.toMap(o -> o.name, o -> o.create())));
+        if (invalidDataCause == null) {
+            // an empty array of values is read as null
+            result.setData(values != null
+                    ? Arrays.asList(values).stream().filter(o-> o.data != null ).collect(Collectors.toMap(o -> o.name, o -> o.create(), (l, r) -> r, LinkedHashMap::new))
+                    : Collections.emptyMap());
             result.setInvalidDataCause(null);
         } else {
             result.setData(null);
@@ -21,23 +21,37 @@ import be.nbb.cli.command.core.OptionsExecutor;
 import be.nbb.cli.command.core.OptionsParsingCommand;
 import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newOutputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
+import be.nbb.cli.util.ItemWriter;
 import be.nbb.cli.util.OutputOptions;
 import be.nbb.cli.util.StandardOptions;
+import be.nbb.demetra.toolset.ProviderCache;
 import be.nbb.demetra.toolset.ProviderTool;
 import static demetra.cli.helpers.Categories.IO_CATEGORY;
+import static demetra.cli.helpers.DemetraMediaTypes.isLineDelimited;
 import demetra.cli.helpers.XmlUtil;
 import ec.tss.ITsProvider;
 import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.xml.XmlTs;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import org.openide.util.NbBundle;
 
 /**
  * Retrieves time series from an URI.
@@ -47,7 +61,7 @@ import joptsimple.OptionSpec;
 @lombok.experimental.UtilityClass
 public final class Uri2Ts {
 
-    @CommandRegistration(name = "uri2ts", category = IO_CATEGORY, description = "Retrieve time series from an URI")
+    @CommandRegistration(name = "uri2ts", category = IO_CATEGORY, description = "Retrieve time series from one or more URIs")
     static final Command CMD = OptionsParsingCommand.of(Parser::new, Executor::new, o -> o.so);
 
     @lombok.AllArgsConstructor
@@ -55,8 +69,12 @@ public final class Uri2Ts {
     public static final class Options {
 
         StandardOptions so;
-        public URI uri;
+        public List<URI> uris;
         public OutputOptions output;
+        public File cache;
+        public long cacheSize;
+        public File uriFile;
+        public int parallelism;
     }
 
     @VisibleForTesting
@@ -66,21 +84,100 @@ public final class Uri2Ts {
 
         @Override
         public void exec(Options o) throws Exception {
-            TsCollectionInformation result = ProviderTool.of(providers.get()).withWorkingDir().get(o.uri);
-            XmlUtil.writeValue(o.output, XmlTsCollection.class, result);
+            List<URI> uris = getUris(o);
+            ProviderTool tool = ProviderTool.of(providers.get()).withWorkingDir().withCache(getCache(o));
+            TsCollectionInformation result;
+            if (uris.size() == 1) {
+                result = tool.get(uris.get(0));
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(o.parallelism);
+                try {
+                    result = tool.get(uris, pool);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            if (isLineDelimited(o.output.getMediaType())) {
+                writeItems(o.output, result);
+            } else {
+                XmlUtil.writeValue(o.output, XmlTsCollection.class, result);
+            }
+        }
+
+        private static List<URI> getUris(Options o) throws IOException {
+            List<URI> result = new ArrayList<>(o.uris);
+            if (o.uriFile != null) {
+                for (String line : Files.readAllLines(o.uriFile.toPath())) {
+                    String uri = line.trim();
+                    if (!uri.isEmpty() && !uri.startsWith("#")) {
+                        try {
+                            result.add(new URI(uri));
+                        } catch (URISyntaxException ex) {
+                            throw new IOException("Invalid URI '" + uri + "' in '" + o.uriFile + "'", ex);
+                        }
+                    }
+                }
+            }
+            if (result.isEmpty()) {
+                throw new IllegalArgumentException("Missing URI");
+            }
+            return result;
+        }
+
+        private static ProviderCache getCache(Options o) {
+            return o.cache != null ? ProviderCache.onDisk(o.cache.toPath(), o.cacheSize * 1024 * 1024) : ProviderCache.noOp();
+        }
+
+        private static void writeItems(OutputOptions output, TsCollectionInformation value) throws IOException {
+            try (ItemWriter<XmlTsCollection, XmlTs> writer = output.openWriter(XmlTsCollection.class, XmlTs.class, () -> toHeader(value))) {
+                for (TsInformation o : value.items) {
+                    XmlTs item = new XmlTs();
+                    item.copy(o);
+                    writer.write(item);
+                }
+                writer.finish();
+            }
+        }
+
+        private static XmlTsCollection toHeader(TsCollectionInformation value) {
+            TsCollectionInformation header = new TsCollectionInformation(value.moniker, value.type);
+            header.name = value.name;
+            header.metaData = value.metaData;
+            XmlTsCollection result = new XmlTsCollection();
+            result.copy(header);
+            return result;
         }
     }
 
     @VisibleForTesting
+    @NbBundle.Messages({
+        "uri2ts.cache=Directory of the collections already loaded from files; a file is loaded again when it changes",
+        "uri2ts.cacheSize=Maximum size of the cache in megabytes",
+        "uri2ts.uriFile=File of URIs, one per line; the time series of all the URIs are merged in one collection"
+    })
     static final class Parser extends JOptSimpleParser<Options> {
 
         private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
         private final OptionSpec<URI> uri = parser.nonOptions("uri").ofType(URI.class);
         private final ComposedOptionSpec<OutputOptions> output = newOutputOptionsSpec(parser);
+        private final OptionSpec<File> cache = parser
+                .accepts("cache-dir", Bundle.uri2ts_cache())
+                .withRequiredArg()
+                .ofType(File.class);
+        private final OptionSpec<Long> cacheSize = parser
+                .accepts("cache-size", Bundle.uri2ts_cacheSize())
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(256L);
+        private final OptionSpec<File> uriFile = parser
+                .accepts("uri-file", Bundle.uri2ts_uriFile())
+                .withRequiredArg()
+                .ofType(File.class);
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser);
 
         @Override
         protected Options parse(OptionSet o) {
-            return new Options(so.value(o), o.has(uri) ? uri.value(o) : null, output.value(o));
+            return new Options(so.value(o), uri.values(o), output.value(o), cache.value(o), cacheSize.value(o), uriFile.value(o), parallelism.value(o));
         }
     }
 }
@@ -18,7 +18,15 @@ package demetra.xml;
 
 import ec.tss.xml.IXmlConverter;
 import ec.tss.xml.XmlTsPeriod;
+import ec.tstoolkit.eco.CoefficientEstimation;
+import ec.tstoolkit.timeseries.Day;
+import ec.tstoolkit.timeseries.regression.AdditiveOutlier;
+import ec.tstoolkit.timeseries.regression.IOutlierVariable;
+import ec.tstoolkit.timeseries.regression.LevelShift;
 import ec.tstoolkit.timeseries.regression.OutlierEstimation;
+import ec.tstoolkit.timeseries.regression.SeasonalOutlier;
+import ec.tstoolkit.timeseries.regression.TransitoryChange;
+import ec.tstoolkit.timeseries.simplets.TsPeriod;
 
 /**
  *
@@ -33,7 +41,8 @@ public final class XmlOutlierEstimation implements IXmlConverter<OutlierEstimati
 
     @Override
     public OutlierEstimation create() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        TsPeriod period = position.create();
+        return new OutlierEstimation(new CoefficientEstimation(value, stdev), newVariable(code, period.firstday()), period.getFrequency());
     }
 
     @Override
@@ -44,4 +53,19 @@ public final class XmlOutlierEstimation implements IXmlConverter<OutlierEstimati
         stdev = t.getStdev();
         value = t.getValue();
     }
+
+    private static IOutlierVariable newVariable(String code, Day day) {
+        switch (code) {
+            case AdditiveOutlier.CODE:
+                return new AdditiveOutlier(day);
+            case LevelShift.CODE:
+                return new LevelShift(day);
+            case TransitoryChange.CODE:
+                return new TransitoryChange(day);
+            case SeasonalOutlier.CODE:
+                return new SeasonalOutlier(day);
+            default:
+                throw new IllegalArgumentException("Unexpected outlier code '" + code + "'");
+        }
+    }
 }
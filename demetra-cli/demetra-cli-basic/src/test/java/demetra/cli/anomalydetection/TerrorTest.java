@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.anomalydetection;
+
+import be.nbb.cli.util.InputOptions;
+import static be.nbb.cli.util.MediaType.XML_UTF_8;
+import be.nbb.cli.util.OutputOptions;
+import be.nbb.cli.util.StandardOptions;
+import be.nbb.demetra.toolset.AnomalyDetectionTool;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.CheckLastTs;
+import demetra.cli.helpers.Checkpoint;
+import demetra.cli.helpers.CsvOutputOptions;
+import demetra.cli.helpers.XmlUtil;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.xml.XmlTsCollection;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class TerrorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testErrorColumn() throws Exception {
+        File in = folder.newFile();
+        File out = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+        new Terror.Executor().exec(getOptions(in, out));
+
+        // the formatter repeats each row once per column
+        List<String> lines = Files.readAllLines(out.toPath());
+        assertThat(lines.get(0)).isEqualTo("series,value1,forecast1,score1,error");
+        assertThat(lines).allMatch(o -> o.split(",", -1).length == 5);
+        assertThat(lines).anyMatch(o -> o.startsWith("valid,") && o.endsWith(","));
+        assertThat(lines).contains("invalid,,,,Not enough obs");
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        Terror.Executor app = new Terror.Executor();
+
+        File in = folder.newFile();
+        File expected = folder.newFile();
+        File result = folder.newFile();
+        File checkpoint = folder.newFolder();
+        Path journal = checkpoint.toPath().resolve("terror.journal");
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+        app.exec(getOptions(in, expected));
+
+        Terror.Options options = getOptions(in, result);
+        options.checkpoint = checkpoint;
+        app.exec(options);
+        assertThat(Files.readAllLines(result.toPath())).isEqualTo(Files.readAllLines(expected.toPath()));
+        try (Checkpoint<CheckLastTs> o = Checkpoint.open(checkpoint.toPath(), "terror", options.spec, XmlCheckLastTs.class, (ts, moniker) -> {
+        })) {
+            assertThat(o.size()).isEqualTo(2);
+        }
+
+        // resumed results are not journaled twice
+        long size = Files.size(journal);
+        app.exec(options);
+        assertThat(Files.readAllLines(result.toPath())).isEqualTo(Files.readAllLines(expected.toPath()));
+        assertThat(Files.size(journal)).isEqualTo(size);
+    }
+
+    private static Terror.Options getOptions(File in, File out) {
+        return new Terror.Options(new StandardOptions(false, false, false), InputOptions.of(in, XML_UTF_8),
+                new AnomalyDetectionTool.CheckLastOptions(AnomalyDetectionTool.DefaultSpec.TRfull, 0, 1), CsvOutputOptions.of(out), 1, 0, null);
+    }
+
+    private static TsCollectionInformation getSample() {
+        TsCollectionInformation result = new TsCollectionInformation();
+        Random random = new Random(0);
+        TsInformation valid = new TsInformation();
+        valid.name = "valid";
+        valid.data = new TsData(TsFrequency.Monthly, 2000, 0, 120);
+        double value = 100;
+        for (int i = 0; i < valid.data.getLength(); i++) {
+            value += random.nextDouble() - .5;
+            valid.data.set(i, value);
+        }
+        result.items.add(valid);
+        TsInformation invalid = new TsInformation();
+        invalid.name = "invalid";
+        invalid.data = new TsData(TsFrequency.Monthly, 2000, 0, 3);
+        result.items.add(invalid);
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.anomalydetection;
+
+import be.nbb.cli.util.InputOptions;
+import static be.nbb.cli.util.MediaType.XML_UTF_8;
+import be.nbb.cli.util.OutputOptions;
+import be.nbb.cli.util.StandardOptions;
+import be.nbb.cli.util.WorkerProcess;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.DefaultSpec;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersOptions;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersTs;
+import demetra.cli.helpers.Checkpoint;
+import demetra.cli.helpers.XmlUtil;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.xml.XmlTsCollection;
+import ec.tstoolkit.modelling.DefaultTransformationType;
+import static ec.tstoolkit.timeseries.regression.OutlierType.AO;
+import static ec.tstoolkit.timeseries.regression.OutlierType.LS;
+import static ec.tstoolkit.timeseries.regression.OutlierType.TC;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.function.Function;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class Ts2OutliersTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public static final class WorkerMain {
+
+        public static void main(String[] args) {
+            System.exit(Ts2Outliers.CMD.exec(Arrays.copyOfRange(args, 1, args.length)));
+        }
+    }
+
+    @Test
+    public void testWorkers() throws Exception {
+        File in = folder.newFile();
+        File single = folder.newFile();
+        File sharded = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+        new Ts2Outliers.Executor().exec(getOptions(in, single));
+
+        System.setProperty(WorkerProcess.MAIN_CLASS_PROPERTY, WorkerMain.class.getName());
+        try {
+            Ts2Outliers.Options options = getOptions(in, sharded);
+            options.workers = 3;
+            new Ts2Outliers.Executor().exec(options);
+        } finally {
+            System.clearProperty(WorkerProcess.MAIN_CLASS_PROPERTY);
+        }
+
+        assertThat(Files.readAllLines(sharded.toPath()))
+                .isEqualTo(Files.readAllLines(single.toPath()))
+                .anyMatch(o -> o.contains("<outlier"));
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        Ts2Outliers.Executor app = new Ts2Outliers.Executor();
+
+        File in = folder.newFile();
+        File expected = folder.newFile();
+        File result = folder.newFile();
+        File checkpoint = folder.newFolder();
+        Path journal = checkpoint.toPath().resolve("ts2outliers.journal");
+
+        TsCollectionInformation sample = getSample();
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, sample);
+        app.exec(getOptions(in, expected));
+        assertThat(Files.readAllLines(expected.toPath())).anyMatch(o -> o.contains("<outlier"));
+
+        Ts2Outliers.Options options = getOptions(in, result);
+        options.checkpoint = checkpoint;
+        app.exec(options);
+        assertThat(Files.readAllLines(result.toPath())).isEqualTo(Files.readAllLines(expected.toPath()));
+
+        // the journaled results are read back instead of being computed again
+        try (Checkpoint<OutliersTs> o = Checkpoint.open(checkpoint.toPath(), "ts2outliers", options.spec, XmlOutliersTs.class, OutliersTs::setMoniker)) {
+            assertThat(o.size()).isEqualTo(sample.items.size());
+            Function<TsInformation, OutliersTs> resumed = o.resume(ts -> {
+                throw new AssertionError(ts.name);
+            });
+            sample.items.forEach(resumed::apply);
+        }
+
+        long size = Files.size(journal);
+        app.exec(options);
+        assertThat(Files.readAllLines(result.toPath())).isEqualTo(Files.readAllLines(expected.toPath()));
+        assertThat(Files.size(journal)).isEqualTo(size);
+    }
+
+    private static Ts2Outliers.Options getOptions(File in, File out) {
+        Ts2Outliers.Options result = new Ts2Outliers.Options();
+        result.so = new StandardOptions(false, false, false);
+        result.input = InputOptions.of(in, XML_UTF_8);
+        result.spec = new OutliersOptions(DefaultSpec.TR4, 3.5, DefaultTransformationType.None, EnumSet.of(AO, LS, TC));
+        result.output = OutputOptions.of(out, XML_UTF_8, false);
+        result.parallelism = 1;
+        return result;
+    }
+
+    private static TsCollectionInformation getSample() {
+        Random random = new Random(0);
+        TsCollectionInformation result = new TsCollectionInformation();
+        result.name = "sample";
+        for (int i = 0; i < 5; i++) {
+            TsInformation ts = new TsInformation();
+            ts.name = "ts" + i;
+            ts.data = new TsData(TsFrequency.Monthly, 2000, 0, 60 + 12 * i);
+            double value = 100;
+            for (int j = 0; j < ts.data.getLength(); j++) {
+                value += random.nextDouble() - .5;
+                ts.data.set(j, j == 30 ? value + 10 : value);
+            }
+            result.items.add(ts);
+        }
+        return result;
+    }
+}
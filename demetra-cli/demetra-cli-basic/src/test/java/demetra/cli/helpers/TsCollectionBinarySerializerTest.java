@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.helpers;
+
+import be.nbb.cli.util.MediaType;
+import be.nbb.cli.util.Serializer;
+import be.nbb.cli.util.SerializerFactory;
+import static demetra.cli.helpers.DemetraMediaTypes.TS_COLLECTION_BINARY;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.TsMoniker;
+import ec.tss.xml.XmlTsCollection;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class TsCollectionBinarySerializerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static TsCollectionInformation getSample() {
+        TsCollectionInformation result = getSample(3);
+        result.items.add(new TsInformation());
+        return result;
+    }
+
+    static TsCollectionInformation getSample(int count) {
+        TsCollectionInformation result = new TsCollectionInformation();
+        result.name = "sample";
+        for (int i = 0; i < count; i++) {
+            TsInformation ts = new TsInformation("ts" + i, new TsMoniker("source", "id" + i), null);
+            ts.data = TsData.random(i == 1 ? TsFrequency.Quarterly : TsFrequency.Monthly);
+            ts.metaData = new ec.tstoolkit.MetaData();
+            ts.metaData.put("unit", "€");
+            result.items.add(ts);
+        }
+        return result;
+    }
+
+    static Serializer<XmlTsCollection> getSerializer(MediaType mediaType) {
+        return SerializerFactory.of(mediaType, XmlTsCollection.class, false);
+    }
+
+    static void assertSameCollection(TsCollectionInformation result, TsCollectionInformation expected) {
+        assertThat(result.name).isEqualTo(expected.name);
+        assertThat(result.items).hasSameSizeAs(expected.items);
+        for (int i = 0; i < expected.items.size(); i++) {
+            TsInformation x = result.items.get(i);
+            TsInformation y = expected.items.get(i);
+            assertThat(x.name).isEqualTo(y.name);
+            // anonymous monikers are regenerated on each read
+            if (!y.moniker.isAnonymous()) {
+                assertThat(x.moniker).isEqualTo(y.moniker);
+            }
+            assertThat(x.data).isEqualTo(y.data);
+            assertThat(x.metaData).isEqualTo(y.metaData);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Serializer<XmlTsCollection> serializer = getSerializer(TS_COLLECTION_BINARY);
+        TsCollectionInformation sample = getSample();
+        XmlTsCollection value = new XmlTsCollection();
+        value.copy(sample);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.serialize(value, bytes);
+        assertSameCollection(serializer.deserialize(new ByteArrayInputStream(bytes.toByteArray())).create(), sample);
+
+        File file = folder.newFile("sample.tsb");
+        serializer.serialize(value, file);
+        assertSameCollection(serializer.deserialize(file).create(), sample);
+        assertSameCollection(serializer.deserialize(file.toPath()).create(), sample);
+        assertThat(Files.probeContentType(file.toPath())).isEqualTo(TS_COLLECTION_BINARY.toString());
+
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        getSerializer(MediaType.XML_UTF_8).serialize(value, xml);
+        assertThat(bytes.size()).isLessThan(xml.size());
+    }
+
+    @Test
+    public void testOddNumberOfSeries() throws IOException {
+        Serializer<XmlTsCollection> serializer = getSerializer(TS_COLLECTION_BINARY);
+        for (int count : new int[]{1, 3, 5}) {
+            TsCollectionInformation sample = getSample(count);
+            XmlTsCollection value = new XmlTsCollection();
+            value.copy(sample);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            serializer.serialize(value, bytes);
+            assertSameCollection(serializer.deserialize(new ByteArrayInputStream(bytes.toByteArray())).create(), sample);
+        }
+    }
+
+    @Test
+    public void testInvalidContent() throws IOException {
+        Serializer<XmlTsCollection> serializer = getSerializer(TS_COLLECTION_BINARY);
+        XmlTsCollection value = new XmlTsCollection();
+        value.copy(getSample());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.serialize(value, bytes);
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() / 2);
+
+        assertThatThrownBy(() -> serializer.deserialize(new ByteArrayInputStream(truncated)))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> serializer.deserialize(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.sa;
+
+import be.nbb.cli.command.PipeCommand;
+import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.MediaType;
+import static be.nbb.cli.util.MediaType.XML_UTF_8;
+import be.nbb.cli.util.OutputOptions;
+import be.nbb.cli.util.StandardOptions;
+import be.nbb.cli.util.WorkerProcess;
+import be.nbb.demetra.toolset.SaTool;
+import static demetra.cli.helpers.DemetraMediaTypes.TS_COLLECTION_NDJSON;
+import demetra.cli.helpers.XmlUtil;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.xml.XmlTsCollection;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class Ts2SaTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static TsCollectionInformation getSample() {
+        // fixed seed and length since very short random series can't be processed
+        Random random = new Random(0);
+        TsCollectionInformation result = new TsCollectionInformation();
+        result.name = "sample";
+        for (int i = 0; i < 3; i++) {
+            TsInformation ts = new TsInformation();
+            ts.name = "ts" + i;
+            ts.data = new TsData(TsFrequency.Monthly, 2000, 0, 120);
+            double value = 100;
+            for (int j = 0; j < ts.data.getLength(); j++) {
+                value += random.nextDouble() - .5;
+                ts.data.set(j, value);
+            }
+            result.items.add(ts);
+        }
+        result.items.add(new TsInformation());
+        return result;
+    }
+
+    static Ts2Sa.Options getOptions(File in, File out, boolean streaming) {
+        Ts2Sa.Options result = new Ts2Sa.Options();
+        result.so = new StandardOptions(false, false, false);
+        result.input = InputOptions.of(in, XML_UTF_8);
+        result.saOptions = new SaTool.Options("tramoseats", "RSA0", Arrays.asList("sa", "t"));
+        result.output = OutputOptions.of(out, XML_UTF_8, false);
+        result.streaming = streaming;
+        result.parallelism = Runtime.getRuntime().availableProcessors();
+        return result;
+    }
+
+    static SaTool.SaTsCollection read(File file) throws IOException {
+        return XmlUtil.readValue(InputOptions.of(file, XML_UTF_8), XmlSaTsCollection.class);
+    }
+
+    static void assertSameItems(SaTool.SaTsCollection result, SaTool.SaTsCollection expected) {
+        assertSameItems(result.getItems(), expected.getItems());
+    }
+
+    static void assertSameItems(List<SaTool.SaTs> result, List<SaTool.SaTs> expected) {
+        assertThat(result).hasSize(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(result.get(i).getName()).isEqualTo(expected.get(i).getName());
+            assertThat(result.get(i).getData()).isEqualTo(expected.get(i).getData());
+        }
+    }
+
+    static long countFiles(File dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir.toPath())) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        Ts2Sa.Executor app = new Ts2Sa.Executor();
+
+        File in = folder.newFile();
+        File out = folder.newFile();
+        File streamed = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+
+        app.exec(getOptions(in, out, false));
+        app.exec(getOptions(in, streamed, true));
+
+        SaTool.SaTsCollection expected = read(out);
+        SaTool.SaTsCollection result = read(streamed);
+
+        assertThat(result.getName()).isEqualTo("sample");
+        assertThat(result.getAlgorithm()).isEqualTo(expected.getAlgorithm());
+        assertThat(result.getSpec()).isEqualTo(expected.getSpec());
+        assertThat(result.getItems()).hasSize(4);
+        assertSameItems(result, expected);
+    }
+
+    @Test
+    public void testParallelism() throws Exception {
+        Ts2Sa.Executor app = new Ts2Sa.Executor();
+
+        File in = folder.newFile();
+        File single = folder.newFile();
+        File multi = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+
+        Ts2Sa.Options options = getOptions(in, single, false);
+        options.parallelism = 1;
+        app.exec(options);
+
+        options = getOptions(in, multi, false);
+        options.parallelism = 3;
+        app.exec(options);
+
+        assertSameItems(read(multi), read(single));
+    }
+
+    @Test
+    public void testLineDelimited() throws Exception {
+        File in = folder.newFile();
+        File xml = folder.newFile();
+        File ndjson = folder.newFile();
+        File ts = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, TS_COLLECTION_NDJSON, false), XmlTsCollection.class, getSample());
+        assertThat(Files.readAllLines(in.toPath())).hasSize(5);
+
+        Ts2Sa.Options options = getOptions(in, xml, false);
+        options.input = InputOptions.of(in, TS_COLLECTION_NDJSON);
+        new Ts2Sa.Executor().exec(options);
+
+        options.output = OutputOptions.of(ndjson, MediaType.NDJSON_UTF_8, false);
+        new Ts2Sa.Executor().exec(options);
+        assertThat(Files.readAllLines(ndjson.toPath())).hasSize(5);
+
+        SaTool.SaTsCollection expected = read(xml);
+        SaTool.SaTsCollection result = XmlUtil.readValue(InputOptions.of(ndjson, MediaType.NDJSON_UTF_8), XmlSaTsCollection.class);
+        assertThat(result.getName()).isEqualTo("sample");
+        assertThat(result.getItems()).hasSize(4);
+        // XML doesn't distinguish empty data from missing data
+        assertSameItems(result.getItems().subList(0, 3), expected.getItems().subList(0, 3));
+
+        Sa2Ts.Options sa2ts = new Sa2Ts.Options(new StandardOptions(false, false, false), InputOptions.of(ndjson, MediaType.NDJSON_UTF_8), OutputOptions.of(ts, TS_COLLECTION_NDJSON, false));
+        new Sa2Ts.Executor().exec(sa2ts);
+
+        TsCollectionInformation output = XmlUtil.readValue(InputOptions.of(ts, TS_COLLECTION_NDJSON), XmlTsCollection.class);
+        assertThat(output.items).hasSize(6);
+        assertThat(output.items).extracting(o -> o.name).contains("ts0 #sa", "ts2 #t");
+    }
+
+    @Test
+    public void testUnfinishedStreaming() throws Exception {
+        File in = folder.newFile();
+        File sa = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+        Ts2Sa.Options options = getOptions(in, sa, false);
+        options.output = OutputOptions.of(sa, MediaType.NDJSON_UTF_8, false);
+        new Ts2Sa.Executor().exec(options);
+
+        // a run that fails after some items have been written
+        List<String> lines = Files.readAllLines(sa.toPath());
+        lines.set(3, lines.get(3).substring(0, 10));
+        Files.write(sa.toPath(), lines);
+
+        for (MediaType mediaType : Arrays.asList(XML_UTF_8, MediaType.JSON_UTF_8)) {
+            File ts = folder.newFile();
+            Sa2Ts.Options sa2ts = new Sa2Ts.Options(new StandardOptions(false, false, false), InputOptions.of(sa, MediaType.NDJSON_UTF_8), OutputOptions.of(ts, mediaType, false));
+            assertThatThrownBy(() -> new Sa2Ts.Executor().exec(sa2ts)).isInstanceOf(IOException.class);
+            assertThat(Files.size(ts.toPath())).isGreaterThan(0);
+            assertThatThrownBy(() -> XmlUtil.readValue(InputOptions.of(ts, mediaType), XmlTsCollection.class)).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    public void testPipe() throws Exception {
+        File in = folder.newFile();
+        File sa = folder.newFile();
+        File expected = folder.newFile();
+        File result = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+        new Ts2Sa.Executor().exec(getOptions(in, sa, false));
+        new Sa2Ts.Executor().exec(new Sa2Ts.Options(new StandardOptions(false, false, false), InputOptions.of(sa, XML_UTF_8), OutputOptions.of(expected, XML_UTF_8, false)));
+
+        PipeCommand pipe = new PipeCommand(o -> Optional.of(o.equals("ts2sa") ? Ts2Sa.CMD : Sa2Ts.CMD));
+        assertThat(pipe.exec(new String[]{"ts2sa", "-i", in.getPath(), "--spec", "RSA0", "--items", "sa,t", "!", "sa2ts", "-o", result.getPath()})).isEqualTo(0);
+
+        assertThat(Files.readAllLines(result.toPath())).isEqualTo(Files.readAllLines(expected.toPath()));
+    }
+
+    public static final class WorkerMain {
+
+        public static void main(String[] args) {
+            System.exit(Ts2Sa.CMD.exec(Arrays.copyOfRange(args, 1, args.length)));
+        }
+    }
+
+    @Test
+    public void testWorkers() throws Exception {
+        TsCollectionInformation sample = getSample();
+        assertSameWithWorkers(sample, 2);
+
+        // uneven shards of one and two series
+        TsInformation copy = new TsInformation();
+        copy.name = "copy";
+        copy.data = sample.items.get(2).data.times(2);
+        sample.items.add(1, copy);
+        assertThat(sample.items).hasSize(5);
+        assertSameWithWorkers(sample, 3);
+    }
+
+    private void assertSameWithWorkers(TsCollectionInformation sample, int workers) throws Exception {
+        File in = folder.newFile();
+        File single = folder.newFile();
+        File sharded = folder.newFile();
+
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, sample);
+        new Ts2Sa.Executor().exec(getOptions(in, single, false));
+
+        System.setProperty(WorkerProcess.MAIN_CLASS_PROPERTY, WorkerMain.class.getName());
+        try {
+            Ts2Sa.Options options = getOptions(in, sharded, false);
+            options.workers = workers;
+            new Ts2Sa.Executor().exec(options);
+        } finally {
+            System.clearProperty(WorkerProcess.MAIN_CLASS_PROPERTY);
+        }
+
+        assertThat(Files.readAllLines(sharded.toPath())).isEqualTo(Files.readAllLines(single.toPath()));
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        Ts2Sa.Executor app = new Ts2Sa.Executor();
+
+        File in = folder.newFile();
+        File expected = folder.newFile();
+        File result = folder.newFile();
+        File checkpoint = folder.newFolder();
+        Path journal = checkpoint.toPath().resolve("ts2sa.journal");
+
+        TsCollectionInformation sample = getSample();
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, sample);
+        app.exec(getOptions(in, expected, false));
+
+        Ts2Sa.Options options = getOptions(in, result, false);
+        options.checkpoint = checkpoint;
+        app.exec(options);
+        assertThat(Files.readAllLines(result.toPath())).isEqualTo(Files.readAllLines(expected.toPath()));
+
+        // a run killed while writing its last record
+        long size = Files.size(journal);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        app.exec(options);
+        assertThat(Files.readAllLines(result.toPath())).isEqualTo(Files.readAllLines(expected.toPath()));
+        assertThat(Files.size(journal)).isEqualTo(size);
+
+        options = getOptions(in, result, true);
+        options.checkpoint = checkpoint;
+        sample.items.get(0).data = sample.items.get(0).data.times(2);
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, sample);
+        app.exec(options);
+        assertThat(Files.size(journal)).isGreaterThan(size);
+        app.exec(getOptions(in, expected, true));
+        assertSameItems(read(result), read(expected));
+    }
+
+    @Test
+    public void testStore() throws Exception {
+        Ts2Sa.Executor app = new Ts2Sa.Executor();
+
+        File in = folder.newFile();
+        File first = folder.newFile();
+        File second = folder.newFile();
+        File store = folder.newFolder();
+
+        TsCollectionInformation sample = getSample();
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, sample);
+
+        Ts2Sa.Options options = getOptions(in, first, false);
+        options.store = store;
+        app.exec(options);
+
+        assertThat(countFiles(store)).isEqualTo(3);
+
+        sample.items.get(0).data = sample.items.get(0).data.times(2);
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, sample);
+
+        options = getOptions(in, second, true);
+        options.store = store;
+        app.exec(options);
+
+        assertThat(countFiles(store)).isEqualTo(4);
+
+        SaTool.SaTsCollection expected = read(first);
+        SaTool.SaTsCollection result = read(second);
+        assertThat(result.getItems()).hasSize(4);
+        assertThat(result.getItems().get(0).getData()).isNotEqualTo(expected.getItems().get(0).getData());
+        assertSameItems(result.getItems().subList(1, 4), expected.getItems().subList(1, 4));
+    }
+}
@@ -32,6 +32,7 @@ import org.openide.util.Lookup;
 public interface ChartTool {
 
     @lombok.Value
+    @lombok.AllArgsConstructor
     public static class Options {
 
         int width;
@@ -39,10 +40,41 @@ public interface ChartTool {
         String colorScheme;
         String title;
         boolean legendVisible;
+        /**
+         * Caps the number of points drawn per series at about twice the
+         * width of the chart. Off by default so that charts are drawn from all
+         * their points.
+         */
+        boolean downsampling;
+
+        public Options(int width, int height, String colorScheme, String title, boolean legendVisible) {
+            this(width, height, colorScheme, title, legendVisible, false);
+        }
+    }
+
+    /**
+     * A chart that is reused from one content to another. It is not
+     * thread-safe.
+     */
+    public interface Writer {
+
+        void write(@Nonnull TsCollectionInformation col, @Nonnull OutputStream stream, @Nonnull MediaType mediaType) throws IOException;
     }
 
     void writeChart(@Nonnull TsCollectionInformation col, @Nonnull Options options, @Nonnull OutputStream stream, @Nonnull MediaType mediaType) throws IOException;
 
+    /**
+     * Creates a writer of charts that share the same options. The default
+     * implementation creates a new chart for each content.
+     *
+     * @param options
+     * @return a non-null writer
+     */
+    @Nonnull
+    default Writer newWriter(@Nonnull Options options) {
+        return (col, stream, mediaType) -> writeChart(col, options, stream, mediaType);
+    }
+
     @Nonnull
     public static ChartTool getDefault() {
         return Lookup.getDefault().lookup(ChartTool.class);
@@ -55,17 +55,25 @@ public final class ChartToolImpl implements ChartTool {
 
     @Override
     public void writeChart(TsCollectionInformation col, Options options, OutputStream stream, MediaType mediaType) throws IOException {
+        newWriter(options).write(col, stream, mediaType);
+    }
+
+    @Override
+    public Writer newWriter(Options options) {
         JTimeSeriesChart chart = new JTimeSeriesChart();
-        applyContent(chart, col);
         applyOptions(chart, options);
-        chart.doLayout();
-        chart.writeImage(mediaType.withoutParameters().toString(), stream);
+        return (col, stream, mediaType) -> {
+            applyContent(chart, col, options);
+            applyTitle(chart, options);
+            chart.doLayout();
+            chart.writeImage(mediaType.withoutParameters().toString(), stream);
+        };
     }
 
     //<editor-fold defaultstate="collapsed" desc="Implementation details">
-    private void applyContent(JTimeSeriesChart chart, TsCollectionInformation info) {
+    private void applyContent(JTimeSeriesChart chart, TsCollectionInformation info, Options options) {
         chart.setTitle(info.name);
-        chart.setDataset(getDataset(info));
+        chart.setDataset(getDataset(info, options.isDownsampling() ? options.getWidth() : 0));
         chart.setSeriesFormatter(getSeriesFormatter(info));
         chart.setObsFormatter(getObsFormatter(info));
     }
@@ -73,10 +81,13 @@ public final class ChartToolImpl implements ChartTool {
     private void applyOptions(JTimeSeriesChart chart, Options options) {
         chart.setSize(options.getWidth(), options.getHeight());
         chart.setColorSchemeSupport(SwingColorSchemeSupport.from(getColorScheme(options.getColorScheme())));
+        chart.setElementVisible(TimeSeriesChart.Element.LEGEND, options.isLegendVisible());
+    }
+
+    private void applyTitle(JTimeSeriesChart chart, Options options) {
         if (!options.getTitle().isEmpty()) {
             chart.setTitle(options.getTitle());
         }
-        chart.setElementVisible(TimeSeriesChart.Element.LEGEND, options.isLegendVisible());
     }
 
     private ObsFunction<String> getObsFormatter(final TsCollectionInformation info) {
@@ -107,8 +118,8 @@ public final class ChartToolImpl implements ChartTool {
         return new SmartColorScheme();
     }
 
-    private IntervalXYDataset getDataset(TsCollectionInformation info) {
-        TsXYDatasets.Builder result = TsXYDatasets.builder();
+    private IntervalXYDataset getDataset(TsCollectionInformation info, int buckets) {
+        TsXYDatasets.Builder result = TsXYDatasets.builder().buckets(buckets);
         info.items.stream().filter(TsInformation::hasData).forEach((o) -> {
             result.add(o.name, o.data);
         });
@@ -133,6 +144,7 @@ public final class ChartToolImpl implements ChartTool {
             // Let's avoid duplicated keys.
             private final Set<Comparable<?>> keys = new HashSet<>();
             private final List<TsFacade> list = new ArrayList<>();
+            private int buckets = 0;
 
             private void checkKey(Comparable<?> key) {
                 Preconditions.checkNotNull(key, "Cannot add null key");
@@ -149,11 +161,24 @@ public final class ChartToolImpl implements ChartTool {
                 checkKey(key);
                 checkNotNull(data, "Data cannot be null");
                 if (!data.isEmpty()) {
-                    add(FastTs.create(key, data));
+                    add(downsample(FastTs.create(key, data), buckets));
                 }
                 return this;
             }
 
+            /**
+             * Sets the number of buckets used to downsample the series.
+             *
+             * @param buckets the number of buckets or zero to keep every
+             * observation
+             * @return this builder
+             */
+            @Nonnull
+            public Builder buckets(int buckets) {
+                this.buckets = buckets;
+                return this;
+            }
+
             @Nonnull
             public Builder clear() {
                 keys.clear();
@@ -311,6 +336,12 @@ public final class ChartToolImpl implements ChartTool {
             }
         }
 
+        private static TsFacade downsample(FastTs ts, int buckets) {
+            return buckets > 0 && ts.getItemCount() > 2L * buckets
+                    ? new SampledTs(ts, Downsampling.minMax(ts.data, buckets))
+                    : ts;
+        }
+
         private interface TsFacade {
 
             Comparable<?> getKey();
@@ -327,14 +358,58 @@ public final class ChartToolImpl implements ChartTool {
 
         }
 
+        /**
+         * A view on some observations of a series.
+         */
+        private static final class SampledTs implements TsFacade {
+
+            private final TsFacade delegate;
+            private final int[] indexes;
+
+            private SampledTs(@Nonnull TsFacade delegate, @Nonnull int[] indexes) {
+                this.delegate = delegate;
+                this.indexes = indexes;
+            }
+
+            @Override
+            public Comparable<?> getKey() {
+                return delegate.getKey();
+            }
+
+            @Override
+            public int getItemCount() {
+                return indexes.length;
+            }
+
+            @Override
+            public double getValue(int item) {
+                return delegate.getValue(indexes[item]);
+            }
+
+            @Override
+            public long getStartTimeInMillis(int item) {
+                return delegate.getStartTimeInMillis(indexes[item]);
+            }
+
+            @Override
+            public long getEndTimeInMillis(int item) {
+                return delegate.getEndTimeInMillis(indexes[item]);
+            }
+
+            @Override
+            public long getMiddleTimeInMillis(int item) {
+                return delegate.getMiddleTimeInMillis(indexes[item]);
+            }
+        }
+
         /**
          * A simple but efficient structure that holds every essential TS
          * information and data.
          */
         private static final class FastTs implements TsFacade {
 
-            // a shared calendar used in the event dispatch thread
-            private static final Calendar EDT_CALENDAR = Calendar.getInstance();
+            // a calendar per thread since charts might be rendered concurrently
+            private static final ThreadLocal<Calendar> CALENDAR = ThreadLocal.withInitial(Calendar::getInstance);
 
             // FACTORY METHODS
             @Nonnull
@@ -352,8 +427,8 @@ public final class ChartToolImpl implements ChartTool {
                 int freq = start.getFrequency().intValue();
                 int id = start.hashCode(); // quick&dirty hack
                 return (id >= 0)
-                        ? new FastTs(EDT_CALENDAR, key, freq, (1970 + id / freq), (id % freq), data)
-                        : new FastTs(EDT_CALENDAR, key, freq, (1969 + (1 + id) / freq), (freq - 1 + (1 + id) % freq), data);
+                        ? new FastTs(CALENDAR.get(), key, freq, (1970 + id / freq), (id % freq), data)
+                        : new FastTs(CALENDAR.get(), key, freq, (1969 + (1 + id) / freq), (freq - 1 + (1 + id) % freq), data);
             }
             // PROPERTIES
             private final Calendar cal;
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.chart;
+
+import java.util.Arrays;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Min/max bucketing of the observations of a series. The observations are
+ * split into buckets of about the same size (typically one bucket per pixel)
+ * and only the minimum and the maximum of each bucket are kept, so that the
+ * envelope of the curve is drawn as if every observation was there. The first
+ * missing value of a bucket is also kept so that the gaps remain visible.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+class Downsampling {
+
+    /**
+     * Selects the observations to draw.
+     *
+     * @param data
+     * @param buckets
+     * @return the indexes of the observations in ascending order; at most
+     * three per bucket plus the first and the last one
+     */
+    @Nonnull
+    int[] minMax(@Nonnull double[] data, @Nonnegative int buckets) {
+        if (data.length <= 2L * buckets || buckets == 0) {
+            return identity(data.length);
+        }
+        int[] result = new int[buckets * 3 + 2];
+        int size = 0;
+        result[size++] = 0;
+        for (int i = 0; i < buckets; i++) {
+            int start = (int) ((long) i * data.length / buckets);
+            int end = (int) ((long) (i + 1) * data.length / buckets);
+            int min = -1;
+            int max = -1;
+            int missing = -1;
+            for (int j = start; j < end; j++) {
+                double value = data[j];
+                if (Double.isNaN(value)) {
+                    if (missing == -1) {
+                        missing = j;
+                    }
+                } else {
+                    if (min == -1 || value < data[min]) {
+                        min = j;
+                    }
+                    if (max == -1 || value > data[max]) {
+                        max = j;
+                    }
+                }
+            }
+            size = addSorted(result, size, min, max, missing);
+        }
+        if (result[size - 1] != data.length - 1) {
+            result[size++] = data.length - 1;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private int[] identity(int length) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i;
+        }
+        return result;
+    }
+
+    private int addSorted(int[] result, int size, int... indexes) {
+        Arrays.sort(indexes);
+        for (int index : indexes) {
+            if (index != -1 && index != result[size - 1]) {
+                result[size++] = index;
+            }
+        }
+        return size;
+    }
+    //</editor-fold>
+}
@@ -21,6 +21,7 @@ import be.nbb.cli.command.core.OptionsExecutor;
 import be.nbb.cli.command.core.OptionsParsingCommand;
 import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newInputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
@@ -31,20 +32,36 @@ import be.nbb.cli.util.Utils;
 import static demetra.cli.helpers.Categories.IO_CATEGORY;
 import demetra.cli.helpers.XmlUtil;
 import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
 import ec.util.chart.impl.SmartColorScheme;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import static java.util.Arrays.asList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
 import org.openide.util.NbBundle;
 
 /**
- * Generates a chart from time series.
+ * Generates a chart from time series or one chart per series (or group of
+ * series) in a directory.
  *
  * @author Philippe Charles
  */
@@ -62,6 +79,10 @@ public final class Ts2Chart {
         public InputOptions input;
         public File outputFile;
         public ChartTool.Options chart;
+        public File outputDir;
+        public String format;
+        public String groupBy;
+        public int parallelism;
     }
 
     @VisibleForTesting
@@ -73,10 +94,125 @@ public final class Ts2Chart {
         public void exec(Options o) throws Exception {
             TsCollectionInformation input = XmlUtil.readValue(o.input, XmlTsCollection.class);
 
+            if (o.outputDir != null) {
+                execBatch(o, input);
+                return;
+            }
+
             try (OutputStream stream = Files.newOutputStream(o.outputFile.toPath())) {
                 tool.writeChart(input, o.chart, stream, Utils.getMediaType(o.outputFile).orElse(MediaType.SVG_UTF_8));
             }
         }
+
+        private void execBatch(Options o, TsCollectionInformation input) throws IOException {
+            MediaType mediaType = Utils.getMediaType(new File("chart." + o.format))
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported format '" + o.format + "'"));
+            List<TsCollectionInformation> charts = split(input, o.groupBy);
+            Files.createDirectories(o.outputDir.toPath());
+
+            long start = System.nanoTime();
+            writeCharts(tool, charts, o.chart, mediaType, i -> new File(o.outputDir, getFileName(i, charts.size(), charts.get(i).name, o.format)).toPath(), o.parallelism);
+
+            if (o.so.isVerbose()) {
+                long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                System.err.println("Wrote " + charts.size() + " charts in " + millis + "ms (" + (charts.size() * 1000L / millis) + " charts/s)");
+            }
+        }
+
+        /**
+         * Splits a collection into one collection per series or per value of
+         * a metadata property, keeping the order of the series.
+         *
+         * @param input
+         * @param groupBy a metadata property or null to have one chart per
+         * series
+         * @return a non-null list
+         */
+        @VisibleForTesting
+        static List<TsCollectionInformation> split(TsCollectionInformation input, String groupBy) {
+            if (groupBy == null) {
+                return input.items.stream()
+                        .map(o -> newChart(o.name, Collections.singletonList(o)))
+                        .collect(Collectors.toList());
+            }
+            return input.items.stream()
+                    .collect(Collectors.groupingBy(o -> getGroup(o, groupBy), LinkedHashMap::new, Collectors.toList()))
+                    .entrySet().stream()
+                    .map(o -> newChart(o.getKey(), o.getValue()))
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Writes charts concurrently on a bounded pool of headless workers
+         * that reuse one chart each.
+         *
+         * @param tool
+         * @param charts
+         * @param options
+         * @param mediaType
+         * @param files the file of each chart by index
+         * @param parallelism
+         * @throws IOException
+         */
+        @VisibleForTesting
+        static void writeCharts(ChartTool tool, List<TsCollectionInformation> charts, ChartTool.Options options, MediaType mediaType, IntFunction<Path> files, int parallelism) throws IOException {
+            // must be set before the first use of AWT
+            if (System.getProperty("java.awt.headless") == null) {
+                System.setProperty("java.awt.headless", "true");
+            }
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+                Thread result = new Thread(runnable, "ts2chart-worker");
+                result.setDaemon(true);
+                return result;
+            });
+            ThreadLocal<ChartTool.Writer> writers = ThreadLocal.withInitial(() -> tool.newWriter(options));
+            try {
+                CompletableFuture<?>[] tasks = IntStream.range(0, charts.size())
+                        .mapToObj(i -> CompletableFuture.runAsync(() -> write(writers.get(), charts.get(i), files.apply(i), mediaType), pool))
+                        .toArray(CompletableFuture<?>[]::new);
+                CompletableFuture.allOf(tasks).join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) ex.getCause()).getCause();
+                }
+                throw ex;
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        private static void write(ChartTool.Writer writer, TsCollectionInformation col, Path file, MediaType mediaType) {
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file))) {
+                writer.write(col, stream, mediaType);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private static TsCollectionInformation newChart(String name, List<TsInformation> items) {
+            TsCollectionInformation result = new TsCollectionInformation();
+            result.name = name;
+            result.items.addAll(items);
+            return result;
+        }
+
+        private static String getGroup(TsInformation ts, String groupBy) {
+            String result = ts.metaData != null ? ts.metaData.get(groupBy) : null;
+            return result != null ? result : "";
+        }
+
+        // the index keeps the names unique and in the order of the input
+        @VisibleForTesting
+        static String getFileName(int index, int count, String name, String format) {
+            String prefix = String.format("%0" + String.valueOf(Math.max(0, count - 1)).length() + "d", index);
+            String suffix = name != null ? name.replaceAll("[^\\w.-]+", "_") : "";
+            if (suffix.length() > MAX_NAME_LENGTH) {
+                suffix = suffix.substring(0, MAX_NAME_LENGTH);
+            }
+            return prefix + (suffix.isEmpty() ? "" : "-" + suffix) + "." + format;
+        }
+
+        private static final int MAX_NAME_LENGTH = 64;
     }
 
     @VisibleForTesting
@@ -86,14 +222,29 @@ public final class Ts2Chart {
         private final ComposedOptionSpec<InputOptions> input = newInputOptionsSpec(parser);
         private final OptionSpec<File> outputFile = parser.nonOptions("Output file").ofType(File.class);
         private final ComposedOptionSpec<ChartTool.Options> chart = new ChartOptionsSpec(parser);
+        private final OptionSpec<File> outputDir = parser
+                .accepts("output-dir", Bundle.ts2chart_outputDir())
+                .withRequiredArg()
+                .ofType(File.class);
+        private final OptionSpec<String> format = parser
+                .accepts("format", Bundle.ts2chart_format())
+                .withRequiredArg()
+                .ofType(String.class)
+                .defaultsTo("png");
+        private final OptionSpec<String> groupBy = parser
+                .accepts("group-by", Bundle.ts2chart_groupBy())
+                .withRequiredArg()
+                .ofType(String.class);
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser);
 
         @Override
         protected Options parse(OptionSet o) {
             File nonOptionFile = outputFile.value(o);
-            if (nonOptionFile == null) {
+            if (nonOptionFile == null && !o.has(outputDir)) {
                 throw new IllegalArgumentException("Missing output file");
             }
-            return new Options(so.value(o), input.value(o), outputFile.value(o), chart.value(o));
+            return new Options(so.value(o), input.value(o), nonOptionFile, chart.value(o),
+                    outputDir.value(o), format.value(o), groupBy.value(o), parallelism.value(o));
         }
     }
 
@@ -102,7 +253,11 @@ public final class Ts2Chart {
         "ts2chart.height=Height in px",
         "ts2chart.colorScheme=Color scheme name",
         "ts2chart.title=Title",
-        "ts2chart.legend=Show legend"
+        "ts2chart.legend=Show legend",
+        "ts2chart.downsampling=Draw at most about two points per pixel of width for each series",
+        "ts2chart.outputDir=Directory in which one chart per series (or group) is written instead of a single output file",
+        "ts2chart.format=Image format of the charts written in the output directory (png, jpeg or svg)",
+        "ts2chart.groupBy=Metadata property whose values group the series in the output directory"
     })
     private static final class ChartOptionsSpec implements ComposedOptionSpec<ChartTool.Options> {
 
@@ -111,6 +266,7 @@ public final class Ts2Chart {
         private final OptionSpec<String> colorScheme;
         private final OptionSpec<String> title;
         private final OptionSpec<Boolean> legend;
+        private final OptionSpec<Void> downsampling;
 
         public ChartOptionsSpec(OptionParser p) {
             this.width = p
@@ -137,11 +293,13 @@ public final class Ts2Chart {
                     .withRequiredArg()
                     .ofType(Boolean.class)
                     .defaultsTo(Boolean.TRUE);
+            this.downsampling = p
+                    .accepts("downsampling", Bundle.ts2chart_downsampling());
         }
 
         @Override
         public ChartTool.Options value(OptionSet o) {
-            return new ChartTool.Options(width.value(o), height.value(o), colorScheme.value(o), o.has(title) ? title.value(o) : "", legend.value(o));
+            return new ChartTool.Options(width.value(o), height.value(o), colorScheme.value(o), o.has(title) ? title.value(o) : "", legend.value(o), o.has(downsampling));
         }
     }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.chart;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class DownsamplingTest {
+
+    @Test
+    public void testMinMax() {
+        assertThat(Downsampling.minMax(new double[]{1, 2, 3}, 0)).containsExactly(0, 1, 2);
+        assertThat(Downsampling.minMax(new double[]{1, 2, 3, 4}, 2)).containsExactly(0, 1, 2, 3);
+
+        double[] data = {5, 1, 9, 3, 2, 8, 7, 4, 6, 0};
+        assertThat(Downsampling.minMax(data, 2)).containsExactly(0, 1, 2, 5, 9);
+
+        double[] gaps = {1, Double.NaN, Double.NaN, 2, 3, 4, 5, 6};
+        assertThat(Downsampling.minMax(gaps, 2)).containsExactly(0, 1, 3, 4, 7);
+    }
+
+    @Test
+    public void testBounds() {
+        double[] data = IntStream.range(0, 100_000).mapToDouble(o -> Math.sin(o / 100.0)).toArray();
+        int[] indexes = Downsampling.minMax(data, 400);
+
+        assertThat(indexes.length).isLessThanOrEqualTo(2 * 400 + 2);
+        assertThat(indexes).isSorted().startsWith(0).endsWith(data.length - 1);
+        assertThat(Arrays.stream(indexes).mapToDouble(o -> data[o]).max().getAsDouble())
+                .isEqualTo(Arrays.stream(data).max().getAsDouble());
+        assertThat(Arrays.stream(indexes).mapToDouble(o -> data[o]).min().getAsDouble())
+                .isEqualTo(Arrays.stream(data).min().getAsDouble());
+    }
+}
@@ -16,10 +16,14 @@
  */
 package demetra.cli.chart;
 
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tstoolkit.MetaData;
 import ec.util.chart.impl.SmartColorScheme;
 import java.io.File;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import org.junit.Test;
 
 /**
@@ -39,5 +43,52 @@ public class Ts2ChartTest {
                 .isEqualTo(new ChartTool.Options(400, 300, SmartColorScheme.NAME, "", true));
         assertThat(p.parse("img.jpeg", "-w=100", "-h=200", "-c=hello", "-t=my_title", "-l=false").chart)
                 .isEqualTo(new ChartTool.Options(100, 200, "hello", "my_title", false));
+        assertThat(p.parse("img.jpeg").chart.isDownsampling()).isFalse();
+        assertThat(p.parse("img.jpeg", "--downsampling").chart)
+                .isEqualTo(new ChartTool.Options(400, 300, SmartColorScheme.NAME, "", true, true));
+
+        assertThat(p.parse("--output-dir", "charts")).satisfies(o -> {
+            assertThat(o.outputFile).isNull();
+            assertThat(o.outputDir).isEqualTo(new File("charts"));
+            assertThat(o.format).isEqualTo("png");
+            assertThat(o.groupBy).isNull();
+        });
+        assertThat(p.parse("--output-dir", "charts", "--format", "svg", "--group-by", "region", "--threads", "3")).satisfies(o -> {
+            assertThat(o.format).isEqualTo("svg");
+            assertThat(o.groupBy).isEqualTo("region");
+            assertThat(o.parallelism).isEqualTo(3);
+        });
+    }
+
+    @Test
+    public void testSplit() {
+        TsCollectionInformation col = new TsCollectionInformation();
+        col.items.add(newTs("a", "north"));
+        col.items.add(newTs("b", null));
+        col.items.add(newTs("c", "north"));
+
+        assertThat(Ts2Chart.Executor.split(col, null))
+                .extracting(o -> o.name, o -> o.items.size())
+                .containsExactly(tuple("a", 1), tuple("b", 1), tuple("c", 1));
+
+        assertThat(Ts2Chart.Executor.split(col, "region"))
+                .extracting(o -> o.name, o -> o.items.size())
+                .containsExactly(tuple("north", 2), tuple("", 1));
+    }
+
+    @Test
+    public void testFileName() {
+        assertThat(Ts2Chart.Executor.getFileName(3, 1000, "a/b c", "png")).isEqualTo("003-a_b_c.png");
+        assertThat(Ts2Chart.Executor.getFileName(0, 1, "", "svg")).isEqualTo("0.svg");
+    }
+
+    private static TsInformation newTs(String name, String region) {
+        TsInformation result = new TsInformation();
+        result.name = name;
+        if (region != null) {
+            result.metaData = new MetaData();
+            result.metaData.put("region", region);
+        }
+        return result;
     }
 }
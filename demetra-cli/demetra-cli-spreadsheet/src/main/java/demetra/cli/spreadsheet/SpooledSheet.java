@@ -0,0 +1,376 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.spreadsheet;
+
+import be.nbb.cli.util.ItemReader;
+import ec.tss.TsInformation;
+import ec.tss.tsproviders.spreadsheet.engine.TsExportOptions;
+import ec.tss.xml.XmlTs;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsDataTable;
+import ec.tstoolkit.timeseries.simplets.TsDataTableInfo;
+import ec.tstoolkit.timeseries.simplets.TsDomain;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import ec.tstoolkit.timeseries.simplets.TsPeriod;
+import ec.util.spreadsheet.Book;
+import ec.util.spreadsheet.Cell;
+import ec.util.spreadsheet.Sheet;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * A sheet of time series whose values are spooled to a temporary file instead
+ * of being held in memory. The series are read once to find their common
+ * domain and are then aligned on that domain in a second file from which the
+ * cells are read on demand, one window of rows at a time, by a row-window
+ * writer.
+ * <p>
+ * The layout is the one of
+ * {@link ec.tss.tsproviders.spreadsheet.engine.SpreadSheetFactory#fromTsCollectionInfo}.
+ *
+ * @author Philippe Charles
+ */
+final class SpooledSheet extends Sheet implements Closeable {
+
+    @Nonnull
+    static SpooledSheet of(@Nonnull ItemReader<?, XmlTs> reader, @Nonnull TsExportOptions options) throws IOException {
+        Path raw = Files.createTempFile("ts2spreadsheet", ".tmp");
+        try {
+            List<String> names = new ArrayList<>();
+            Map<TsFrequency, TsDomain> domains = new EnumMap<>(TsFrequency.class);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(raw)))) {
+                XmlTs item;
+                while ((item = reader.read()) != null) {
+                    TsInformation info = item.create();
+                    names.add(info.name);
+                    writeData(out, info.data);
+                    if (info.data != null && !info.data.isEmpty()) {
+                        domains.merge(info.data.getFrequency(), info.data.getDomain(), TsDomain::union);
+                    }
+                }
+            }
+            TsDomain domain = getDomain(domains);
+            Path aligned = Files.createTempFile("ts2spreadsheet", ".tmp");
+            try {
+                if (domain != null) {
+                    align(raw, aligned, names.size(), domain);
+                }
+                return new SpooledSheet(names, domain, options, aligned, FileChannel.open(aligned, StandardOpenOption.READ));
+            } catch (IOException | RuntimeException ex) {
+                Files.deleteIfExists(aligned);
+                throw ex;
+            }
+        } finally {
+            Files.deleteIfExists(raw);
+        }
+    }
+
+    private final List<String> names;
+    private final TsDomain domain;
+    private final TsExportOptions options;
+    private final Path file;
+    private final FileChannel channel;
+    private final Window window;
+    private final ValueCell cell;
+
+    private SpooledSheet(List<String> names, TsDomain domain, TsExportOptions options, Path file, FileChannel channel) {
+        this.names = names;
+        this.domain = domain;
+        this.options = options;
+        this.file = file;
+        this.channel = channel;
+        this.window = options.isVertical()
+                ? new Window(names.size(), Math.min(WINDOW_PERIODS, getLength()))
+                : new Window(1, getLength());
+        this.cell = new ValueCell();
+    }
+
+    @Nonnull
+    Book toBook() {
+        return new Book() {
+            @Override
+            public int getSheetCount() {
+                return 1;
+            }
+
+            @Override
+            public Sheet getSheet(int index) throws IndexOutOfBoundsException {
+                if (index != 0) {
+                    throw new IndexOutOfBoundsException();
+                }
+                return SpooledSheet.this;
+            }
+        };
+    }
+
+    @Override
+    public int getRowCount() {
+        return options.isVertical() ? getVerticalRowCount() : getVerticalColumnCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return options.isVertical() ? getVerticalColumnCount() : getVerticalRowCount();
+    }
+
+    @Override
+    public Cell getCell(int row, int column) throws IndexOutOfBoundsException {
+        Object value = getCellValue(row, column);
+        return value != null ? cell.withValue(value) : null;
+    }
+
+    @Override
+    public Object getCellValue(int row, int column) throws IndexOutOfBoundsException {
+        return options.isVertical() ? getVerticalValue(row, column) : getVerticalValue(column, row);
+    }
+
+    @Override
+    public String getName() {
+        return "dnd";
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    // periods of all the series kept at once when the series are in columns
+    private static final int WINDOW_PERIODS = 256;
+
+    private int getLength() {
+        return domain != null ? domain.getLength() : 0;
+    }
+
+    private int getTitleRows() {
+        return domain != null && options.isShowTitle() ? 1 : 0;
+    }
+
+    private int getDateColumns() {
+        return domain != null && options.isShowDates() ? 1 : 0;
+    }
+
+    private int getVerticalRowCount() {
+        return domain != null ? getTitleRows() + getLength() : 0;
+    }
+
+    private int getVerticalColumnCount() {
+        return domain != null ? getDateColumns() + names.size() : 0;
+    }
+
+    private Object getVerticalValue(int row, int column) {
+        int period = row - getTitleRows();
+        int series = column - getDateColumns();
+        if (period < 0) {
+            return series < 0 ? null : names.get(series);
+        }
+        if (series < 0) {
+            TsPeriod p = domain.get(period);
+            return (options.isBeginPeriod() ? p.firstday() : p.lastday()).getTime();
+        }
+        double value = getValue(series, period);
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private double getValue(int series, int period) {
+        try {
+            if (options.isVertical()) {
+                window.load(channel, 0, names.size(), period - period % window.periods, getLength());
+            } else {
+                window.load(channel, series, 1, 0, getLength());
+            }
+            return window.get(series, period);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeData(DataOutputStream out, TsData data) throws IOException {
+        out.writeBoolean(data != null);
+        if (data != null) {
+            TsPeriod start = data.getStart();
+            out.writeInt(start.getFrequency().intValue());
+            out.writeInt(start.getYear());
+            out.writeInt(start.getPosition());
+            out.writeInt(data.getLength());
+            for (int i = 0; i < data.getLength(); i++) {
+                out.writeDouble(data.get(i));
+            }
+        }
+    }
+
+    private static TsData readData(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        TsFrequency freq = TsFrequency.valueOf(in.readInt());
+        int year = in.readInt();
+        int position = in.readInt();
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+        return new TsData(freq, year, position, values, false);
+    }
+
+    private static TsDomain getDomain(Map<TsFrequency, TsDomain> domains) {
+        if (domains.isEmpty()) {
+            return null;
+        }
+        TsDataTable table = new TsDataTable();
+        domains.values().forEach(o -> table.add(new TsData(o)));
+        return table.getDomain();
+    }
+
+    // the values of a series are aligned through a table that also spans the whole domain
+    private static void align(Path raw, Path aligned, int count, TsDomain domain) throws IOException {
+        TsData span = new TsData(domain);
+        TsDataTable table = new TsDataTable();
+        ByteBuffer buffer = ByteBuffer.allocate(domain.getLength() * Double.BYTES);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(raw)));
+                FileChannel out = FileChannel.open(aligned, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < count; i++) {
+                TsData data = readData(in);
+                table.clear();
+                table.add(span);
+                table.add(data);
+                buffer.clear();
+                for (int j = 0; j < domain.getLength(); j++) {
+                    buffer.putDouble(data != null && table.getDataInfo(j, 1) == TsDataTableInfo.Valid ? table.getData(j, 1) : Double.NaN);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * The values of a range of series over a range of periods.
+     */
+    private static final class Window {
+
+        private final double[][] values;
+        private final int periods;
+        private final ByteBuffer buffer;
+        private int firstSeries;
+        private int firstPeriod;
+
+        Window(int series, int periods) {
+            this.values = new double[series][periods];
+            this.periods = periods;
+            this.buffer = ByteBuffer.allocate(periods * Double.BYTES);
+            this.firstSeries = -1;
+            this.firstPeriod = -1;
+        }
+
+        void load(FileChannel channel, int firstSeries, int seriesCount, int firstPeriod, int length) throws IOException {
+            if (this.firstSeries == firstSeries && this.firstPeriod == firstPeriod) {
+                return;
+            }
+            int count = Math.min(periods, length - firstPeriod);
+            for (int i = 0; i < seriesCount; i++) {
+                buffer.clear().limit(count * Double.BYTES);
+                long position = ((long) (firstSeries + i) * length + firstPeriod) * Double.BYTES;
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) == -1) {
+                        throw new IOException("Unexpected end of file");
+                    }
+                }
+                buffer.flip();
+                buffer.asDoubleBuffer().get(values[i], 0, count);
+            }
+            this.firstSeries = firstSeries;
+            this.firstPeriod = firstPeriod;
+        }
+
+        double get(int series, int period) {
+            return values[series - firstSeries][period - firstPeriod];
+        }
+    }
+
+    private static final class ValueCell extends Cell {
+
+        private Object value;
+
+        ValueCell withValue(Object value) {
+            this.value = value;
+            return this;
+        }
+
+        @Override
+        public boolean isNumber() {
+            return value instanceof Number;
+        }
+
+        @Override
+        public boolean isString() {
+            return value instanceof String;
+        }
+
+        @Override
+        public boolean isDate() {
+            return value instanceof Date;
+        }
+
+        @Override
+        public Number getNumber() throws UnsupportedOperationException {
+            if (!isNumber()) {
+                throw new UnsupportedOperationException();
+            }
+            return (Number) value;
+        }
+
+        @Override
+        public String getString() throws UnsupportedOperationException {
+            if (!isString()) {
+                throw new UnsupportedOperationException();
+            }
+            return (String) value;
+        }
+
+        @Override
+        public Date getDate() throws UnsupportedOperationException {
+            if (!isDate()) {
+                throw new UnsupportedOperationException();
+            }
+            return (Date) value;
+        }
+    }
+    //</editor-fold>
+}
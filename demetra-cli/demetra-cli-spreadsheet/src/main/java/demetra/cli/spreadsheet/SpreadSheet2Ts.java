@@ -21,23 +21,47 @@ import be.nbb.cli.command.core.OptionsExecutor;
 import be.nbb.cli.command.core.OptionsParsingCommand;
 import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newOutputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
 import be.nbb.cli.util.OutputOptions;
 import be.nbb.cli.util.StandardOptions;
 import be.nbb.demetra.toolset.ProviderTool;
+import com.google.common.base.StandardSystemProperty;
+import com.google.common.collect.Streams;
 import static demetra.cli.helpers.Categories.IO_CATEGORY;
 import demetra.cli.helpers.XmlUtil;
 import demetra.cli.tsproviders.TsDataBuild;
 import demetra.cli.tsproviders.TsProviderOptionSpecs;
 import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.TsInformationType;
+import ec.tss.tsproviders.DataSet;
+import ec.tss.tsproviders.DataSource;
 import ec.tss.tsproviders.spreadsheet.SpreadSheetBean;
 import ec.tss.tsproviders.spreadsheet.SpreadSheetProvider;
+import ec.tss.tsproviders.spreadsheet.engine.SpreadSheetFactory;
+import ec.tss.tsproviders.spreadsheet.engine.TsImportOptions;
 import ec.tss.tsproviders.utils.DataFormat;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
+import ec.util.spreadsheet.Book;
+import ec.util.spreadsheet.Sheet;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -61,18 +85,97 @@ public final class SpreadSheet2Ts {
         StandardOptions so;
         public SpreadSheetBean input;
         public OutputOptions output;
+        public int parallelism;
     }
 
     @VisibleForTesting
     static final class Executor implements OptionsExecutor<Options> {
 
+        final SpreadSheetFactory sheetFactory = SpreadSheetFactory.getDefault();
+        final Supplier<Iterable<Book.Factory>> factories = () -> ServiceLoader.load(Book.Factory.class);
+
         @Override
         public void exec(Options o) throws Exception {
             try (SpreadSheetProvider p = new SpreadSheetProvider()) {
-                TsCollectionInformation result = ProviderTool.of(p).withWorkingDir().get(p.getSource(), o.input);
+                TsCollectionInformation result = o.parallelism > 1
+                        ? loadBySheet(p, o.input, o.parallelism)
+                        : ProviderTool.of(p).withWorkingDir().get(p.getSource(), o.input);
                 XmlUtil.writeValue(o.output, XmlTsCollection.class, result);
             }
         }
+
+        /**
+         * Parses the sheets of a workbook independently on several threads.
+         * Each thread opens its own book and parses one sheet at a time so
+         * that the whole workbook never has to be held in memory.
+         */
+        private TsCollectionInformation loadBySheet(SpreadSheetProvider p, SpreadSheetBean bean, int parallelism) throws IOException {
+            File file = resolve(bean.getFile());
+            Book.Factory factory = getFactory(file)
+                    .orElseThrow(() -> new IllegalArgumentException("Cannot handle file '" + file.toString() + "'"));
+            TsImportOptions options = TsImportOptions.create(bean.getDataFormat(), bean.getFrequency(), bean.getAggregationType(), bean.isCleanMissing());
+            DataSource dataSource = p.encodeBean(bean);
+
+            int sheetCount;
+            try (Book book = factory.load(file)) {
+                sheetCount = book.getSheetCount();
+            }
+            TsCollectionInformation[] sheets = new TsCollectionInformation[sheetCount];
+            AtomicInteger next = new AtomicInteger();
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(parallelism, sheetCount)));
+            try {
+                List<CompletableFuture<Void>> workers = new ArrayList<>();
+                for (int i = 0; i < pool.getParallelism(); i++) {
+                    workers.add(CompletableFuture.runAsync(() -> {
+                        try (Book book = factory.load(file)) {
+                            int index;
+                            while ((index = next.getAndIncrement()) < sheetCount) {
+                                sheets[index] = toCollection(p, dataSource, book.getSheet(index), options);
+                            }
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }, pool));
+                }
+                CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[workers.size()])).join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) ex.getCause()).getCause();
+                }
+                throw ex;
+            } finally {
+                pool.shutdown();
+            }
+
+            TsCollectionInformation result = new TsCollectionInformation(p.toMoniker(dataSource), TsInformationType.All);
+            Arrays.stream(sheets).forEach(o -> result.items.addAll(o.items));
+            return result;
+        }
+
+        // names and monikers are those of the provider so that both ways give the same output
+        private TsCollectionInformation toCollection(SpreadSheetProvider p, DataSource dataSource, Sheet sheet, TsImportOptions options) {
+            TsCollectionInformation result = sheetFactory.toTsCollectionInfo(sheet, options);
+            for (TsInformation o : result.items) {
+                DataSet.Builder builder = DataSet.builder(dataSource, DataSet.Kind.SERIES);
+                SpreadSheetProvider.Y_SHEETNAME.set(builder, sheet.getName());
+                SpreadSheetProvider.Z_SERIESNAME.set(builder, o.name);
+                DataSet dataSet = builder.build();
+                o.name = p.getDisplayName(dataSet);
+                o.moniker = p.toMoniker(dataSet);
+                o.type = TsInformationType.All;
+            }
+            return result;
+        }
+
+        private Optional<Book.Factory> getFactory(File file) {
+            return Streams.stream(factories.get())
+                    .filter(o -> o.canLoad() && o.accept(file))
+                    .max(Comparator.comparingInt(Book.Factory::getRank));
+        }
+
+        private static File resolve(File file) {
+            return file.isAbsolute() ? file : new File(StandardSystemProperty.USER_DIR.value(), file.getPath());
+        }
     }
 
     @VisibleForTesting
@@ -81,10 +184,11 @@ public final class SpreadSheet2Ts {
         private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
         private final ComposedOptionSpec<SpreadSheetBean> input = new SpreadSheetOptionsSpec(parser);
         private final ComposedOptionSpec<OutputOptions> output = newOutputOptionsSpec(parser);
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser, 1);
 
         @Override
         protected Options parse(OptionSet o) {
-            return new Options(so.value(o), input.value(o), output.value(o));
+            return new Options(so.value(o), input.value(o), output.value(o), parallelism.value(o));
         }
     }
 
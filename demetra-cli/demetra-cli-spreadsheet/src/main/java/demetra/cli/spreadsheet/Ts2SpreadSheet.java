@@ -25,13 +25,16 @@ import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOption
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
 import be.nbb.cli.util.InputOptions;
+import be.nbb.cli.util.ItemReader;
 import be.nbb.cli.util.StandardOptions;
 import com.google.common.collect.Streams;
 import static demetra.cli.helpers.Categories.IO_CATEGORY;
+import static demetra.cli.helpers.DemetraMediaTypes.isLineDelimited;
 import demetra.cli.helpers.XmlUtil;
 import ec.tss.TsCollectionInformation;
 import ec.tss.tsproviders.spreadsheet.engine.SpreadSheetFactory;
 import ec.tss.tsproviders.spreadsheet.engine.TsExportOptions;
+import ec.tss.xml.XmlTs;
 import ec.tss.xml.XmlTsCollection;
 import ec.tstoolkit.design.VisibleForTesting;
 import ec.util.spreadsheet.Book;
@@ -44,6 +47,7 @@ import java.util.function.Supplier;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import org.openide.util.NbBundle;
 
 /**
  * Converts time series to a spreadsheet file.
@@ -64,6 +68,7 @@ public final class Ts2SpreadSheet {
         public InputOptions input;
         public File outputFile;
         public TsExportOptions exportOptions;
+        public boolean streaming;
     }
 
     @VisibleForTesting
@@ -74,10 +79,25 @@ public final class Ts2SpreadSheet {
 
         @Override
         public void exec(Options o) throws Exception {
-            TsCollectionInformation info = XmlUtil.readValue(o.input, XmlTsCollection.class);
-            Book.Factory factory = getFactory(o.outputFile)
-                    .orElseThrow(() -> new IllegalArgumentException("Cannot handle file '" + o.outputFile.toString() + "'"));
-            store(factory, info, o.outputFile, o.exportOptions);
+            if (o.streaming || isLineDelimited(o.input.getMediaType())) {
+                execStreaming(o);
+            } else {
+                TsCollectionInformation info = XmlUtil.readValue(o.input, XmlTsCollection.class);
+                store(getStoreFactory(o.outputFile), info, o.outputFile, o.exportOptions);
+            }
+        }
+
+        private void execStreaming(Options o) throws Exception {
+            Book.Factory factory = getStoreFactory(o.outputFile);
+            try (ItemReader<XmlTsCollection, XmlTs> reader = o.input.openReader(XmlTsCollection.class, XmlTs.class);
+                    SpooledSheet sheet = SpooledSheet.of(reader, o.exportOptions)) {
+                factory.store(o.outputFile, sheet.toBook());
+            }
+        }
+
+        private Book.Factory getStoreFactory(File file) {
+            return getFactory(file)
+                    .orElseThrow(() -> new IllegalArgumentException("Cannot handle file '" + file.toString() + "'"));
         }
 
         private Optional<Book.Factory> getFactory(File file) {
@@ -93,12 +113,16 @@ public final class Ts2SpreadSheet {
     }
 
     @VisibleForTesting
+    @NbBundle.Messages({
+        "ts2spreadsheet.streaming=Reads the time series one at a time and spools them to a temporary file instead of building the whole sheet in memory (implied by a newline-delimited input)"
+    })
     static final class Parser extends JOptSimpleParser<Options> {
 
         private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
         private final ComposedOptionSpec<InputOptions> input = newInputOptionsSpec(parser);
         private final OptionSpec<File> outputFile = parser.nonOptions("Output file").ofType(File.class);
         private final ComposedOptionSpec<TsExportOptions> exportOptions = new TsExportOptionsSpec(parser);
+        private final OptionSpec<Void> streaming = parser.accepts("stream", Bundle.ts2spreadsheet_streaming());
 
         @Override
         protected Options parse(OptionSet o) {
@@ -106,7 +130,7 @@ public final class Ts2SpreadSheet {
             if (nonOptionFile == null) {
                 throw new IllegalArgumentException("Missing output file");
             }
-            return new Options(so.value(o), input.value(o), nonOptionFile, exportOptions.value(o));
+            return new Options(so.value(o), input.value(o), nonOptionFile, exportOptions.value(o), o.has(streaming));
         }
     }
 
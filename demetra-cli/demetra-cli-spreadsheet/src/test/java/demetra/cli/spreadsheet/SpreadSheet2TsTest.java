@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.spreadsheet;
+
+import be.nbb.cli.util.InputOptions;
+import static be.nbb.cli.util.MediaType.XML_UTF_8;
+import be.nbb.cli.util.OutputOptions;
+import be.nbb.cli.util.StandardOptions;
+import demetra.cli.helpers.XmlUtil;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.TsInformationType;
+import ec.tss.TsMoniker;
+import ec.tss.tsproviders.spreadsheet.SpreadSheetBean;
+import ec.tss.tsproviders.spreadsheet.engine.SpreadSheetFactory;
+import ec.tss.tsproviders.spreadsheet.engine.TsExportOptions;
+import ec.tss.tsproviders.utils.DataFormat;
+import ec.tss.xml.XmlTsCollection;
+import ec.tstoolkit.timeseries.TsAggregationType;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import ec.util.spreadsheet.Book;
+import ec.util.spreadsheet.helpers.ArrayBook;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ServiceLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class SpreadSheet2TsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static File createWorkbook(File file, int sheetCount) throws IOException {
+        SpreadSheetFactory factory = SpreadSheetFactory.getDefault();
+        ArrayBook.Builder book = ArrayBook.builder();
+        for (int i = 0; i < sheetCount; i++) {
+            TsCollectionInformation col = new TsCollectionInformation();
+            for (int j = 0; j < 3; j++) {
+                TsInformation ts = new TsInformation("s" + i + "_" + j, new TsMoniker(), TsInformationType.Data);
+                ts.data = TsData.random(TsFrequency.Monthly);
+                col.items.add(ts);
+            }
+            book.sheet(factory.fromTsCollectionInfo(col, TsExportOptions.getDefault()).rename("sheet" + i));
+        }
+        for (Book.Factory o : ServiceLoader.load(Book.Factory.class)) {
+            if (o.canStore() && o.accept(file)) {
+                o.store(file, book.build());
+                return file;
+            }
+        }
+        throw new IOException("Cannot store '" + file + "'");
+    }
+
+    static SpreadSheet2Ts.Options getOptions(File in, File out, int parallelism) {
+        SpreadSheetBean bean = new SpreadSheetBean();
+        bean.setFile(in);
+        bean.setDataFormat(DataFormat.DEFAULT);
+        bean.setFrequency(TsFrequency.Undefined);
+        bean.setAggregationType(TsAggregationType.None);
+        bean.setCleanMissing(true);
+        return new SpreadSheet2Ts.Options(new StandardOptions(false, false, false), bean, OutputOptions.of(out, XML_UTF_8, false), parallelism);
+    }
+
+    static TsCollectionInformation read(File file) throws IOException {
+        return XmlUtil.readValue(InputOptions.of(file, XML_UTF_8), XmlTsCollection.class);
+    }
+
+    @Test
+    public void testParallelism() throws Exception {
+        File in = new File(folder.getRoot(), "data.xlsx");
+        createWorkbook(in, 5);
+
+        File expected = folder.newFile();
+        new SpreadSheet2Ts.Executor().exec(getOptions(in, expected, 1));
+
+        File actual = folder.newFile();
+        new SpreadSheet2Ts.Executor().exec(getOptions(in, actual, 3));
+
+        assertThat(read(expected).items).hasSize(15);
+        assertThat(Files.readAllBytes(actual.toPath())).isEqualTo(Files.readAllBytes(expected.toPath()));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.spreadsheet;
+
+import be.nbb.cli.util.InputOptions;
+import static be.nbb.cli.util.MediaType.XML_UTF_8;
+import be.nbb.cli.util.OutputOptions;
+import be.nbb.cli.util.StandardOptions;
+import demetra.cli.helpers.XmlUtil;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.TsInformationType;
+import ec.tss.TsMoniker;
+import ec.tss.tsproviders.spreadsheet.engine.TsExportOptions;
+import ec.tss.xml.XmlTsCollection;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import ec.util.spreadsheet.Book;
+import ec.util.spreadsheet.Sheet;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class Ts2SpreadSheetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static TsCollectionInformation getSample() {
+        TsCollectionInformation result = new TsCollectionInformation();
+        result.items.add(newTs("monthly", new TsData(TsFrequency.Monthly, 2001, 3, new double[]{1, 2, Double.NaN, 4, 5}, false)));
+        result.items.add(newTs("quarterly", new TsData(TsFrequency.Quarterly, 2000, 1, new double[]{10, 20, 30, 40, 50, 60}, false)));
+        result.items.add(newTs("random", TsData.random(TsFrequency.Monthly)));
+        return result;
+    }
+
+    static TsInformation newTs(String name, TsData data) {
+        TsInformation result = new TsInformation(name, new TsMoniker(), TsInformationType.Data);
+        result.data = data;
+        return result;
+    }
+
+    static Ts2SpreadSheet.Options getOptions(File in, File out, TsExportOptions exportOptions, boolean streaming) {
+        return new Ts2SpreadSheet.Options(new StandardOptions(false, false, false), InputOptions.of(in, XML_UTF_8), out, exportOptions, streaming);
+    }
+
+    static List<List<Object>> read(File file) throws IOException {
+        for (Book.Factory factory : ServiceLoader.load(Book.Factory.class)) {
+            if (factory.canLoad() && factory.accept(file)) {
+                try (Book book = factory.load(file)) {
+                    Sheet sheet = book.getSheet(0);
+                    List<List<Object>> result = new ArrayList<>();
+                    for (int i = 0; i < sheet.getRowCount(); i++) {
+                        List<Object> row = new ArrayList<>();
+                        for (int j = 0; j < sheet.getColumnCount(); j++) {
+                            row.add(sheet.getCellValue(i, j));
+                        }
+                        result.add(row);
+                    }
+                    return result;
+                }
+            }
+        }
+        throw new IOException("Cannot load '" + file + "'");
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        File in = folder.newFile();
+        XmlUtil.writeValue(OutputOptions.of(in, XML_UTF_8, false), XmlTsCollection.class, getSample());
+
+        for (TsExportOptions exportOptions : new TsExportOptions[]{
+            TsExportOptions.getDefault(),
+            TsExportOptions.create(false, true, true, false),
+            TsExportOptions.create(true, false, false, true)}) {
+
+            File expected = new File(folder.getRoot(), "expected.xlsx");
+            new Ts2SpreadSheet.Executor().exec(getOptions(in, expected, exportOptions, false));
+
+            File actual = new File(folder.getRoot(), "actual.xlsx");
+            new Ts2SpreadSheet.Executor().exec(getOptions(in, actual, exportOptions, true));
+
+            assertThat(read(actual)).isNotEmpty().isEqualTo(read(expected));
+
+            expected.delete();
+            actual.delete();
+        }
+    }
+}
@@ -0,0 +1,510 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.workspace;
+
+import be.nbb.demetra.toolset.StoreUtil;
+import static be.nbb.demetra.toolset.StoreUtil.readNullableString;
+import static be.nbb.demetra.toolset.StoreUtil.writeNullableString;
+import ec.demetra.workspace.WorkspaceItem;
+import ec.demetra.workspace.file.FileWorkspace;
+import ec.tss.TsMoniker;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An on-disk index of the monikers used by the items of several workspaces.
+ * The items of a workspace are only loaded again when the modification time
+ * or the size of their file has changed since the last refresh, so that
+ * lookups never need to load a multi-processing.
+ * <p>
+ * The file has two sections that are read lazily: an inverted section that
+ * maps each moniker to the items that use it and a section keyed by
+ * workspace that holds the state of their items. A lookup only decodes the
+ * first one and the monikers of a workspace only need the block of that
+ * workspace. A checksum of both sections is verified when the file is opened
+ * so that a corrupted file is detected before any of them is decoded.
+ *
+ * @author Philippe Charles
+ */
+final class MonikerIndex {
+
+    private static final int MAGIC = 0x4d4f4e33;
+    private static final int HEADER_SIZE = 20;
+
+    @lombok.Value
+    static class Usage {
+
+        String workspace;
+        String item;
+        String label;
+        String family;
+    }
+
+    /**
+     * Opens an index or creates an empty one if the file is missing. A file
+     * that is truncated, corrupted or from another version also gives an empty
+     * index but its error is reported first.
+     *
+     * @param file
+     * @param onError
+     * @return a non-null index
+     */
+    @Nonnull
+    static MonikerIndex open(@Nonnull Path file, @Nonnull Consumer<? super Exception> onError) {
+        if (Files.exists(file)) {
+            try {
+                long size = Files.size(file);
+                return new MonikerIndex(file, size, HEADER_SIZE + readHeader(file, size), null);
+            } catch (IOException | RuntimeException ex) {
+                onError.accept(ex);
+            }
+        }
+        return new MonikerIndex(file, -1, -1, new TreeMap<>());
+    }
+
+    private final Path file;
+    private final long fileSize;
+    private final long workspacesPosition;
+    private Map<String, List<Entry>> workspaces;
+    private Map<TsMoniker, List<Usage>> usages;
+
+    private MonikerIndex(Path file, long fileSize, long workspacesPosition, Map<String, List<Entry>> workspaces) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.workspacesPosition = workspacesPosition;
+        this.workspaces = workspaces;
+        this.usages = null;
+    }
+
+    @Nonnull
+    Set<String> getWorkspaces() throws IOException {
+        return Collections.unmodifiableSet(loadWorkspaces().keySet());
+    }
+
+    /**
+     * Adds or updates a workspace.
+     *
+     * @param workspace
+     * @param tool
+     * @param executor
+     * @return the number of items that have been loaded
+     * @throws IOException
+     */
+    int refresh(@Nonnull Path workspace, @Nonnull WorkspaceTool tool, @Nonnull Executor executor) throws IOException {
+        String key = getKey(workspace);
+        Map<String, Entry> old = loadWorkspaces().getOrDefault(key, Collections.emptyList()).stream()
+                .collect(Collectors.toMap(o -> o.family + "/" + o.item, o -> o, (l, r) -> l));
+        try (FileWorkspace ws = FileWorkspace.open(workspace)) {
+            List<WorkspaceItem> items = new ArrayList<>(ws.getItems());
+            Map<WorkspaceItem, BasicFileAttributes> attributes = new HashMap<>();
+            List<WorkspaceItem> changed = new ArrayList<>();
+            for (WorkspaceItem item : items) {
+                BasicFileAttributes attr = getAttributes(ws, item);
+                if (attr != null) {
+                    attributes.put(item, attr);
+                    if (!isUpToDate(old.get(getKey(item)), attr)) {
+                        changed.add(item);
+                    }
+                }
+            }
+            Map<WorkspaceItem, Set<TsMoniker>> loaded = tool.mapMonikers(ws, changed, executor);
+            List<Entry> result = new ArrayList<>();
+            for (WorkspaceItem item : items) {
+                BasicFileAttributes attr = attributes.get(item);
+                if (attr == null) {
+                    result.add(newEntry(item, -1, -1, Collections.emptySet()));
+                } else if (loaded.containsKey(item)) {
+                    result.add(newEntry(item, attr.lastModifiedTime().toMillis(), attr.size(), loaded.get(item)));
+                } else {
+                    result.add(old.get(getKey(item)));
+                }
+            }
+            workspaces.put(key, result);
+            usages = null;
+            return changed.size();
+        }
+    }
+
+    /**
+     * Updates all the workspaces of the index and removes the ones that don't
+     * exist anymore.
+     *
+     * @param tool
+     * @param executor
+     * @return the number of items that have been loaded
+     * @throws IOException
+     */
+    int refreshAll(@Nonnull WorkspaceTool tool, @Nonnull Executor executor) throws IOException {
+        int result = 0;
+        for (String workspace : new ArrayList<>(loadWorkspaces().keySet())) {
+            Path path = Paths.get(workspace);
+            if (Files.exists(path)) {
+                result += refresh(path, tool, executor);
+            } else {
+                workspaces.remove(workspace);
+                usages = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the items that use a moniker.
+     *
+     * @param source the source of the moniker or null to match any source
+     * @param id
+     * @return a non-null list
+     * @throws IOException
+     */
+    @Nonnull
+    List<Usage> lookup(@Nullable String source, @Nonnull String id) throws IOException {
+        Map<TsMoniker, List<Usage>> map = loadUsages();
+        if (source != null) {
+            return Collections.unmodifiableList(map.getOrDefault(new TsMoniker(source, id), Collections.emptyList()));
+        }
+        return map.entrySet().stream()
+                .filter(o -> id.equals(o.getKey().getId()))
+                .flatMap(o -> o.getValue().stream())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gives the monikers used by a workspace.
+     *
+     * @param workspace
+     * @return a non-null set, empty if the workspace is not indexed
+     * @throws IOException
+     */
+    @Nonnull
+    Set<TsMoniker> getMonikers(@Nonnull Path workspace) throws IOException {
+        String key = getKey(workspace);
+        List<Entry> entries;
+        if (workspaces != null) {
+            entries = workspaces.get(key);
+        } else {
+            Map<String, List<Entry>> result = new HashMap<>();
+            read(workspacesPosition, in -> readWorkspaces(in, result, key));
+            entries = result.get(key);
+        }
+        return entries == null ? Collections.emptySet() : entries.stream()
+                .flatMap(o -> o.monikers.stream())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    void save() throws IOException {
+        Map<String, List<Entry>> content = loadWorkspaces();
+        StoreUtil.write(file, out -> write(out, content));
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    @lombok.AllArgsConstructor
+    private static final class Entry {
+
+        final String item;
+        final String label;
+        final String family;
+        final long lastModified;
+        final long size;
+        final List<TsMoniker> monikers;
+    }
+
+    @FunctionalInterface
+    private interface Section {
+
+        void readFrom(DataInputStream in) throws IOException;
+    }
+
+    private Map<String, List<Entry>> loadWorkspaces() throws IOException {
+        if (workspaces == null) {
+            Map<String, List<Entry>> result = new TreeMap<>();
+            read(workspacesPosition, in -> readWorkspaces(in, result, null));
+            workspaces = result;
+        }
+        return workspaces;
+    }
+
+    private Map<TsMoniker, List<Usage>> loadUsages() throws IOException {
+        if (usages == null) {
+            if (workspaces != null) {
+                usages = getUsages(workspaces);
+            } else {
+                Map<TsMoniker, List<Usage>> result = new HashMap<>();
+                read(HEADER_SIZE, in -> readUsages(in, result));
+                usages = result;
+            }
+        }
+        return usages;
+    }
+
+    private void read(long position, Section section) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            if (channel.size() != fileSize) {
+                throw new IOException("Index modified since it was opened");
+            }
+            channel.position(position);
+            section.readFrom(new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel))));
+        } catch (RuntimeException ex) {
+            throw new IOException("Invalid index", ex);
+        }
+    }
+
+    /**
+     * Checks the header against the size and the checksum of the file and
+     * gives the length of the usages section, which is followed by the
+     * workspaces section.
+     */
+    private static int readHeader(Path file, long size) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid file");
+            }
+            int usagesLength = in.readInt();
+            int workspacesLength = in.readInt();
+            long checksum = in.readLong();
+            if (usagesLength < 0 || workspacesLength < 0 || (long) HEADER_SIZE + usagesLength + workspacesLength != size) {
+                throw new IOException("Truncated file");
+            }
+            CheckedInputStream sections = new CheckedInputStream(in, new CRC32());
+            byte[] buffer = new byte[8192];
+            while (sections.read(buffer) != -1) {
+                // only the checksum is needed
+            }
+            if (sections.getChecksum().getValue() != checksum) {
+                throw new IOException("Corrupted file");
+            }
+            return usagesLength;
+        }
+    }
+
+    private static void skip(DataInputStream in, int length) throws IOException {
+        for (int n = length; n > 0;) {
+            int skipped = in.skipBytes(n);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            n -= skipped;
+        }
+    }
+
+    private static String getKey(Path workspace) {
+        return workspace.toAbsolutePath().normalize().toString();
+    }
+
+    private static String getKey(WorkspaceItem item) {
+        return item.getFamily() + "/" + item.getId();
+    }
+
+    private static BasicFileAttributes getAttributes(FileWorkspace ws, WorkspaceItem item) {
+        try {
+            return Files.readAttributes(ws.getFile(item), BasicFileAttributes.class);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static boolean isUpToDate(Entry entry, BasicFileAttributes attr) {
+        return entry != null
+                && entry.lastModified == attr.lastModifiedTime().toMillis()
+                && entry.size == attr.size();
+    }
+
+    private static Entry newEntry(WorkspaceItem item, long lastModified, long size, Set<TsMoniker> monikers) {
+        List<TsMoniker> list = monikers.stream()
+                .filter(o -> !o.isAnonymous())
+                .sorted()
+                .collect(Collectors.toList());
+        return new Entry(item.getId(), item.getLabel(), item.getFamily().toString(), lastModified, size, list);
+    }
+
+    private static Map<TsMoniker, List<Usage>> getUsages(Map<String, List<Entry>> workspaces) {
+        Map<TsMoniker, List<Usage>> result = new HashMap<>();
+        workspaces.forEach((workspace, entries) -> {
+            for (Entry entry : entries) {
+                Usage usage = new Usage(workspace, entry.item, entry.label, entry.family);
+                for (TsMoniker moniker : entry.monikers) {
+                    result.computeIfAbsent(moniker, o -> new ArrayList<>()).add(usage);
+                }
+            }
+        });
+        return result;
+    }
+
+    private static void write(DataOutputStream out, Map<String, List<Entry>> workspaces) throws IOException {
+        ByteArrayOutputStream usages = toBytes(o -> writeUsages(o, workspaces));
+        ByteArrayOutputStream blocks = toBytes(o -> writeWorkspaces(o, workspaces));
+        CRC32 checksum = new CRC32();
+        checksum.update(usages.toByteArray());
+        checksum.update(blocks.toByteArray());
+        out.writeInt(MAGIC);
+        out.writeInt(usages.size());
+        out.writeInt(blocks.size());
+        out.writeLong(checksum.getValue());
+        usages.writeTo(out);
+        blocks.writeTo(out);
+    }
+
+    private static ByteArrayOutputStream toBytes(StoreUtil.Content content) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(result)) {
+            content.writeTo(out);
+        }
+        return result;
+    }
+
+    private static void writeUsages(DataOutputStream out, Map<String, List<Entry>> workspaces) throws IOException {
+        out.writeInt(workspaces.size());
+        for (String workspace : workspaces.keySet()) {
+            out.writeUTF(workspace);
+        }
+        Map<TsMoniker, List<Integer>> inverted = new LinkedHashMap<>();
+        out.writeInt(workspaces.values().stream().mapToInt(List::size).sum());
+        int workspaceIndex = 0;
+        int usageIndex = 0;
+        for (List<Entry> entries : workspaces.values()) {
+            for (Entry entry : entries) {
+                out.writeInt(workspaceIndex);
+                out.writeUTF(entry.item);
+                writeNullableString(out, entry.label);
+                out.writeUTF(entry.family);
+                for (TsMoniker moniker : entry.monikers) {
+                    inverted.computeIfAbsent(moniker, o -> new ArrayList<>()).add(usageIndex);
+                }
+                usageIndex++;
+            }
+            workspaceIndex++;
+        }
+        out.writeInt(inverted.size());
+        for (Map.Entry<TsMoniker, List<Integer>> o : inverted.entrySet()) {
+            writeNullableString(out, o.getKey().getSource());
+            writeNullableString(out, o.getKey().getId());
+            out.writeInt(o.getValue().size());
+            for (int index : o.getValue()) {
+                out.writeInt(index);
+            }
+        }
+    }
+
+    private static void readUsages(DataInputStream in, Map<TsMoniker, List<Usage>> result) throws IOException {
+        String[] workspaces = new String[in.readInt()];
+        for (int i = 0; i < workspaces.length; i++) {
+            workspaces[i] = in.readUTF();
+        }
+        Usage[] usages = new Usage[in.readInt()];
+        for (int i = 0; i < usages.length; i++) {
+            usages[i] = new Usage(workspaces[in.readInt()], in.readUTF(), readNullableString(in), in.readUTF());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            TsMoniker moniker = new TsMoniker(readNullableString(in), readNullableString(in));
+            List<Usage> list = new ArrayList<>();
+            for (int j = in.readInt(); j > 0; j--) {
+                list.add(usages[in.readInt()]);
+            }
+            result.put(moniker, list);
+        }
+    }
+
+    private static void writeWorkspaces(DataOutputStream out, Map<String, List<Entry>> workspaces) throws IOException {
+        out.writeInt(workspaces.size());
+        for (Map.Entry<String, List<Entry>> o : workspaces.entrySet()) {
+            ByteArrayOutputStream block = toBytes(entries -> writeEntries(entries, o.getValue()));
+            out.writeUTF(o.getKey());
+            out.writeInt(block.size());
+            block.writeTo(out);
+        }
+    }
+
+    private static void writeEntries(DataOutputStream out, List<Entry> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeUTF(entry.item);
+            writeNullableString(out, entry.label);
+            out.writeUTF(entry.family);
+            out.writeLong(entry.lastModified);
+            out.writeLong(entry.size);
+            out.writeInt(entry.monikers.size());
+            for (TsMoniker moniker : entry.monikers) {
+                writeNullableString(out, moniker.getSource());
+                writeNullableString(out, moniker.getId());
+            }
+        }
+    }
+
+    /**
+     * Reads the workspaces section; the blocks of the other workspaces are
+     * skipped if a single one is requested.
+     */
+    private static void readWorkspaces(DataInputStream in, Map<String, List<Entry>> result, @Nullable String only) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            String workspace = in.readUTF();
+            int length = in.readInt();
+            if (only == null || only.equals(workspace)) {
+                result.put(workspace, readEntries(in));
+                if (only != null) {
+                    return;
+                }
+            } else {
+                skip(in, length);
+            }
+        }
+    }
+
+    private static List<Entry> readEntries(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Entry> result = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            String item = in.readUTF();
+            String label = readNullableString(in);
+            String family = in.readUTF();
+            long lastModified = in.readLong();
+            long fileSize = in.readLong();
+            List<TsMoniker> monikers = new ArrayList<>();
+            for (int k = in.readInt(); k > 0; k--) {
+                monikers.add(new TsMoniker(readNullableString(in), readNullableString(in)));
+            }
+            result.add(new Entry(item, label, family, lastModified, fileSize, monikers));
+        }
+        return result;
+    }
+    //</editor-fold>
+}
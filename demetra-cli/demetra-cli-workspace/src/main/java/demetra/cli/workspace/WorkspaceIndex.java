@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.workspace;
+
+import be.nbb.cli.command.Command;
+import be.nbb.cli.command.core.OptionsExecutor;
+import be.nbb.cli.command.core.OptionsParsingCommand;
+import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newOutputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
+import be.nbb.cli.command.joptsimple.JOptSimpleParser;
+import be.nbb.cli.command.proc.CommandRegistration;
+import be.nbb.cli.util.OutputOptions;
+import be.nbb.cli.util.StandardOptions;
+import ec.tss.sa.ISaProcessingFactory;
+import ec.tss.sa.SaManager;
+import ec.tstoolkit.design.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.openide.util.NbBundle;
+
+/**
+ * Maintains an index of the monikers used by workspaces and looks it up.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+public final class WorkspaceIndex {
+
+    @CommandRegistration(name = "workspaceindex")
+    static final Command CMD = OptionsParsingCommand.of(Parser::new, Executor::new, o -> o.so);
+
+    @lombok.AllArgsConstructor
+    @lombok.NoArgsConstructor
+    public static final class Options {
+
+        StandardOptions so;
+        public File index;
+        public List<File> workspaces;
+        public boolean refresh;
+        public String source;
+        public String id;
+        public File monikersOf;
+        public OutputOptions output;
+        public int parallelism;
+    }
+
+    @VisibleForTesting
+    static final class Executor implements OptionsExecutor<Options> {
+
+        private final WorkspaceTool tool = new WorkspaceToolImpl();
+
+        Executor() {
+            ServiceLoader.load(ISaProcessingFactory.class).forEach(SaManager.instance::add);
+        }
+
+        @Override
+        public void exec(Options o) throws Exception {
+            MonikerIndex index = MonikerIndex.open(o.index.toPath(), ex -> {
+                if (o.so.isVerbose()) {
+                    System.err.println("Cannot read index " + o.index + ", starting empty: " + ex.getMessage());
+                }
+            });
+
+            if (o.refresh || !o.workspaces.isEmpty()) {
+                update(index, o);
+            }
+
+            if (o.id != null) {
+                o.output.write(XmlUsages.class, XmlUsages.of(index.lookup(o.source, o.id)));
+            } else if (o.monikersOf != null) {
+                o.output.write(WorkspaceUtil.XmlMonikerMap.class, WorkspaceUtil.XmlMonikerMap.of(index.getMonikers(o.monikersOf.toPath())));
+            }
+        }
+
+        private void update(MonikerIndex index, Options o) throws IOException {
+            long start = System.currentTimeMillis();
+            int loaded = 0;
+            ForkJoinPool pool = new ForkJoinPool(o.parallelism);
+            try {
+                if (o.refresh) {
+                    loaded += index.refreshAll(tool, pool);
+                }
+                for (File workspace : o.workspaces) {
+                    loaded += index.refresh(workspace.toPath(), tool, pool);
+                }
+            } finally {
+                pool.shutdown();
+            }
+            index.save();
+            if (o.so.isVerbose()) {
+                System.err.println("Indexed " + index.getWorkspaces().size() + " workspaces; loaded " + loaded + " items in " + (System.currentTimeMillis() - start) + "ms");
+            }
+        }
+    }
+
+    @XmlRootElement(name = "usages")
+    static final class XmlUsages {
+
+        public XmlUsage[] usage;
+
+        static XmlUsages of(List<MonikerIndex.Usage> list) {
+            XmlUsages result = new XmlUsages();
+            result.usage = list.stream().map(XmlUsage::of).toArray(XmlUsage[]::new);
+            return result;
+        }
+    }
+
+    static final class XmlUsage {
+
+        @XmlAttribute
+        public String workspace;
+        @XmlAttribute
+        public String item;
+        @XmlAttribute
+        public String label;
+        @XmlAttribute
+        public String family;
+
+        static XmlUsage of(MonikerIndex.Usage o) {
+            XmlUsage result = new XmlUsage();
+            result.workspace = o.getWorkspace();
+            result.item = o.getItem();
+            result.label = o.getLabel();
+            result.family = o.getFamily();
+            return result;
+        }
+    }
+
+    @VisibleForTesting
+    @NbBundle.Messages({
+        "workspaceIndex.index=Index file, created if it doesn't exist",
+        "workspaceIndex.refresh=Update all the workspaces of the index and forget the ones that don't exist anymore",
+        "workspaceIndex.source=Source of the moniker to look up (any source if missing)",
+        "workspaceIndex.id=Id of the moniker to look up",
+        "workspaceIndex.monikersOf=Workspace whose monikers are listed"
+    })
+    static final class Parser extends JOptSimpleParser<Options> {
+
+        private final ComposedOptionSpec<StandardOptions> so = newStandardOptionsSpec(parser);
+        private final OptionSpec<File> workspaces = parser.nonOptions("workspace").ofType(File.class);
+        private final ComposedOptionSpec<OutputOptions> output = newOutputOptionsSpec(parser);
+        private final OptionSpec<File> index = parser
+                .accepts("index", Bundle.workspaceIndex_index())
+                .withRequiredArg()
+                .ofType(File.class);
+        private final OptionSpec<Void> refresh = parser
+                .accepts("refresh", Bundle.workspaceIndex_refresh());
+        private final OptionSpec<String> source = parser
+                .accepts("source", Bundle.workspaceIndex_source())
+                .withRequiredArg()
+                .ofType(String.class);
+        private final OptionSpec<String> id = parser
+                .accepts("id", Bundle.workspaceIndex_id())
+                .withRequiredArg()
+                .ofType(String.class);
+        private final OptionSpec<File> monikersOf = parser
+                .accepts("monikers-of", Bundle.workspaceIndex_monikersOf())
+                .withRequiredArg()
+                .ofType(File.class);
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser);
+
+        @Override
+        protected Options parse(OptionSet o) {
+            if (!o.has(index)) {
+                throw new IllegalArgumentException("Missing index file");
+            }
+            if (o.has(source) && !o.has(id)) {
+                throw new IllegalArgumentException("Missing moniker id");
+            }
+            return new Options(so.value(o), index.value(o), workspaces.values(o), o.has(refresh),
+                    source.value(o), id.value(o), monikersOf.value(o), output.value(o), parallelism.value(o));
+        }
+    }
+}
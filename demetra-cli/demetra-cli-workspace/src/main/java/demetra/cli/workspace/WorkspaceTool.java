@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  *
@@ -35,9 +36,50 @@ public interface WorkspaceTool {
 
     List<CheckResult> checkContent(FileWorkspace ws) throws IOException;
 
+    /**
+     * Checks the items concurrently and reports the problems in the order of
+     * the items.
+     *
+     * @param ws
+     * @param executor
+     * @return a non-null list
+     * @throws IOException
+     */
+    List<CheckResult> checkContent(FileWorkspace ws, Executor executor) throws IOException;
+
     Set<TsMoniker> mapMonikers(FileWorkspace ws) throws IOException;
 
-    void remapMonikers(FileWorkspace ws, Map<TsMoniker, TsMoniker> remapping) throws IOException;
+    /**
+     * Loads the items concurrently and merges their monikers.
+     *
+     * @param ws
+     * @param executor
+     * @return a non-null set
+     * @throws IOException
+     */
+    Set<TsMoniker> mapMonikers(FileWorkspace ws, Executor executor) throws IOException;
+
+    /**
+     * Loads some items concurrently and gives the monikers of each one.
+     *
+     * @param ws
+     * @param items
+     * @param executor
+     * @return a non-null map
+     * @throws IOException
+     */
+    Map<WorkspaceItem, Set<TsMoniker>> mapMonikers(FileWorkspace ws, List<WorkspaceItem> items, Executor executor) throws IOException;
+
+    /**
+     * Replaces the monikers of the items. Only the items that reference one
+     * of the monikers to replace are loaded and written back.
+     *
+     * @param ws
+     * @param remapping
+     * @return the non-null list of the items that have been modified
+     * @throws IOException
+     */
+    List<WorkspaceItem> remapMonikers(FileWorkspace ws, Map<TsMoniker, TsMoniker> remapping) throws IOException;
 
     @lombok.Value
     static class CheckResult {
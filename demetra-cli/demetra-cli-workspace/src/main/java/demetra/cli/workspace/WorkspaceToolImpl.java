@@ -19,6 +19,7 @@ package demetra.cli.workspace;
 import ec.demetra.workspace.WorkspaceFamily;
 import ec.demetra.workspace.WorkspaceItem;
 import ec.demetra.workspace.file.FileWorkspace;
+import ec.demetra.workspace.file.spi.FamilyHandler;
 import ec.tss.DynamicTsVariable;
 import ec.tss.Ts;
 import ec.tss.TsFactory;
@@ -37,15 +38,30 @@ import ec.tstoolkit.timeseries.regression.TsVariables;
 import ec.tstoolkit.utilities.LinearId;
 import ec.tstoolkit.utilities.TreeOfIds;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  *
@@ -62,25 +78,97 @@ final class WorkspaceToolImpl implements WorkspaceTool {
 
     @Override
     public List<CheckResult> checkContent(FileWorkspace ws) throws IOException {
-        return ws.getItems().stream()
-                .map(o -> checkContent(ws, o))
+        return checkContent(ws, Runnable::run);
+    }
+
+    @Override
+    public List<CheckResult> checkContent(FileWorkspace ws, Executor executor) throws IOException {
+        List<WorkspaceItem> items = new ArrayList<>(ws.getItems());
+        CheckResult[] result = new CheckResult[items.size()];
+        forEachItem(ws, items, i -> result[i] = checkContent(ws, items.get(i)), executor);
+        return Stream.of(result)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     @Override
     public Set<TsMoniker> mapMonikers(FileWorkspace ws) throws IOException {
-        Set<TsMoniker> result = new HashSet<>();
-        for (WorkspaceItem item : ws.getItems()) {
-            mapMonikers(ws, item).forEach(result::add);
-        }
+        return mapMonikers(ws, Runnable::run);
+    }
+
+    @Override
+    public Set<TsMoniker> mapMonikers(FileWorkspace ws, Executor executor) throws IOException {
+        List<WorkspaceItem> items = new ArrayList<>(ws.getItems());
+        Set<TsMoniker> result = ConcurrentHashMap.newKeySet();
+        forEachItem(ws, items, i -> mapMonikers(ws, items.get(i)).forEach(result::add), executor);
+        return result;
+    }
+
+    @Override
+    public Map<WorkspaceItem, Set<TsMoniker>> mapMonikers(FileWorkspace ws, List<WorkspaceItem> items, Executor executor) throws IOException {
+        Map<WorkspaceItem, Set<TsMoniker>> result = new ConcurrentHashMap<>();
+        forEachItem(ws, items, i -> result.put(items.get(i), mapMonikers(ws, items.get(i)).collect(Collectors.toSet())), executor);
         return result;
     }
 
     @Override
-    public void remapMonikers(FileWorkspace ws, Map<TsMoniker, TsMoniker> remapping) throws IOException {
+    public List<WorkspaceItem> remapMonikers(FileWorkspace ws, Map<TsMoniker, TsMoniker> remapping) throws IOException {
+        Set<String> ids = remapping.entrySet().stream()
+                .filter(o -> !o.getKey().equals(o.getValue()))
+                .map(o -> o.getKey().getId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<WorkspaceItem> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Map<WorkspaceFamily, FamilyHandler> handlers = getHandlers(ws);
         for (WorkspaceItem item : ws.getItems()) {
-            remapMonikers(ws, item, remapping);
+            if (isRemappable(item.getFamily()) && mightReference(ws.getFile(item), ids)) {
+                Object value = ws.load(item);
+                if (remapMonikers(item.getFamily(), value, remapping)) {
+                    store(ws, item, value, handlers.get(item.getFamily()));
+                    result.add(item);
+                }
+            }
+        }
+        return result;
+    }
+
+    private interface ItemTask {
+
+        void run(int index) throws IOException;
+    }
+
+    // biggest files first so that a large multi-processing doesn't end up as the straggler of a run
+    private static void forEachItem(FileWorkspace ws, List<WorkspaceItem> items, ItemTask task, Executor executor) throws IOException {
+        long[] sizes = items.stream().mapToLong(o -> getSize(ws, o)).toArray();
+        CompletableFuture<?>[] tasks = IntStream.range(0, items.size())
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> sizes[i]).reversed())
+                .map(i -> CompletableFuture.runAsync(() -> {
+                    try {
+                        task.run(i);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }, executor))
+                .toArray(CompletableFuture<?>[]::new);
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    private static long getSize(FileWorkspace ws, WorkspaceItem item) {
+        try {
+            return Files.size(ws.getFile(item));
+        } catch (IOException ex) {
+            return 0;
         }
     }
 
@@ -142,41 +230,27 @@ final class WorkspaceToolImpl implements WorkspaceTool {
         }
     }
 
-    private static void remapMonikers(FileWorkspace ws, WorkspaceItem item, Map<TsMoniker, TsMoniker> remapping) throws IOException {
-        WorkspaceFamily family = item.getFamily();
+    private static boolean isRemappable(WorkspaceFamily family) {
+        return family.equals(WorkspaceFamily.UTIL_VAR)
+                || family.equals(WorkspaceFamily.SA_MULTI)
+                || family.equals(WorkspaceFamily.SA_DOC_TRAMOSEATS)
+                || family.equals(WorkspaceFamily.SA_DOC_X13)
+                || family.equals(WorkspaceFamily.MOD_DOC_REGARIMA)
+                || family.equals(WorkspaceFamily.MOD_DOC_TRAMO);
+    }
+
+    private static boolean remapMonikers(WorkspaceFamily family, Object value, Map<TsMoniker, TsMoniker> remapping) {
         if (family.equals(WorkspaceFamily.UTIL_VAR)) {
-            TsVariables value = (TsVariables) ws.load(item);
-            remapMonikers(value, remapping);
-            ws.store(item, value);
+            return remapMonikers((TsVariables) value, remapping);
         }
         if (family.equals(WorkspaceFamily.SA_MULTI)) {
-            SaProcessing value = (SaProcessing) ws.load(item);
-            remapMonikers(value, remapping);
-            ws.store(item, value);
-        }
-        if (family.equals(WorkspaceFamily.SA_DOC_TRAMOSEATS)) {
-            TramoSeatsDocument value = (TramoSeatsDocument) ws.load(item);
-            remapMoniker(value, remapping);
-            ws.store(item, value);
-        }
-        if (family.equals(WorkspaceFamily.SA_DOC_X13)) {
-            X13Document value = (X13Document) ws.load(item);
-            remapMoniker(value, remapping);
-            ws.store(item, value);
-        }
-        if (family.equals(WorkspaceFamily.MOD_DOC_REGARIMA)) {
-            RegArimaDocument value = (RegArimaDocument) ws.load(item);
-            remapMoniker(value, remapping);
-            ws.store(item, value);
-        }
-        if (family.equals(WorkspaceFamily.MOD_DOC_TRAMO)) {
-            TramoDocument value = (TramoDocument) ws.load(item);
-            remapMoniker(value, remapping);
-            ws.store(item, value);
+            return remapMonikers((SaProcessing) value, remapping);
         }
+        return remapMoniker((TsDocument<?, ?>) value, remapping);
     }
 
-    private static void remapMonikers(TsVariables variables, Map<TsMoniker, TsMoniker> remapping) {
+    private static boolean remapMonikers(TsVariables variables, Map<TsMoniker, TsMoniker> remapping) {
+        boolean result = false;
         for (String name : variables.getNames()) {
             ITsVariable var = variables.get(name);
             if (variables.get(name) instanceof DynamicTsVariable) {
@@ -185,26 +259,122 @@ final class WorkspaceToolImpl implements WorkspaceTool {
                 if (destination != null && !origin.equals(destination)) {
                     variables.remove(name);
                     variables.set(name, new DynamicTsVariable(var.getDescription(), destination));
+                    result = true;
                 }
             }
         }
+        return result;
     }
 
-    private static void remapMonikers(SaProcessing sa, Map<TsMoniker, TsMoniker> remapping) {
+    private static boolean remapMonikers(SaProcessing sa, Map<TsMoniker, TsMoniker> remapping) {
+        boolean result = false;
         for (SaItem o : sa.toArray()) {
             TsMoniker origin = getUnfreezedMoniker(o.getTs());
             TsMoniker destination = remapping.get(origin);
             if (destination != null && !origin.equals(destination)) {
                 sa.replace(o, withMoniker(o, destination));
+                result = true;
             }
         }
+        return result;
     }
 
-    private static void remapMoniker(TsDocument<?, ?> doc, Map<TsMoniker, TsMoniker> remapping) {
+    private static boolean remapMoniker(TsDocument<?, ?> doc, Map<TsMoniker, TsMoniker> remapping) {
         TsMoniker origin = getMoniker(doc);
         TsMoniker destination = remapping.get(origin);
         if (destination != null && !origin.equals(destination)) {
             doc.setInput(withMoniker(doc.getInput(), destination));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if an item file might reference one of the specified ids by
+     * streaming through its text and attribute values; this avoids loading
+     * the items that are not affected by a remapping. It errs on the side of
+     * caution: an unreadable file is considered as a reference.
+     */
+    private static boolean mightReference(Path file, Set<String> ids) {
+        try (InputStream stream = Files.newInputStream(file)) {
+            XMLStreamReader reader = XML_INPUT.createXMLStreamReader(stream);
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                            if (!reader.isWhiteSpace() && containsValue(ids, reader.getText())) {
+                                return true;
+                            }
+                            break;
+                        case XMLStreamConstants.START_ELEMENT:
+                            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                                if (containsValue(ids, reader.getAttributeValue(i))) {
+                                    return true;
+                                }
+                            }
+                            break;
+                    }
+                }
+                return false;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException ex) {
+            return true;
+        }
+    }
+
+    private static boolean containsValue(Set<String> ids, String value) {
+        return ids.contains(value) || ids.contains(value.trim());
+    }
+
+    private static final XMLInputFactory XML_INPUT = newXmlInput();
+
+    private static XMLInputFactory newXmlInput() {
+        XMLInputFactory result = XMLInputFactory.newFactory();
+        // a value must be read in one piece to be compared
+        result.setProperty(XMLInputFactory.IS_COALESCING, true);
+        result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return result;
+    }
+
+    // same resolution as FileWorkspace: the last handler of a family wins
+    private static Map<WorkspaceFamily, FamilyHandler> getHandlers(FileWorkspace ws) throws IOException {
+        Map<WorkspaceFamily, FamilyHandler> result = new HashMap<>();
+        for (FamilyHandler o : ServiceLoader.load(FamilyHandler.class)) {
+            if (ws.getFileFormat().equals(o.getFormat()) && o.getFamily() != null) {
+                result.put(o.getFamily(), o);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes an item in a temporary file that then replaces the original one
+     * so that an interrupted remapping never leaves a truncated item behind.
+     * Unlike {@link FileWorkspace#store(WorkspaceItem, Object)}, the index of
+     * the workspace is not touched: the item is already in it and keeps its
+     * id, label and attributes. The workspace itself is used if the handler
+     * doesn't resolve the file of the item.
+     */
+    private static void store(FileWorkspace ws, WorkspaceItem item, Object value, FamilyHandler handler) throws IOException {
+        Path file = ws.getFile(item);
+        if (handler == null || !handler.resolveFile(ws.getRootFolder(), item.getId()).equals(file)) {
+            ws.store(item, value);
+            return;
+        }
+        Path tmp = Files.createTempDirectory(file.getParent(), ".remap");
+        try {
+            handler.write(tmp, item.getId(), value);
+            Files.move(handler.resolveFile(tmp, item.getId()), file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            try (Stream<Path> files = Files.walk(tmp)) {
+                for (Path o : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.deleteIfExists(o);
+                }
+            }
         }
     }
 
@@ -22,6 +22,7 @@ import be.nbb.cli.command.core.OptionsParsingCommand;
 import be.nbb.cli.command.joptsimple.ComposedOptionSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newInputOptionsSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newOutputOptionsSpec;
+import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newParallelismSpec;
 import static be.nbb.cli.command.joptsimple.ComposedOptionSpec.newStandardOptionsSpec;
 import be.nbb.cli.command.joptsimple.JOptSimpleParser;
 import be.nbb.cli.command.proc.CommandRegistration;
@@ -29,6 +30,7 @@ import be.nbb.cli.util.InputOptions;
 import be.nbb.cli.util.OutputOptions;
 import be.nbb.cli.util.StandardOptions;
 import demetra.cli.tsproviders.TsProviderOptionSpecs;
+import ec.demetra.workspace.WorkspaceItem;
 import ec.demetra.workspace.file.FileWorkspace;
 import ec.tss.TsMoniker;
 import ec.tss.sa.ISaProcessingFactory;
@@ -45,6 +47,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -74,6 +77,7 @@ public final class WorkspaceUtil {
         public boolean map;
         public boolean remap;
         public InputOptions remapping;
+        public int parallelism;
     }
 
     @VisibleForTesting
@@ -91,11 +95,11 @@ public final class WorkspaceUtil {
                 if (o.tree) {
                     printTree(ws);
                 } else if (o.check) {
-                    checkContent(ws);
+                    checkContent(ws, o.parallelism);
                 } else if (o.map) {
-                    mapMonikers(ws, o.output);
+                    mapMonikers(ws, o.output, o.parallelism);
                 } else if (o.remap) {
-                    remapMonikers(ws, o.remapping);
+                    remapMonikers(ws, o.remapping, o.so.isVerbose());
                 } else {
                     printInfo(ws);
                 }
@@ -117,8 +121,14 @@ public final class WorkspaceUtil {
                     o -> o == root ? root.tail() : o.tail(), System.out);
         }
 
-        private void checkContent(FileWorkspace ws) throws IOException {
-            List<WorkspaceTool.CheckResult> result = tool.checkContent(ws);
+        private void checkContent(FileWorkspace ws, int parallelism) throws IOException {
+            List<WorkspaceTool.CheckResult> result;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                result = tool.checkContent(ws, pool);
+            } finally {
+                pool.shutdown();
+            }
             if (result.isEmpty()) {
                 System.out.println("Content is valid");
             } else {
@@ -126,14 +136,23 @@ public final class WorkspaceUtil {
             }
         }
 
-        private void mapMonikers(FileWorkspace ws, OutputOptions output) throws IOException {
-            Set<TsMoniker> result = tool.mapMonikers(ws);
+        private void mapMonikers(FileWorkspace ws, OutputOptions output, int parallelism) throws IOException {
+            Set<TsMoniker> result;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                result = tool.mapMonikers(ws, pool);
+            } finally {
+                pool.shutdown();
+            }
             output.write(XmlMonikerMap.class, XmlMonikerMap.of(result));
         }
 
-        private void remapMonikers(FileWorkspace ws, InputOptions remapping) throws IOException {
+        private void remapMonikers(FileWorkspace ws, InputOptions remapping, boolean verbose) throws IOException {
             Map<TsMoniker, TsMoniker> map = remapping.read(XmlMonikerMap.class).toMap();
-            tool.remapMonikers(ws, map);
+            List<WorkspaceItem> result = tool.remapMonikers(ws, map);
+            if (verbose) {
+                result.forEach(o -> System.err.println("Remapped " + o.getLabel()));
+            }
         }
     }
 
@@ -211,10 +230,11 @@ public final class WorkspaceUtil {
         private final OptionSpec<Void> map = parser.accepts("map-monikers");
         private final OptionSpec<Void> remap = parser.accepts("remap-monikers");
         private final ComposedOptionSpec<InputOptions> remapping = newInputOptionsSpec(parser);
+        private final ComposedOptionSpec<Integer> parallelism = newParallelismSpec(parser);
 
         @Override
         protected Options parse(OptionSet o) {
-            return new Options(so.value(o), file.value(o), output.value(o), o.has(tree), o.has(check), o.has(map), o.has(remap), remapping.value(o));
+            return new Options(so.value(o), file.value(o), output.value(o), o.has(tree), o.has(check), o.has(map), o.has(remap), remapping.value(o), parallelism.value(o));
         }
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.workspace;
+
+import ec.demetra.workspace.WorkspaceFamily;
+import ec.demetra.workspace.WorkspaceItem;
+import ec.demetra.workspace.file.FileFormat;
+import ec.demetra.workspace.file.FileWorkspace;
+import ec.tss.DynamicTsVariable;
+import ec.tss.TsMoniker;
+import ec.tss.sa.ISaProcessingFactory;
+import ec.tss.sa.SaManager;
+import ec.tstoolkit.timeseries.regression.TsVariables;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.Executor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class MonikerIndexTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        ServiceLoader.load(ISaProcessingFactory.class).forEach(SaManager.instance::add);
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testRefreshAndLookup() throws Exception {
+        Path first = temp.getRoot().toPath().resolve("first.xml");
+        Path second = temp.getRoot().toPath().resolve("second.xml");
+        Path file = temp.getRoot().toPath().resolve("index.bin");
+        create(first, "a", "shared");
+        create(second, "b", "shared");
+
+        WorkspaceTool tool = new WorkspaceToolImpl();
+        Executor executor = Runnable::run;
+
+        List<Exception> errors = new ArrayList<>();
+        MonikerIndex index = MonikerIndex.open(file, errors::add);
+        assertThat(index.getWorkspaces()).isEmpty();
+        assertThat(index.refresh(first, tool, executor)).isEqualTo(3);
+        assertThat(index.refresh(second, tool, executor)).isEqualTo(3);
+        assertThat(index.refresh(first, tool, executor)).isZero();
+        index.save();
+
+        assertThat(errors).isEmpty();
+
+        // lookups only read the usages section
+        index = MonikerIndex.open(file, errors::add);
+        assertThat(index.lookup("src", "shared.1"))
+                .extracting(MonikerIndex.Usage::getWorkspace, MonikerIndex.Usage::getItem)
+                .containsExactly(tuple(first.toString(), "shared"), tuple(second.toString(), "shared"));
+        assertThat(index.lookup(null, "a0.2")).hasSize(1);
+        assertThat(index.lookup("other", "a0.2")).isEmpty();
+
+        // monikers of a workspace only read its block
+        assertThat(MonikerIndex.open(file, errors::add).getMonikers(first))
+                .hasSize(3 * 3)
+                .contains(new TsMoniker("src", "a1.0"), new TsMoniker("src", "shared.2"));
+        assertThat(MonikerIndex.open(file, errors::add).getMonikers(second))
+                .hasSize(3 * 3)
+                .contains(new TsMoniker("src", "b0.0"), new TsMoniker("src", "shared.2"));
+        assertThat(MonikerIndex.open(file, errors::add).getMonikers(temp.getRoot().toPath().resolve("other.xml"))).isEmpty();
+
+        index = MonikerIndex.open(file, errors::add);
+        assertThat(index.getWorkspaces()).hasSize(2);
+        assertThat(errors).isEmpty();
+
+        try (FileWorkspace ws = FileWorkspace.open(first)) {
+            ws.store(newItem("a1"), newVariables("changed", 5));
+        }
+        assertThat(index.refreshAll(tool, executor)).isEqualTo(1);
+        assertThat(index.lookup("src", "changed.4")).hasSize(1);
+        assertThat(index.lookup("src", "a1.0")).isEmpty();
+
+        Files.delete(second);
+        assertThat(index.refreshAll(tool, executor)).isZero();
+        assertThat(index.getWorkspaces()).containsExactly(first.toString());
+        assertThat(index.lookup("src", "shared.1")).hasSize(1);
+    }
+
+    @Test
+    public void testCorruptedFile() throws Exception {
+        Path file = temp.newFile("index.bin").toPath();
+        Files.write(file, new byte[]{1, 2, 3});
+        List<Exception> errors = new ArrayList<>();
+        assertThat(MonikerIndex.open(file, errors::add).getWorkspaces()).isEmpty();
+        assertThat(errors).hasSize(1);
+
+        Path workspace = temp.getRoot().toPath().resolve("ws.xml");
+        create(workspace, "a", "shared");
+        MonikerIndex index = MonikerIndex.open(file, errors::add);
+        index.refresh(workspace, new WorkspaceToolImpl(), Runnable::run);
+        index.save();
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+        errors.clear();
+        assertThat(MonikerIndex.open(file, errors::add).getWorkspaces()).isEmpty();
+        assertThat(errors).hasSize(1);
+
+        // a corrupted body is detected before the sections are decoded
+        for (int i = 20; i < content.length; i += 7) {
+            byte[] corrupted = content.clone();
+            corrupted[i] ^= 0x55;
+            Files.write(file, corrupted);
+            errors.clear();
+            index = MonikerIndex.open(file, errors::add);
+            assertThat(index.lookup(null, "a0.2")).isEmpty();
+            assertThat(index.getWorkspaces()).isEmpty();
+            assertThat(errors).hasSize(1);
+        }
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        List<Exception> errors = new ArrayList<>();
+        MonikerIndex index = MonikerIndex.open(temp.getRoot().toPath().resolve("missing.bin"), errors::add);
+        assertThat(index.getWorkspaces()).isEmpty();
+        assertThat(index.lookup(null, "a0.2")).isEmpty();
+        assertThat(errors).isEmpty();
+    }
+
+    private static void create(Path file, String prefix, String shared) throws IOException {
+        try (FileWorkspace ws = FileWorkspace.create(file, FileFormat.GENERIC)) {
+            ws.store(newItem(prefix + "0"), newVariables(prefix + "0", 3));
+            ws.store(newItem(prefix + "1"), newVariables(prefix + "1", 3));
+            ws.store(newItem(shared), newVariables(shared, 3));
+        }
+    }
+
+    private static WorkspaceItem newItem(String id) {
+        return WorkspaceItem.builder().family(WorkspaceFamily.UTIL_VAR).id(id).label(id).build();
+    }
+
+    private static TsVariables newVariables(String prefix, int count) {
+        TsVariables result = new TsVariables();
+        for (int i = 0; i < count; i++) {
+            result.set("x" + i, new DynamicTsVariable("x" + i, new TsMoniker("src", prefix + "." + i)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.workspace;
+
+import java.io.File;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class WorkspaceIndexTest {
+
+    @Test
+    public void testParser() {
+        WorkspaceIndex.Parser p = new WorkspaceIndex.Parser();
+
+        assertThatThrownBy(() -> p.parse("ws.xml")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> p.parse("--index", "i.bin", "--source", "src")).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(p.parse("--index", "i.bin", "--source", "src", "--id", "x")).satisfies(o -> {
+            assertThat(o.index).isEqualTo(new File("i.bin"));
+            assertThat(o.source).isEqualTo("src");
+            assertThat(o.id).isEqualTo("x");
+        });
+        assertThat(p.parse("--index", "i.bin", "--id", "x").source).isNull();
+        assertThat(p.parse("--index", "i.bin", "--metrics", "ws1.xml", "ws2.xml").workspaces)
+                .containsExactly(new File("ws1.xml"), new File("ws2.xml"));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package demetra.cli.workspace;
+
+import ec.demetra.workspace.WorkspaceFamily;
+import ec.demetra.workspace.WorkspaceItem;
+import ec.demetra.workspace.file.FileFormat;
+import ec.demetra.workspace.file.FileWorkspace;
+import ec.tss.DynamicTsVariable;
+import ec.satoolkit.tramoseats.TramoSeatsSpecification;
+import ec.tss.TsFactory;
+import ec.tss.TsInformationType;
+import ec.tss.TsMoniker;
+import ec.tss.sa.ISaProcessingFactory;
+import ec.tss.sa.SaItem;
+import ec.tss.sa.SaManager;
+import ec.tss.sa.SaProcessing;
+import ec.tstoolkit.timeseries.regression.TsVariables;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class WorkspaceToolImplTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        ServiceLoader.load(ISaProcessingFactory.class).forEach(SaManager.instance::add);
+    }
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentScan() throws Exception {
+        File file = new File(temp.getRoot(), "ws.xml");
+        try (FileWorkspace ws = FileWorkspace.create(file.toPath(), FileFormat.GENERIC)) {
+            for (int i = 0; i < 20; i++) {
+                ws.store(newItem(i), newVariables(i, 50));
+            }
+        }
+
+        WorkspaceTool tool = new WorkspaceToolImpl();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (FileWorkspace ws = FileWorkspace.open(file.toPath())) {
+            assertThat(tool.mapMonikers(ws, pool))
+                    .hasSize(20 * 50)
+                    .isEqualTo(tool.mapMonikers(ws))
+                    .contains(new TsMoniker("src", "7.12"));
+
+            assertThat(tool.checkContent(ws, pool)).isEmpty();
+
+            Files.delete(ws.getFile(newItem(3)));
+            Files.delete(ws.getFile(newItem(11)));
+            List<WorkspaceTool.CheckResult> result = tool.checkContent(ws, pool);
+            assertThat(result).extracting(o -> o.getItem().getId()).containsExactly("v3", "v11");
+            assertThat(result).isEqualTo(tool.checkContent(ws));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRemap() throws Exception {
+        File file = new File(temp.getRoot(), "ws.xml");
+        try (FileWorkspace ws = FileWorkspace.create(file.toPath(), FileFormat.GENERIC)) {
+            for (int i = 0; i < 5; i++) {
+                ws.store(newItem(i), newVariables(i, 10));
+            }
+            ws.store(newSaItem(), newProcessing());
+        }
+
+        WorkspaceTool tool = new WorkspaceToolImpl();
+        try (FileWorkspace ws = FileWorkspace.open(file.toPath())) {
+            Map<WorkspaceItem, byte[]> before = getContents(ws);
+            byte[] index = Files.readAllBytes(file.toPath());
+
+            Map<TsMoniker, TsMoniker> remapping = new HashMap<>();
+            remapping.put(new TsMoniker("src", "2.4"), new TsMoniker("other", "x"));
+            remapping.put(new TsMoniker("src", "sa.1"), new TsMoniker("other", "y"));
+            remapping.put(new TsMoniker("src", "3.3"), new TsMoniker("src", "3.3"));
+            remapping.put(new TsMoniker("nowhere", "9.9"), new TsMoniker("other", "z"));
+
+            assertThat(tool.remapMonikers(ws, remapping))
+                    .containsExactlyInAnyOrder(newItem(2), newSaItem());
+
+            Map<WorkspaceItem, byte[]> after = getContents(ws);
+            before.forEach((k, v) -> {
+                if (k.equals(newItem(2)) || k.equals(newSaItem())) {
+                    assertThat(after.get(k)).isNotEqualTo(v);
+                } else {
+                    assertThat(after.get(k)).isEqualTo(v);
+                }
+            });
+
+            assertThat(tool.mapMonikers(ws))
+                    .contains(new TsMoniker("other", "x"), new TsMoniker("other", "y"), new TsMoniker("src", "3.3"))
+                    .doesNotContain(new TsMoniker("src", "2.4"), new TsMoniker("src", "sa.1"));
+            assertThat(tool.remapMonikers(ws, remapping)).isEmpty();
+            assertThat(Files.readAllBytes(file.toPath())).isEqualTo(index);
+
+            // same content as if the workspace had stored the items itself
+            for (WorkspaceItem item : new WorkspaceItem[]{newItem(2), newSaItem()}) {
+                ws.store(item, ws.load(item));
+                assertThat(Files.readAllBytes(ws.getFile(item))).isEqualTo(after.get(item));
+            }
+
+            try (Stream<Path> files = Files.walk(ws.getRootFolder())) {
+                assertThat(files.filter(Files::isRegularFile)).hasSize(6);
+            }
+        }
+    }
+
+    private static Map<WorkspaceItem, byte[]> getContents(FileWorkspace ws) throws IOException {
+        Map<WorkspaceItem, byte[]> result = new HashMap<>();
+        for (WorkspaceItem o : ws.getItems()) {
+            result.put(o, Files.readAllBytes(ws.getFile(o)));
+        }
+        return result;
+    }
+
+    private static WorkspaceItem newSaItem() {
+        return WorkspaceItem.builder().family(WorkspaceFamily.SA_MULTI).id("sa").label("sa").build();
+    }
+
+    private static SaProcessing newProcessing() {
+        SaProcessing result = new SaProcessing();
+        for (int i = 0; i < 3; i++) {
+            result.add(new SaItem(TramoSeatsSpecification.RSA0, TsFactory.instance.createTs("s" + i, new TsMoniker("src", "sa." + i), TsInformationType.None)));
+        }
+        return result;
+    }
+
+    private static WorkspaceItem newItem(int index) {
+        return WorkspaceItem.builder().family(WorkspaceFamily.UTIL_VAR).id("v" + index).label("vars" + index).build();
+    }
+
+    private static TsVariables newVariables(int index, int count) {
+        TsVariables result = new TsVariables();
+        for (int i = 0; i < count; i++) {
+            result.set("x" + i, new DynamicTsVariable("x" + i, new TsMoniker("src", index + "." + i)));
+        }
+        return result;
+    }
+}
@@ -25,7 +25,6 @@ import ec.tstoolkit.timeseries.regression.OutlierEstimation;
 import ec.tstoolkit.timeseries.regression.OutlierType;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
 /**
@@ -34,6 +33,11 @@ import javax.annotation.Nonnull;
  */
 public interface AnomalyDetectionTool {
 
+    /**
+     * The invalid data cause of a series that ran out of time.
+     */
+    public static final String TIMEOUT = "timeout";
+
     public enum DefaultSpec {
 
         TR0, TR1, TR2, TR3, TR4, TR5, TRfull;
@@ -56,6 +60,15 @@ public interface AnomalyDetectionTool {
         TsMoniker moniker;
         List<OutlierEstimation> outliers;
         String invalidDataCause;
+
+        @Nonnull
+        public static OutliersTs timeout(@Nonnull TsInformation info) {
+            OutliersTs result = new OutliersTs();
+            result.setName(info.name);
+            result.setMoniker(info.moniker);
+            result.setInvalidDataCause(TIMEOUT);
+            return result;
+        }
     }
 
     @lombok.Data
@@ -74,7 +87,7 @@ public interface AnomalyDetectionTool {
         OutliersTsCollection result = new OutliersTsCollection();
         result.setName(info.name);
         result.setMoniker(info.moniker);
-        result.setItems(info.items.parallelStream().map(o -> getOutliers(o, options)).collect(Collectors.toList()));
+        result.setItems(SeriesScheduler.common().map(info.items, SeriesScheduler.byLength(), o -> getOutliers(o, options)));
         return result;
     }
     //</editor-fold>
@@ -118,6 +131,14 @@ public interface AnomalyDetectionTool {
             }
             return info;
         }
+
+        @Nonnull
+        public static CheckLastTs timeout(@Nonnull TsInformation info) {
+            CheckLastTs result = new CheckLastTs();
+            result.setName(info.name);
+            result.setInvalidDataCause(TIMEOUT);
+            return result;
+        }
     }
 
     @Nonnull
@@ -125,7 +146,7 @@ public interface AnomalyDetectionTool {
 
     @Nonnull
     default List<InformationSet> getCheckLast(TsCollectionInformation info, CheckLastOptions options) {
-        return info.items.parallelStream().map(o -> getCheckLast(o, options).generate()).collect(Collectors.toList());
+        return SeriesScheduler.common().map(info.items, SeriesScheduler.byLength(), o -> getCheckLast(o, options).generate());
     }
     //</editor-fold>
 
@@ -27,6 +27,9 @@ import ec.tstoolkit.modelling.arima.tramo.TramoSpecification;
 import ec.tstoolkit.timeseries.regression.OutlierEstimation;
 import ec.tstoolkit.timeseries.simplets.TsData;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -37,6 +40,9 @@ import javax.annotation.Nullable;
 @VisibleForTesting
 final class AnomalyDetectionToolImpl implements AnomalyDetectionTool {
 
+    // preprocessors are stateful but reset themselves on each call; hence one per thread and options
+    private final ThreadLocal<Map<Object, IPreprocessor>> preprocessors = ThreadLocal.withInitial(AnomalyDetectionToolImpl::newPreprocessorCache);
+
     @Override
     public OutliersTs getOutliers(TsInformation info, OutliersOptions options) {
         OutliersTs result = new OutliersTs();
@@ -44,7 +50,7 @@ final class AnomalyDetectionToolImpl implements AnomalyDetectionTool {
         result.setMoniker(info.moniker);
         String error = checkData(info.data);
         if (error == null) {
-            PreprocessingModel model = newPreprocessor(options).process(info.data, null);
+            PreprocessingModel model = getPreprocessor(options, AnomalyDetectionToolImpl::newPreprocessor).process(info.data, null);
             if (model != null) {
                 OutlierEstimation[] outliers = model.outliersEstimation(true, false);
                 if (outliers != null) {
@@ -71,7 +77,7 @@ final class AnomalyDetectionToolImpl implements AnomalyDetectionTool {
         result.setName(info.name);
         String error = checkData(info.data);
         if (error == null) {
-            CheckLast cl = new CheckLast(newPreprocessor(options));
+            CheckLast cl = new CheckLast(getPreprocessor(options, AnomalyDetectionToolImpl::newPreprocessor));
             cl.setBackCount(options.getNBacks());
             if (cl.check(info.data)) {
                 result.setScores(cl.getScores());
@@ -89,6 +95,21 @@ final class AnomalyDetectionToolImpl implements AnomalyDetectionTool {
     }
 
     //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private static final int MAX_PREPROCESSORS_PER_THREAD = 8;
+
+    private <T> IPreprocessor getPreprocessor(T options, Function<T, IPreprocessor> factory) {
+        return preprocessors.get().computeIfAbsent(options, o -> factory.apply(options));
+    }
+
+    private static Map<Object, IPreprocessor> newPreprocessorCache() {
+        return new LinkedHashMap<Object, IPreprocessor>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, IPreprocessor> eldest) {
+                return size() > MAX_PREPROCESSORS_PER_THREAD;
+            }
+        };
+    }
+
     @Nonnull
     static TramoSpecification newInstance(DefaultSpec o) {
         switch (o) {
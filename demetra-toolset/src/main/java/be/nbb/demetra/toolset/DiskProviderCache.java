@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import static be.nbb.demetra.toolset.StoreUtil.readNullableString;
+import static be.nbb.demetra.toolset.StoreUtil.writeNullableString;
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.TsInformationType;
+import ec.tss.xml.XmlTsCollection;
+import ec.tstoolkit.design.VisibleForTesting;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Keeps one binary file per collection, named after a digest of its key.
+ * A file starts with its key and with the fields that
+ * {@link TsCollectionBinaryFormat} doesn't keep (the information types and
+ * the invalid data causes) and ends with the collection in that format.
+ * <p>
+ * The modification time of a file is refreshed when it is read so that it
+ * can serve as the time of last use across processes. Failures to write are
+ * logged and ignored since the collection can always be loaded again.
+ *
+ * @author Philippe Charles
+ */
+@lombok.extern.java.Log
+@lombok.AllArgsConstructor
+final class DiskProviderCache implements ProviderCache {
+
+    private static final int MAGIC = 0x50524332;
+    private static final String EXTENSION = ".bin";
+
+    private final Path dir;
+    private final long maxBytes;
+
+    @Override
+    public TsCollectionInformation get(String key) {
+        Path file = getFile(key);
+        try {
+            TsCollectionInformation result = read(Files.readAllBytes(file), key);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return result;
+        } catch (IOException | RuntimeException ex) {
+            // missing, corrupted, evicted or from another version
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, TsCollectionInformation value) {
+        try {
+            StoreUtil.write(getFile(key), out -> write(out, key, value));
+            evict();
+        } catch (IOException | RuntimeException ex) {
+            // disk full, read-only directory, oversized key, ...
+            log.log(Level.WARNING, "While caching a collection", ex);
+        }
+    }
+
+    @VisibleForTesting
+    Path getFile(String key) {
+        MessageDigest digest = StoreUtil.newDigest();
+        StoreUtil.update(digest, key);
+        return dir.resolve(StoreUtil.toHex(digest) + EXTENSION);
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private synchronized void evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        List<BasicFileAttributes> attributes = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path o : stream) {
+                try {
+                    BasicFileAttributes attr = Files.readAttributes(o, BasicFileAttributes.class);
+                    files.add(o);
+                    attributes.add(attr);
+                    total += attr.size();
+                } catch (IOException ex) {
+                    // removed by another process
+                }
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Integer[] lru = new Integer[files.size()];
+        for (int i = 0; i < lru.length; i++) {
+            lru[i] = i;
+        }
+        Arrays.sort(lru, Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+        for (int i = 0; i < lru.length && total > maxBytes; i++) {
+            Files.deleteIfExists(files.get(lru[i]));
+            total -= attributes.get(lru[i]).size();
+        }
+    }
+
+    private static void write(DataOutputStream out, String key, TsCollectionInformation value) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeUTF(key);
+        writeType(out, value.type);
+        writeNullableString(out, value.invalidDataCause);
+        out.writeInt(value.items.size());
+        for (TsInformation o : value.items) {
+            writeType(out, o.type);
+            writeNullableString(out, o.invalidDataCause);
+        }
+        XmlTsCollection xml = new XmlTsCollection();
+        xml.copy(value);
+        TsCollectionBinaryFormat.write(xml, Channels.newChannel(out));
+    }
+
+    private static TsCollectionInformation read(byte[] bytes, String key) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC || !in.readUTF().equals(key)) {
+            throw new IOException("Invalid file");
+        }
+        TsInformationType type = readType(in);
+        String invalidDataCause = readNullableString(in);
+        int size = in.readInt();
+        TsInformationType[] types = new TsInformationType[size];
+        String[] invalidDataCauses = new String[size];
+        for (int i = 0; i < size; i++) {
+            types[i] = readType(in);
+            invalidDataCauses[i] = readNullableString(in);
+        }
+        int offset = bytes.length - in.available();
+        // the alignment of the values is relative to the start of the buffer
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset).slice();
+        TsCollectionInformation result = TsCollectionBinaryFormat.read(buffer).create();
+        if (result.items.size() != size) {
+            throw new IOException("Invalid file");
+        }
+        result.type = type;
+        result.invalidDataCause = invalidDataCause;
+        for (int i = 0; i < size; i++) {
+            TsInformation item = result.items.get(i);
+            item.type = types[i];
+            item.invalidDataCause = invalidDataCauses[i];
+        }
+        return result;
+    }
+
+    private static void writeType(DataOutputStream out, TsInformationType type) throws IOException {
+        writeNullableString(out, type != null ? type.name() : null);
+    }
+
+    private static TsInformationType readType(DataInputStream in) throws IOException {
+        String result = readNullableString(in);
+        return result != null ? TsInformationType.valueOf(result) : null;
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import ec.tstoolkit.timeseries.simplets.TsPeriod;
+import static be.nbb.demetra.toolset.StoreUtil.readNullableString;
+import static be.nbb.demetra.toolset.StoreUtil.writeNullableString;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Keeps one binary file per result, in sub-directories named after the first
+ * characters of the keys. Write failures are logged and ignored since a
+ * missing result is only computed again.
+ *
+ * @author Philippe Charles
+ */
+@lombok.extern.java.Log
+@lombok.AllArgsConstructor
+final class DiskSaStore implements SaStore {
+
+    private static final int MAGIC = 0x53415331;
+
+    private final Path dir;
+
+    @Override
+    public SaTool.SaTs get(String key) {
+        Path file = getFile(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return read(in);
+        } catch (IOException | RuntimeException ex) {
+            // missing, corrupted or from another version
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, SaTool.SaTs value) {
+        try {
+            StoreUtil.write(getFile(key), out -> write(out, value));
+        } catch (IOException | RuntimeException ex) {
+            // disk full, read-only directory, oversized name, ...
+            log.log(Level.WARNING, "While storing a result", ex);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private Path getFile(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + ".bin");
+    }
+
+    private static void write(DataOutputStream out, SaTool.SaTs value) throws IOException {
+        out.writeInt(MAGIC);
+        writeNullableString(out, value.getInvalidDataCause());
+        Map<String, TsData> data = value.getData();
+        out.writeInt(data != null ? data.size() : -1);
+        if (data != null) {
+            for (Map.Entry<String, TsData> o : data.entrySet()) {
+                out.writeUTF(o.getKey());
+                writeTsData(out, o.getValue());
+            }
+        }
+    }
+
+    private static SaTool.SaTs read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid file");
+        }
+        SaTool.SaTs result = new SaTool.SaTs();
+        result.setInvalidDataCause(readNullableString(in));
+        int size = in.readInt();
+        if (size >= 0) {
+            Map<String, TsData> data = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                data.put(in.readUTF(), readTsData(in));
+            }
+            result.setData(data);
+        }
+        return result;
+    }
+
+    private static void writeTsData(DataOutputStream out, TsData data) throws IOException {
+        TsPeriod start = data.getStart();
+        out.writeInt(start.getFrequency().intValue());
+        out.writeInt(start.getYear());
+        out.writeInt(start.getPosition());
+        out.writeInt(data.getLength());
+        for (int i = 0; i < data.getLength(); i++) {
+            out.writeDouble(data.get(i));
+        }
+    }
+
+    private static TsData readTsData(DataInputStream in) throws IOException {
+        TsFrequency freq = TsFrequency.valueOf(in.readInt());
+        TsPeriod start = new TsPeriod(freq, in.readInt(), in.readInt());
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+        return new TsData(start, values, false);
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tss.TsCollectionInformation;
+import java.nio.file.Path;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A cache of time series collections loaded by providers.
+ *
+ * @author Philippe Charles
+ * @see ProviderTool#withCache(ProviderCache)
+ */
+@ThreadSafe
+public interface ProviderCache {
+
+    @Nullable
+    TsCollectionInformation get(@Nonnull String key);
+
+    /**
+     * Adds a collection to the cache. This is done on a best-effort basis:
+     * failures are not reported since the collection can be loaded again.
+     *
+     * @param key
+     * @param value
+     */
+    void put(@Nonnull String key, @Nonnull TsCollectionInformation value);
+
+    @Nonnull
+    public static ProviderCache noOp() {
+        return NoOpProviderCache.INSTANCE;
+    }
+
+    /**
+     * Creates a cache that keeps one binary file per collection in the
+     * specified directory. The least recently used files are removed when
+     * the total size of the directory exceeds a limit.
+     *
+     * @param dir
+     * @param maxBytes
+     * @return a non-null cache
+     */
+    @Nonnull
+    public static ProviderCache onDisk(@Nonnull Path dir, @Nonnegative long maxBytes) {
+        return new DiskProviderCache(dir, maxBytes);
+    }
+}
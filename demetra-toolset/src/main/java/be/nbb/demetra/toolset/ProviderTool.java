@@ -21,17 +21,28 @@ import ec.tss.ITsProvider;
 import ec.tss.TsCollectionInformation;
 import ec.tss.TsInformation;
 import ec.tss.TsInformationType;
+import ec.tss.TsMoniker;
 import ec.tss.tsproviders.DataSet;
 import ec.tss.tsproviders.DataSource;
 import ec.tss.tsproviders.IDataSourceLoader;
 import ec.tss.tsproviders.IDataSourceProvider;
 import ec.tss.tsproviders.IFileLoader;
+import ec.tstoolkit.design.VisibleForTesting;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import javax.annotation.Nonnull;
 
 /**
@@ -53,15 +64,22 @@ public final class ProviderTool {
     private final Iterable<? extends ITsProvider> providers;
     private File[] paths;
     private TsInformationType scope;
+    private ProviderCache cache;
 
     private ProviderTool(Iterable<? extends ITsProvider> providers) {
         this.providers = providers;
         this.paths = new File[0];
         this.scope = TsInformationType.All;
+        this.cache = ProviderCache.noOp();
     }
 
     public ProviderTool withWorkingDir() {
-        paths = new File[]{new File(StandardSystemProperty.USER_DIR.value())};
+        return withPaths(new File(StandardSystemProperty.USER_DIR.value()));
+    }
+
+    @VisibleForTesting
+    ProviderTool withPaths(File... paths) {
+        this.paths = paths;
         return this;
     }
 
@@ -70,34 +88,101 @@ public final class ProviderTool {
         return this;
     }
 
+    /**
+     * Sets a cache of the collections loaded by file-based providers. A
+     * collection is keyed by its URI, the scope and the path, size and
+     * modification time of its file so that a modified file is loaded again.
+     * Other providers are never cached since there is no cheap way to know if
+     * their content has changed.
+     *
+     * @param cache
+     * @return this tool
+     */
+    public ProviderTool withCache(@Nonnull ProviderCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
     @Nonnull
     public TsCollectionInformation get(@Nonnull URI uri) throws IOException {
-        Optional<DataSource> dataSource = DataSource.uriParser().parseValue(uri.toString());
-        if (dataSource.isPresent()) {
-            return get(dataSource.get());
+        Object config = parse(uri);
+        return config instanceof DataSource ? get((DataSource) config) : get((DataSet) config);
+    }
+
+    /**
+     * Retrieves several URIs concurrently and merges their time series in the
+     * order of the URIs. The data sets of a file-based data source that is
+     * requested more than once are served from a single load of the data
+     * source.
+     *
+     * @param uris
+     * @param executor
+     * @return a non-null collection
+     * @throws IOException
+     */
+    @Nonnull
+    public TsCollectionInformation get(@Nonnull List<URI> uris, @Nonnull Executor executor) throws IOException {
+        List<Object> configs = new ArrayList<>();
+        Map<DataSource, Integer> counts = new HashMap<>();
+        for (URI o : uris) {
+            Object config = parse(o);
+            configs.add(config);
+            counts.merge(config instanceof DataSource ? (DataSource) config : ((DataSet) config).getDataSource(), 1, Integer::sum);
         }
-        Optional<DataSet> dataSet = DataSet.uriParser().parseValue(uri.toString());
-        if (dataSet.isPresent()) {
-            return get(dataSet.get());
+
+        Map<DataSource, CompletableFuture<TsCollectionInformation>> shared = new HashMap<>();
+        List<CompletableFuture<TsCollectionInformation>> parts = new ArrayList<>();
+        for (Object config : configs) {
+            if (config instanceof DataSource) {
+                parts.add(shared.computeIfAbsent((DataSource) config, o -> supplyAsync(() -> get(o), executor)));
+            } else {
+                DataSet dataSet = (DataSet) config;
+                IDataSourceProvider p = lookup(IDataSourceProvider.class, dataSet.getDataSource().getProviderName());
+                if (p instanceof IFileLoader && counts.get(dataSet.getDataSource()) > 1) {
+                    parts.add(shared.computeIfAbsent(dataSet.getDataSource(), o -> supplyAsync(() -> get(o), executor))
+                            .thenApplyAsync(all -> select(p, all, dataSet), executor)
+                            .thenCompose(o -> o != null ? CompletableFuture.completedFuture(o) : supplyAsync(() -> get(dataSet), executor)));
+                } else {
+                    parts.add(supplyAsync(() -> get(dataSet), executor));
+                }
+            }
         }
-        throw new IOException("Invalid URI '" + uri + "'");
+
+        TsCollectionInformation result = new TsCollectionInformation();
+        result.type = scope;
+        try {
+            for (CompletableFuture<TsCollectionInformation> o : parts) {
+                result.items.addAll(o.join().items);
+            }
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw ex;
+        }
+        return result;
     }
 
     @Nonnull
     public TsCollectionInformation get(@Nonnull String provider, @Nonnull Object bean) throws IOException {
         IDataSourceLoader p = lookup(IDataSourceLoader.class, provider);
-        return loadTsCollection(p, p.encodeBean(bean));
+        DataSource dataSource = p.encodeBean(bean);
+        return cached(p, dataSource, dataSource.toString(), () -> loadTsCollection(p, dataSource));
     }
 
     @Nonnull
     public TsCollectionInformation get(@Nonnull DataSource dataSource) throws IOException {
         IDataSourceProvider p = lookup(IDataSourceProvider.class, dataSource.getProviderName());
-        return loadTsCollection(p, dataSource);
+        return cached(p, dataSource, dataSource.toString(), () -> loadTsCollection(p, dataSource));
     }
 
     @Nonnull
     public TsCollectionInformation get(@Nonnull DataSet dataSet) throws IOException {
         IDataSourceProvider p = lookup(IDataSourceProvider.class, dataSet.getDataSource().getProviderName());
+        return cached(p, dataSet.getDataSource(), dataSet.toString(), () -> load(p, dataSet));
+    }
+
+    private TsCollectionInformation load(IDataSourceProvider p, DataSet dataSet) throws IOException {
         switch (dataSet.getKind()) {
             case COLLECTION:
                 return loadTsCollection(p, dataSet);
@@ -121,18 +206,156 @@ public final class ProviderTool {
         throw new IOException("Cannot find provider '" + name + "' of type '" + type + "'");
     }
 
-    private boolean withPaths(IDataSourceProvider p, Predicate<IDataSourceProvider> filler) {
+    private static Object parse(URI uri) throws IOException {
+        Optional<DataSource> dataSource = DataSource.uriParser().parseValue(uri.toString());
+        if (dataSource.isPresent()) {
+            return dataSource.get();
+        }
+        Optional<DataSet> dataSet = DataSet.uriParser().parseValue(uri.toString());
+        if (dataSet.isPresent()) {
+            return dataSet.get();
+        }
+        throw new IOException("Invalid URI '" + uri + "'");
+    }
+
+    private static CompletableFuture<TsCollectionInformation> supplyAsync(Loader loader, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, executor);
+    }
+
+    private TsCollectionInformation select(IDataSourceProvider p, TsCollectionInformation all, DataSet dataSet) {
+        TsCollectionInformation result = new TsCollectionInformation(p.toMoniker(dataSet), scope);
+        switch (dataSet.getKind()) {
+            case DUMMY:
+                return result;
+            case SERIES:
+                TsMoniker moniker = p.toMoniker(dataSet);
+                all.items.stream().filter(o -> moniker.equals(o.moniker)).findFirst().ifPresent(result.items::add);
+                break;
+            case COLLECTION:
+                all.items.stream().filter(o -> isChild(p, o.moniker, dataSet)).forEach(result.items::add);
+                break;
+        }
+        // not found in the data source; let the provider decide
+        return result.items.isEmpty() ? null : result;
+    }
+
+    private static boolean isChild(IDataSourceProvider p, TsMoniker moniker, DataSet parent) {
+        try {
+            DataSet dataSet = p.toDataSet(moniker);
+            return dataSet != null
+                    && dataSet.getDataSource().equals(parent.getDataSource())
+                    && dataSet.getParams().entrySet().containsAll(parent.getParams().entrySet());
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private <X> X withPaths(IDataSourceProvider p, Function<IDataSourceProvider, X> filler) {
         if (p instanceof IFileLoader) {
             IFileLoader l = (IFileLoader) p;
-            File[] saved = l.getPaths();
-            l.setPaths(paths);
+            acquirePaths(l, paths);
             try {
-                return filler.test(p);
+                return filler.apply(p);
             } finally {
-                l.setPaths(saved);
+                releasePaths(l);
             }
         } else {
-            return filler.test(p);
+            return filler.apply(p);
+        }
+    }
+
+    // a loader might be shared by several tools, possibly with other paths
+    private static final Map<IFileLoader, PathsUsage> PATHS_USAGES = new IdentityHashMap<>();
+
+    @lombok.RequiredArgsConstructor
+    private static final class PathsUsage {
+
+        final File[] paths;
+        final File[] saved;
+        int count = 0;
+    }
+
+    /**
+     * Sets the paths of a loader for the current thread. Several threads can
+     * use the loader at once as long as they use the same paths; the others
+     * wait until it is released.
+     */
+    private static void acquirePaths(IFileLoader loader, File[] paths) {
+        boolean interrupted = false;
+        synchronized (PATHS_USAGES) {
+            PathsUsage usage;
+            while ((usage = PATHS_USAGES.get(loader)) != null && !Arrays.equals(usage.paths, paths)) {
+                try {
+                    PATHS_USAGES.wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (usage == null) {
+                usage = new PathsUsage(paths, loader.getPaths());
+                loader.setPaths(paths);
+                PATHS_USAGES.put(loader, usage);
+            }
+            usage.count++;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void releasePaths(IFileLoader loader) {
+        synchronized (PATHS_USAGES) {
+            PathsUsage usage = PATHS_USAGES.get(loader);
+            if (--usage.count == 0) {
+                loader.setPaths(usage.saved);
+                PATHS_USAGES.remove(loader);
+                PATHS_USAGES.notifyAll();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+
+        TsCollectionInformation load() throws IOException;
+    }
+
+    private TsCollectionInformation cached(IDataSourceProvider p, DataSource dataSource, String uri, Loader loader) throws IOException {
+        String key = getCacheKey(p, dataSource, uri);
+        if (key == null) {
+            return loader.load();
+        }
+        TsCollectionInformation result = cache.get(key);
+        if (result == null) {
+            result = loader.load();
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    private String getCacheKey(IDataSourceProvider p, DataSource dataSource, String uri) {
+        if (cache == ProviderCache.noOp() || !(p instanceof IFileLoader)) {
+            return null;
+        }
+        File file = withPaths(p, o -> resolveFile((IFileLoader) o, dataSource));
+        return file != null
+                ? uri + "\n" + scope + "\n" + file.getAbsolutePath() + "\n" + file.length() + "\n" + file.lastModified()
+                : null;
+    }
+
+    private static File resolveFile(IFileLoader loader, DataSource dataSource) {
+        try {
+            File result = loader.resolveFilePath(loader.decodeBean(dataSource).getFile());
+            return result.isFile() ? result : null;
+        } catch (IOException | IllegalArgumentException ex) {
+            // let the provider report the problem
+            return null;
         }
     }
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tstoolkit.timeseries.simplets.TsData;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A store of seasonal adjustment results keyed by the content of their input.
+ * Only the data and the invalid data cause of a result are stored since the
+ * other fields come from the input and the options.
+ *
+ * @author Philippe Charles
+ */
+@ThreadSafe
+public interface SaStore {
+
+    @Nullable
+    SaTool.SaTs get(@Nonnull String key);
+
+    void put(@Nonnull String key, @Nonnull SaTool.SaTs value);
+
+    @Nonnull
+    public static SaStore noOp() {
+        return NoOpSaStore.INSTANCE;
+    }
+
+    /**
+     * Creates a store that keeps one file per result in the specified
+     * directory. Unreadable files are considered as missing results.
+     *
+     * @param dir
+     * @return a non-null store
+     */
+    @Nonnull
+    public static SaStore onDisk(@Nonnull Path dir) {
+        return new DiskSaStore(dir);
+    }
+
+    /**
+     * Computes a key from the values of a time series and the options that
+     * affect its processing.
+     *
+     * @param data
+     * @param options
+     * @return a non-null hexadecimal string
+     */
+    @Nonnull
+    public static String getKey(@Nonnull TsData data, @Nonnull SaTool.Options options) {
+        MessageDigest digest = StoreUtil.newDigest();
+        StoreUtil.update(digest, options.getAlgorithm().toLowerCase());
+        StoreUtil.update(digest, options.getSpec());
+        options.getItems().forEach(o -> StoreUtil.update(digest, o));
+        StoreUtil.update(digest, data);
+        return StoreUtil.toHex(digest);
+    }
+}
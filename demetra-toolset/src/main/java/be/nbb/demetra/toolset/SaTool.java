@@ -65,6 +65,24 @@ public interface SaTool {
     @Nonnull
     SaTsCollection create(@Nonnull TsCollectionInformation info, @Nonnull Options options);
 
+    @Nonnull
+    SaTsCollection create(@Nonnull TsCollectionInformation info, @Nonnull Options options, @Nonnull SeriesScheduler scheduler);
+
+    /**
+     * Creates a seasonal adjustment report or reuses the one kept in a store
+     * if the values of the time series have not changed.
+     *
+     * @param info
+     * @param options
+     * @param store
+     * @return a non-null report
+     */
+    @Nonnull
+    SaTs create(@Nonnull TsInformation info, @Nonnull Options options, @Nonnull SaStore store);
+
+    @Nonnull
+    SaTsCollection create(@Nonnull TsCollectionInformation info, @Nonnull Options options, @Nonnull SeriesScheduler scheduler, @Nonnull SaStore store);
+
     @Nonnull
     List<TsInformation> toTs(@Nonnull SaTs ts);
 
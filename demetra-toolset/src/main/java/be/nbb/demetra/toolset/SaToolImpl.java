@@ -33,6 +33,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -44,15 +46,30 @@ import javax.annotation.Nullable;
 @VisibleForTesting
 final class SaToolImpl implements SaTool {
 
+    // processings are built once per thread since they are not guaranteed to be thread-safe
+    private final ConcurrentMap<ProcessingKey, ThreadLocal<IProcessing<TsData, CompositeResults>>> processings = new ConcurrentHashMap<>();
+
     @Override
     public SaTs create(TsInformation info, Options options) {
+        return create(info, options, SaStore.noOp());
+    }
+
+    @Override
+    public SaTs create(TsInformation info, Options options, SaStore store) {
         SaTs result = new SaTs();
         result.setName(info.name);
         result.setMoniker(info.moniker);
         result.setAlgorithm(options.getAlgorithm());
         result.setSpec(options.getSpec());
         if (info.data != null && !info.data.isEmpty()) {
-            CompositeResults results = newProcessing(options).process(info.data);
+            String key = SaStore.getKey(info.data, options);
+            SaTs stored = store.get(key);
+            if (stored != null) {
+                result.setData(stored.getData());
+                result.setInvalidDataCause(stored.getInvalidDataCause());
+                return result;
+            }
+            CompositeResults results = getProcessing(options).process(info.data);
             if (results != null) {
                 result.setData(options.getItems().stream()
                         .filter(o -> (results.contains(o)) && results.getData(o, TsData.class) != null)
@@ -62,6 +79,7 @@ final class SaToolImpl implements SaTool {
                 result.setData(null);
                 result.setInvalidDataCause("The processing returned no results !");
             }
+            store.put(key, result);
         } else {
             result.setData(Collections.emptyMap());
             result.setInvalidDataCause(null);
@@ -71,12 +89,22 @@ final class SaToolImpl implements SaTool {
 
     @Override
     public SaTsCollection create(TsCollectionInformation info, Options options) {
+        return create(info, options, SeriesScheduler.common());
+    }
+
+    @Override
+    public SaTsCollection create(TsCollectionInformation info, Options options, SeriesScheduler scheduler) {
+        return create(info, options, scheduler, SaStore.noOp());
+    }
+
+    @Override
+    public SaTsCollection create(TsCollectionInformation info, Options options, SeriesScheduler scheduler, SaStore store) {
         SaTsCollection result = new SaTsCollection();
         result.setName(info.name);
         result.setMoniker(info.moniker);
         result.setAlgorithm(options.getAlgorithm());
         result.setSpec(options.getSpec());
-        result.setItems(info.items.parallelStream().map(o -> create(o, options)).collect(Collectors.toList()));
+        result.setItems(scheduler.map(info.items, SeriesScheduler.byLength(), o -> create(o, options, store)));
         return result;
     }
 
@@ -116,6 +144,20 @@ final class SaToolImpl implements SaTool {
     }
 
     //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    @Nonnull
+    private IProcessing<TsData, CompositeResults> getProcessing(Options o) {
+        return processings
+                .computeIfAbsent(new ProcessingKey(o.getAlgorithm().toLowerCase(), o.getSpec()), k -> ThreadLocal.withInitial(() -> newProcessing(o)))
+                .get();
+    }
+
+    @lombok.Value
+    private static class ProcessingKey {
+
+        String algorithm;
+        String spec;
+    }
+
     @Nonnull
     private static IProcessing<TsData, CompositeResults> newProcessing(Options o) {
         switch (o.getAlgorithm().toLowerCase()) {
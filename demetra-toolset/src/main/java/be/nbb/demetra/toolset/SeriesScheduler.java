@@ -0,0 +1,335 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tss.TsInformation;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Maps a list of items on an executor in cost-aware chunks. The costliest
+ * items are submitted first and on their own whereas the cheap ones are
+ * grouped, so that a long series doesn't end up as the straggler of a run.
+ *
+ * @author Philippe Charles
+ */
+@lombok.Value
+public class SeriesScheduler {
+
+    @Nonnull
+    public static SeriesScheduler common() {
+        return new SeriesScheduler(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    @Nonnull
+    public static ToIntFunction<TsInformation> byLength() {
+        return o -> o.data != null ? o.data.getLength() : 0;
+    }
+
+    @lombok.NonNull
+    Executor executor;
+
+    @Nonnegative
+    int parallelism;
+
+    /**
+     * Applies a function to each item and keeps the order of the input.
+     *
+     * @param <X>
+     * @param <Y>
+     * @param input
+     * @param cost an estimation of the cost of an item
+     * @param function
+     * @return a non-null list
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public <X, Y> List<Y> map(@Nonnull List<X> input, @Nonnull ToIntFunction<? super X> cost, @Nonnull Function<? super X, ? extends Y> function) {
+        if (parallelism <= 1 || input.size() <= 1) {
+            return input.stream().<Y>map(function).collect(Collectors.toList());
+        }
+        Object[] result = new Object[input.size()];
+        CompletableFuture<?>[] tasks = getChunks(input, cost).stream()
+                .map(chunk -> CompletableFuture.runAsync(() -> apply(input, chunk, function, result), executor))
+                .toArray(CompletableFuture<?>[]::new);
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+        return (List<Y>) Arrays.asList(result);
+    }
+
+    /**
+     * Applies a function to each item with a wall-clock budget per item and
+     * keeps the order of the input. An item that runs out of time is
+     * abandoned and replaced by the result of a fallback function so that a
+     * pathological item cannot stall the whole list.
+     * <p>
+     * Items run on the threads of the executor and a single watcher thread
+     * abandons the late ones: the rest of the chunk of an abandoned item is
+     * handed to another task while the item keeps its thread until it
+     * returns, since computations can't be stopped safely. The number of
+     * abandoned items that still run is therefore bounded by the threads of
+     * the executor; once they are all taken, the other items wait for them.
+     *
+     * @param <X>
+     * @param <Y>
+     * @param input
+     * @param cost an estimation of the cost of an item
+     * @param function
+     * @param timeout the budget of an item; zero or negative for no budget
+     * @param fallback a function that gives the result of an abandoned item
+     * @param progress a consumer of the number of completed items, called
+     * periodically on the calling thread
+     * @return a non-null list
+     */
+    @Nonnull
+    public <X, Y> List<Y> map(@Nonnull List<X> input, @Nonnull ToIntFunction<? super X> cost, @Nonnull Function<? super X, ? extends Y> function,
+            @Nonnull Duration timeout, @Nonnull Function<? super X, ? extends Y> fallback, @Nonnull IntConsumer progress) {
+        return map(input, cost, function, timeout, fallback, (x, y) -> {
+        }, progress);
+    }
+
+    /**
+     * Same as {@link #map(List, ToIntFunction, Function, Duration, Function, IntConsumer)}
+     * but also reports each result of the function that is kept in the list.
+     * The late result of an abandoned item is never reported.
+     *
+     * @param <X>
+     * @param <Y>
+     * @param input
+     * @param cost an estimation of the cost of an item
+     * @param function
+     * @param timeout the budget of an item; zero or negative for no budget
+     * @param fallback a function that gives the result of an abandoned item
+     * @param listener a consumer of the accepted results, called on the
+     * thread of the item before it is counted as completed
+     * @param progress a consumer of the number of completed items, called
+     * periodically on the calling thread
+     * @return a non-null list
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public <X, Y> List<Y> map(@Nonnull List<X> input, @Nonnull ToIntFunction<? super X> cost, @Nonnull Function<? super X, ? extends Y> function,
+            @Nonnull Duration timeout, @Nonnull Function<? super X, ? extends Y> fallback, @Nonnull BiConsumer<? super X, ? super Y> listener, @Nonnull IntConsumer progress) {
+        Object[] result = new Object[input.size()];
+        Batch<X, Y> batch = new Batch<>(input, function, timeout, fallback, listener, executor, result);
+        CompletableFuture<?>[] tasks = getChunks(input, cost).stream()
+                .map(batch::submit)
+                .toArray(CompletableFuture<?>[]::new);
+        CompletableFuture<Void> all = CompletableFuture.allOf(tasks);
+        try {
+            while (true) {
+                try {
+                    all.get(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    progress.accept(batch.done.get());
+                    return (List<Y>) Arrays.asList(result);
+                } catch (TimeoutException ex) {
+                    progress.accept(batch.done.get());
+                }
+            }
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : new CompletionException(ex.getCause());
+        } catch (InterruptedException ex) {
+            batch.cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    // more chunks than workers allows some balancing at the end of a run
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+    private static final ScheduledThreadPoolExecutor WATCHER = newWatcher();
+
+    private static ScheduledThreadPoolExecutor newWatcher() {
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "series-scheduler-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        result.setRemoveOnCancelPolicy(true);
+        return result;
+    }
+
+    @lombok.RequiredArgsConstructor
+    private static final class Batch<X, Y> {
+
+        final List<X> input;
+        final Function<? super X, ? extends Y> function;
+        final Duration timeout;
+        final Function<? super X, ? extends Y> fallback;
+        final BiConsumer<? super X, ? super Y> listener;
+        final Executor executor;
+        final Object[] result;
+        final AtomicInteger done = new AtomicInteger();
+        volatile boolean cancelled = false;
+
+        CompletableFuture<Void> submit(int[] indexes) {
+            Chunk chunk = new Chunk(indexes);
+            chunk.resume();
+            return chunk.completion;
+        }
+
+        private final class Chunk {
+
+            final int[] indexes;
+            final CompletableFuture<Void> completion = new CompletableFuture<>();
+            // guarded by this
+            int next = 0;
+            Object owner = null;
+            ScheduledFuture<?> watch = null;
+
+            Chunk(int[] indexes) {
+                this.indexes = indexes;
+            }
+
+            void resume() {
+                try {
+                    executor.execute(this::run);
+                } catch (RejectedExecutionException ex) {
+                    completion.completeExceptionally(ex);
+                }
+            }
+
+            void run() {
+                Object token = new Object();
+                while (true) {
+                    int index;
+                    synchronized (this) {
+                        if (next == indexes.length || cancelled) {
+                            completion.complete(null);
+                            return;
+                        }
+                        index = indexes[next++];
+                        owner = token;
+                        if (!timeout.isZero() && !timeout.isNegative()) {
+                            watch = WATCHER.schedule(() -> abandon(token, index), timeout.toNanos(), TimeUnit.NANOSECONDS);
+                        }
+                    }
+                    Y value;
+                    try {
+                        value = function.apply(input.get(index));
+                    } catch (RuntimeException | Error ex) {
+                        if (release(token)) {
+                            completion.completeExceptionally(ex);
+                        }
+                        return;
+                    }
+                    if (!release(token)) {
+                        // abandoned; its fallback is already in the list
+                        return;
+                    }
+                    try {
+                        listener.accept(input.get(index), value);
+                    } catch (RuntimeException | Error ex) {
+                        completion.completeExceptionally(ex);
+                        return;
+                    }
+                    result[index] = value;
+                    done.incrementAndGet();
+                }
+            }
+
+            private synchronized boolean release(Object token) {
+                if (owner != token) {
+                    return false;
+                }
+                owner = null;
+                if (watch != null) {
+                    watch.cancel(false);
+                    watch = null;
+                }
+                return true;
+            }
+
+            private void abandon(Object token, int index) {
+                synchronized (this) {
+                    if (owner != token) {
+                        return;
+                    }
+                    owner = null;
+                    watch = null;
+                }
+                try {
+                    result[index] = fallback.apply(input.get(index));
+                } catch (RuntimeException ex) {
+                    completion.completeExceptionally(ex);
+                    return;
+                }
+                done.incrementAndGet();
+                resume();
+            }
+        }
+    }
+
+    private <X> List<int[]> getChunks(List<X> input, ToIntFunction<? super X> cost) {
+        long[] costs = input.stream().mapToLong(o -> Math.max(1, cost.applyAsInt(o))).toArray();
+        int[] sorted = IntStream.range(0, costs.length)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> costs[i]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        long target = Math.max(1, Arrays.stream(costs).sum() / ((long) Math.max(1, parallelism) * CHUNKS_PER_WORKER));
+
+        List<int[]> result = new ArrayList<>();
+        int start = 0;
+        long current = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            current += costs[sorted[i]];
+            if (current >= target || i == sorted.length - 1) {
+                result.add(Arrays.copyOfRange(sorted, start, i + 1));
+                start = i + 1;
+                current = 0;
+            }
+        }
+        return result;
+    }
+
+    private static <X> void apply(List<X> input, int[] chunk, Function<? super X, ?> function, Object[] result) {
+        for (int i : chunk) {
+            result[i] = function.apply(input.get(i));
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tstoolkit.timeseries.simplets.TsData;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Helpers shared by the stores that keep their content in binary files.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+public class StoreUtil {
+
+    @FunctionalInterface
+    public interface Content {
+
+        void writeTo(@Nonnull DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes a file aside and then moves it to its target so that concurrent
+     * readers never see a partial file. The parent directory is created if
+     * missing.
+     *
+     * @param file
+     * @param content
+     * @throws IOException
+     */
+    public static void write(@Nonnull Path file, @Nonnull Content content) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "store", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                content.writeTo(out);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public static void writeNullableString(@Nonnull DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    public static String readNullableString(@Nonnull DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Nonnull
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Adds a string to a digest, prefixed by its length so that consecutive
+     * strings can't be confused.
+     *
+     * @param digest
+     * @param value
+     */
+    public static void update(@Nonnull MessageDigest digest, @Nullable String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        digest.update(ByteBuffer.allocate(4).putInt(value != null ? bytes.length : -1).array());
+        digest.update(bytes);
+    }
+
+    public static void update(@Nonnull MessageDigest digest, @Nonnull TsData data) {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + data.getLength() * 8)
+                .putInt(data.getFrequency().intValue())
+                .putInt(data.getStart().getYear())
+                .putInt(data.getStart().getPosition())
+                .putInt(data.getLength());
+        for (int i = 0; i < data.getLength(); i++) {
+            // doubleToLongBits collapses the NaNs into a single value
+            buffer.putLong(Double.doubleToLongBits(data.get(i)));
+        }
+        digest.update(buffer.array());
+    }
+
+    @Nonnull
+    public static String toHex(@Nonnull MessageDigest digest) {
+        StringBuilder result = new StringBuilder();
+        for (byte o : digest.digest()) {
+            result.append(Character.forDigit((o >> 4) & 0xf, 16)).append(Character.forDigit(o & 0xf, 16));
+        }
+        return result.toString();
+    }
+}
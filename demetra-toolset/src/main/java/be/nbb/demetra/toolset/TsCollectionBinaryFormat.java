@@ -0,0 +1,289 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tss.xml.XmlMetaData;
+import ec.tss.xml.XmlProperty;
+import ec.tss.xml.XmlTs;
+import ec.tss.xml.XmlTsCollection;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * A compact binary layout of a collection of time series.
+ * <p>
+ * All numbers are little-endian. The layout starts with a dictionary of the
+ * strings (names, monikers and metadata) that are then referred to by their
+ * index (-1 for null). It follows with the fields of the collection and with
+ * one column per field of the series. The values of all the series come last
+ * as a single block of doubles aligned on 8 bytes.
+ *
+ * @author Philippe Charles
+ */
+@lombok.experimental.UtilityClass
+public class TsCollectionBinaryFormat {
+
+    public static void write(@Nonnull XmlTsCollection value, @Nonnull WritableByteChannel channel) throws IOException {
+        write(channel, getHeader(value));
+        ByteBuffer buffer = newBuffer(VALUES_BUFFER_SIZE);
+        if (value.tslist != null) {
+            for (XmlTs ts : value.tslist) {
+                if (ts != null && ts.data != null) {
+                    for (double o : ts.data) {
+                        if (!buffer.hasRemaining()) {
+                            write(channel, buffer);
+                        }
+                        buffer.putDouble(o);
+                    }
+                }
+            }
+        }
+        write(channel, buffer);
+    }
+
+    /**
+     * Reads a collection from the position of a buffer. The alignment of the
+     * values is relative to the start of the buffer.
+     *
+     * @param buffer
+     * @return a non-null collection
+     * @throws IOException if the content is truncated or corrupted
+     */
+    @Nonnull
+    public static XmlTsCollection read(@Nonnull ByteBuffer buffer) throws IOException {
+        try {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Invalid binary time series collection");
+            }
+            String[] dictionary = readDictionary(buffer);
+
+            XmlTsCollection result = new XmlTsCollection();
+            result.name = get(dictionary, buffer.getInt());
+            result.source = get(dictionary, buffer.getInt());
+            result.identifier = get(dictionary, buffer.getInt());
+            int collectionMeta = buffer.getInt();
+            result.metadata = readMeta(buffer, dictionary, collectionMeta);
+
+            int n = buffer.getInt();
+            int[][] columns = new int[8][];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = readInts(buffer, n);
+            }
+            result.tslist = new XmlTs[n];
+            for (int i = 0; i < n; i++) {
+                XmlTs ts = new XmlTs();
+                ts.name = get(dictionary, columns[0][i]);
+                ts.source = get(dictionary, columns[1][i]);
+                ts.identifier = get(dictionary, columns[2][i]);
+                ts.freq = columns[3][i] != NULL_INTEGER ? columns[3][i] : null;
+                ts.firstYear = columns[4][i] != NULL_INTEGER ? columns[4][i] : null;
+                ts.firstPeriod = columns[5][i] != NULL_INTEGER ? columns[5][i] : null;
+                ts.metaData = readMeta(buffer, dictionary, columns[7][i]);
+                result.tslist[i] = ts;
+            }
+
+            buffer.position(buffer.position() + (8 - buffer.position() % 8) % 8);
+            for (int i = 0; i < n; i++) {
+                if (columns[6][i] != NULL) {
+                    result.tslist[i].data = new double[columns[6][i]];
+                    buffer.asDoubleBuffer().get(result.tslist[i].data);
+                    buffer.position(buffer.position() + columns[6][i] * 8);
+                }
+            }
+            return result;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw new IOException("Truncated or corrupted binary time series collection", ex);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Implementation details">
+    private static final int MAGIC = 0x43535444;
+    private static final int VERSION = 1;
+    private static final int NULL = -1;
+    private static final int NULL_INTEGER = Integer.MIN_VALUE;
+    private static final int VALUES_BUFFER_SIZE = 64 * 1024;
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static ByteBuffer getHeader(XmlTsCollection value) {
+        Dictionary dictionary = new Dictionary();
+        XmlTs[] series = value.tslist != null ? value.tslist : new XmlTs[0];
+
+        // strings are collected first since the dictionary comes first
+        int[] collection = {dictionary.add(value.name), dictionary.add(value.source), dictionary.add(value.identifier)};
+        int[] collectionMeta = dictionary.add(value.metadata);
+        int[][] columns = new int[6][series.length];
+        int[] lengths = new int[series.length];
+        int[][] metas = new int[series.length][];
+        for (int i = 0; i < series.length; i++) {
+            XmlTs ts = series[i] != null ? series[i] : new XmlTs();
+            columns[0][i] = dictionary.add(ts.name);
+            columns[1][i] = dictionary.add(ts.source);
+            columns[2][i] = dictionary.add(ts.identifier);
+            columns[3][i] = ts.freq != null ? ts.freq : NULL_INTEGER;
+            columns[4][i] = ts.firstYear != null ? ts.firstYear : NULL_INTEGER;
+            columns[5][i] = ts.firstPeriod != null ? ts.firstPeriod : NULL_INTEGER;
+            lengths[i] = ts.data != null ? ts.data.length : NULL;
+            metas[i] = dictionary.add(ts.metaData);
+        }
+
+        // the counts of the series metadata are already part of the int columns
+        int size = 8 + dictionary.getByteSize() + 12 + getByteSize(collectionMeta) + 4 + series.length * 4 * 8;
+        for (int[] o : metas) {
+            size += o != null ? o.length * 4 : 0;
+        }
+        int padding = (8 - size % 8) % 8;
+
+        ByteBuffer result = newBuffer(size + padding);
+        result.putInt(MAGIC).putInt(VERSION);
+        dictionary.put(result);
+        putInts(result, collection);
+        putMeta(result, collectionMeta);
+        result.putInt(series.length);
+        for (int[] column : columns) {
+            putInts(result, column);
+        }
+        putInts(result, lengths);
+        for (int[] o : metas) {
+            result.putInt(o != null ? o.length / 2 : NULL);
+        }
+        for (int[] o : metas) {
+            if (o != null) {
+                putInts(result, o);
+            }
+        }
+        result.position(result.position() + padding);
+        return result;
+    }
+
+    private static int getByteSize(int[] meta) {
+        return 4 + (meta != null ? meta.length * 4 : 0);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        for (int o : values) {
+            buffer.putInt(o);
+        }
+    }
+
+    private static void putMeta(ByteBuffer buffer, int[] meta) {
+        buffer.putInt(meta != null ? meta.length / 2 : NULL);
+        if (meta != null) {
+            putInts(buffer, meta);
+        }
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] result = new String[buffer.getInt()];
+        for (int i = 0; i < result.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            result[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int n) {
+        int[] result = new int[n];
+        buffer.asIntBuffer().get(result);
+        buffer.position(buffer.position() + n * 4);
+        return result;
+    }
+
+    private static XmlMetaData readMeta(ByteBuffer buffer, String[] dictionary, int count) {
+        if (count == NULL) {
+            return null;
+        }
+        XmlMetaData result = new XmlMetaData();
+        result.properties = new XmlProperty[count];
+        for (int i = 0; i < count; i++) {
+            XmlProperty property = new XmlProperty();
+            property.name = get(dictionary, buffer.getInt());
+            property.value = get(dictionary, buffer.getInt());
+            result.properties[i] = property;
+        }
+        return result;
+    }
+
+    private static String get(String[] dictionary, int index) {
+        return index != NULL ? dictionary[index] : null;
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> indexes = new LinkedHashMap<>();
+        private final List<byte[]> bytes = new ArrayList<>();
+        private int byteSize = 4;
+
+        int add(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            return indexes.computeIfAbsent(value, o -> {
+                byte[] tmp = o.getBytes(StandardCharsets.UTF_8);
+                bytes.add(tmp);
+                byteSize += 4 + tmp.length;
+                return bytes.size() - 1;
+            });
+        }
+
+        int[] add(XmlMetaData value) {
+            if (value == null) {
+                return null;
+            }
+            XmlProperty[] properties = value.properties != null ? value.properties : new XmlProperty[0];
+            int[] result = new int[properties.length * 2];
+            for (int i = 0; i < properties.length; i++) {
+                result[i * 2] = add(properties[i].name);
+                result[i * 2 + 1] = add(properties[i].value);
+            }
+            return result;
+        }
+
+        int getByteSize() {
+            return byteSize;
+        }
+
+        void put(ByteBuffer buffer) {
+            buffer.putInt(bytes.size());
+            for (byte[] o : bytes) {
+                buffer.putInt(o.length).put(o);
+            }
+        }
+    }
+    //</editor-fold>
+}
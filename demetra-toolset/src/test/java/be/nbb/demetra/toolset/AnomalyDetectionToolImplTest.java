@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import be.nbb.demetra.toolset.AnomalyDetectionTool.CheckLastOptions;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.CheckLastTs;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.DefaultSpec;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersOptions;
+import be.nbb.demetra.toolset.AnomalyDetectionTool.OutliersTs;
+import ec.tss.TsInformation;
+import ec.tstoolkit.modelling.DefaultTransformationType;
+import ec.tstoolkit.timeseries.regression.OutlierEstimation;
+import static ec.tstoolkit.timeseries.regression.OutlierType.AO;
+import static ec.tstoolkit.timeseries.regression.OutlierType.LS;
+import static ec.tstoolkit.timeseries.regression.OutlierType.TC;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class AnomalyDetectionToolImplTest {
+
+    @Test
+    public void testReusedOutliers() {
+        List<TsInformation> sample = getSample();
+        int detected = 0;
+        for (DefaultSpec spec : DefaultSpec.values()) {
+            OutliersOptions options = new OutliersOptions(spec, 0, DefaultTransformationType.None, EnumSet.of(AO, LS, TC));
+            // one tool for the whole sequence, hence one preprocessor on this thread
+            AnomalyDetectionToolImpl reused = new AnomalyDetectionToolImpl();
+            for (int i = 0; i < 2; i++) {
+                for (TsInformation ts : sample) {
+                    OutliersTs expected = new AnomalyDetectionToolImpl().getOutliers(ts, options);
+                    OutliersTs actual = reused.getOutliers(ts, options);
+                    assertThat(toString(actual)).as("%s on %s", spec, ts.name).isEqualTo(toString(expected));
+                    detected += expected.getOutliers() != null ? expected.getOutliers().size() : 0;
+                }
+            }
+        }
+        assertThat(detected).isPositive();
+    }
+
+    @Test
+    public void testReusedCheckLast() {
+        List<TsInformation> sample = getSample();
+        for (DefaultSpec spec : DefaultSpec.values()) {
+            CheckLastOptions options = new CheckLastOptions(spec, 0, 2);
+            AnomalyDetectionToolImpl reused = new AnomalyDetectionToolImpl();
+            for (int i = 0; i < 2; i++) {
+                for (TsInformation ts : sample) {
+                    CheckLastTs expected = new AnomalyDetectionToolImpl().getCheckLast(ts, options);
+                    CheckLastTs actual = reused.getCheckLast(ts, options);
+                    assertThat(actual).as("%s on %s", spec, ts.name).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    private static String toString(OutliersTs o) {
+        return o.getName() + " " + o.getInvalidDataCause() + " " + (o.getOutliers() != null
+                ? o.getOutliers().stream().map(AnomalyDetectionToolImplTest::toString).collect(Collectors.toList())
+                : null);
+    }
+
+    private static String toString(OutlierEstimation o) {
+        return o.getCode() + o.getPosition() + "=" + o.getValue() + "/" + o.getStdev();
+    }
+
+    private static List<TsInformation> getSample() {
+        Random random = new Random(0);
+        List<TsInformation> result = new ArrayList<>();
+        result.add(getSeries("m120", random, TsFrequency.Monthly, 120, 40));
+        result.add(getSeries("q48", random, TsFrequency.Quarterly, 48, 20));
+        result.add(getSeries("m180", random, TsFrequency.Monthly, 180, 150));
+        result.add(getSeries("m12", random, TsFrequency.Monthly, 12, -1));
+        result.add(getSeries("m72", random, TsFrequency.Monthly, 72, 60));
+        return result;
+    }
+
+    private static TsInformation getSeries(String name, Random random, TsFrequency freq, int length, int spike) {
+        TsInformation result = new TsInformation();
+        result.name = name;
+        result.data = new TsData(freq, 2000, 0, length);
+        double value = 100;
+        for (int i = 0; i < length; i++) {
+            value += random.nextDouble() - .5;
+            result.data.set(i, i == spike ? value + 10 : value);
+        }
+        return result;
+    }
+}
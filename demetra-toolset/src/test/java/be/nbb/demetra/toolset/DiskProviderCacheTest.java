@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.TsInformationType;
+import ec.tss.TsMoniker;
+import ec.tstoolkit.MetaData;
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class DiskProviderCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DiskProviderCache cache = new DiskProviderCache(temp.getRoot().toPath(), Long.MAX_VALUE);
+        TsCollectionInformation sample = getSample(3);
+
+        assertThat(cache.get("key")).isNull();
+        cache.put("key", sample);
+        assertSameCollection(cache.get("key"), sample);
+        assertThat(cache.get("other")).isNull();
+
+        // an odd number of series shifts the values of the binary format
+        for (int count : new int[]{0, 1, 5}) {
+            cache.put("key" + count, getSample(count));
+            assertSameCollection(cache.get("key" + count), getSample(count));
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        Path dir = temp.getRoot().toPath();
+        TsCollectionInformation sample = getSample(3);
+
+        DiskProviderCache unbounded = new DiskProviderCache(dir, Long.MAX_VALUE);
+        unbounded.put("a", sample);
+        long size = Files.size(unbounded.getFile("a"));
+
+        DiskProviderCache cache = new DiskProviderCache(dir, size * 5 / 2);
+        cache.put("b", sample);
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(cache.getFile("a"), FileTime.fromMillis(now - 3000));
+        Files.setLastModifiedTime(cache.getFile("b"), FileTime.fromMillis(now - 2000));
+
+        // reading "a" makes "b" the least recently used
+        assertThat(cache.get("a")).isNotNull();
+        cache.put("c", sample);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(Files.list(dir).count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCorruptedFile() throws Exception {
+        DiskProviderCache cache = new DiskProviderCache(temp.getRoot().toPath(), Long.MAX_VALUE);
+        Path file = cache.getFile("key");
+
+        cache.put("key", getSample(3));
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThat(cache.get("key")).isNull();
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThat(cache.get("key")).isNull();
+
+        Files.write(file, new byte[0]);
+        assertThat(cache.get("key")).isNull();
+
+        // a file written under another key
+        cache.put("key", getSample(3));
+        Files.copy(file, cache.getFile("other"));
+        assertThat(cache.get("other")).isNull();
+
+        assertSameCollection(cache.get("key"), getSample(3));
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        File notADirectory = temp.newFile();
+        DiskProviderCache cache = new DiskProviderCache(notADirectory.toPath(), Long.MAX_VALUE);
+        cache.put("key", getSample(3));
+        assertThat(cache.get("key")).isNull();
+
+        cache = new DiskProviderCache(temp.newFolder().toPath(), Long.MAX_VALUE);
+        char[] oversized = new char[70000];
+        Arrays.fill(oversized, 'x');
+        cache.put(new String(oversized), getSample(3));
+        assertThat(cache.get(new String(oversized))).isNull();
+    }
+
+    static TsCollectionInformation getSample(int count) {
+        TsCollectionInformation result = new TsCollectionInformation(new TsMoniker("src", "col"), TsInformationType.All);
+        result.name = "sample";
+        result.metaData = new MetaData();
+        result.metaData.put("k", "v");
+        for (int i = 0; i < count; i++) {
+            TsInformation ts = new TsInformation("ts" + i, new TsMoniker("src", "col#" + i), TsInformationType.All);
+            ts.data = new TsData(i % 2 == 0 ? TsFrequency.Monthly : TsFrequency.Quarterly, 2000 + i, 1, new double[]{i, Double.NaN, 3.5, -i}, false);
+            if (i == 1) {
+                ts.metaData = new MetaData();
+                ts.metaData.put("unit", "EUR");
+            }
+            result.items.add(ts);
+        }
+        if (count > 2) {
+            TsInformation invalid = new TsInformation("invalid", new TsMoniker("src", "col#x"), TsInformationType.Definition);
+            invalid.invalidDataCause = "Not found";
+            result.items.set(2, invalid);
+        }
+        return result;
+    }
+
+    static void assertSameCollection(TsCollectionInformation actual, TsCollectionInformation expected) {
+        assertThat(actual).isNotNull();
+        assertThat(actual.name).isEqualTo(expected.name);
+        assertThat(actual.moniker).isEqualTo(expected.moniker);
+        assertThat(actual.type).isEqualTo(expected.type);
+        assertThat(actual.invalidDataCause).isEqualTo(expected.invalidDataCause);
+        assertThat(actual.metaData).isEqualTo(expected.metaData);
+        assertThat(actual.items).hasSameSizeAs(expected.items);
+        for (int i = 0; i < expected.items.size(); i++) {
+            TsInformation l = actual.items.get(i);
+            TsInformation r = expected.items.get(i);
+            assertThat(l.name).isEqualTo(r.name);
+            assertThat(l.moniker).isEqualTo(r.moniker);
+            assertThat(l.type).isEqualTo(r.type);
+            assertThat(l.invalidDataCause).isEqualTo(r.invalidDataCause);
+            assertThat(l.metaData).isEqualTo(r.metaData);
+            assertThat(l.data).isEqualTo(r.data);
+        }
+    }
+}
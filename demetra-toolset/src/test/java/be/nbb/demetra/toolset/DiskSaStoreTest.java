@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tstoolkit.timeseries.simplets.TsData;
+import ec.tstoolkit.timeseries.simplets.TsFrequency;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeFalse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class DiskSaStoreTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        SaStore store = SaStore.onDisk(temp.getRoot().toPath());
+
+        assertThat(store.get("abcd")).isNull();
+        store.put("abcd", getSample());
+        assertThat(store.get("abcd")).isEqualTo(getSample());
+        assertThat(store.get("abce")).isNull();
+    }
+
+    @Test
+    public void testReadOnlyDirectory() throws Exception {
+        Path dir = temp.newFolder().toPath();
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("r-xr-xr-x"));
+        try {
+            assumeFalse("permissions are not enforced", Files.isWritable(dir));
+            SaStore store = SaStore.onDisk(dir);
+            store.put("abcd", getSample());
+            assertThat(store.get("abcd")).isNull();
+        } finally {
+            Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        File notADirectory = temp.newFile();
+        SaStore store = SaStore.onDisk(notADirectory.toPath());
+        store.put("abcd", getSample());
+        assertThat(store.get("abcd")).isNull();
+    }
+
+    private static SaTool.SaTs getSample() {
+        SaTool.SaTs result = new SaTool.SaTs();
+        result.setData(Collections.singletonMap("sa", new TsData(TsFrequency.Monthly, 2000, 0, new double[]{1, Double.NaN, 3}, false)));
+        return result;
+    }
+}
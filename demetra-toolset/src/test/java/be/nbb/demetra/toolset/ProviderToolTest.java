@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import ec.tss.TsCollectionInformation;
+import ec.tss.TsInformation;
+import ec.tss.tsproviders.DataSet;
+import ec.tss.tsproviders.DataSource;
+import ec.tss.tsproviders.common.txt.TxtBean;
+import ec.tss.tsproviders.common.txt.TxtProvider;
+import ec.tss.tsproviders.common.txt.TxtSource;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class ProviderToolTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMergeOrder() throws Exception {
+        File file = temp.newFile("data.txt");
+        write(file, "1.0");
+        CountingTxtProvider p = new CountingTxtProvider();
+        DataSource dataSource = p.getDataSource(file);
+        List<DataSet> series = p.children(dataSource);
+
+        List<URI> uris = Arrays.asList(toURI(series.get(1)), toURI(dataSource), toURI(series.get(0)));
+        TsCollectionInformation result = ProviderTool.of(p).get(uris, executor);
+
+        assertThat(result.items)
+                .extracting(o -> o.name)
+                .containsExactly("B", "A", "B", "A");
+
+        // the data sets are taken from the single load of their data source
+        assertThat(p.collectionRequests).hasValue(1);
+        assertThat(p.seriesRequests).hasValue(0);
+    }
+
+    @Test
+    public void testSelectFallback() throws Exception {
+        File file = temp.newFile("data.txt");
+        write(file, "1.0");
+        CountingTxtProvider p = new CountingTxtProvider();
+        p.hidden = "B";
+        DataSource dataSource = p.getDataSource(file);
+        List<DataSet> series = p.children(dataSource);
+
+        List<URI> uris = Arrays.asList(toURI(series.get(1)), toURI(series.get(0)));
+        TsCollectionInformation result = ProviderTool.of(p).get(uris, executor);
+
+        // "B" is missing from the data source so it is asked to the provider
+        assertThat(result.items)
+                .extracting(o -> o.name)
+                .containsExactly("B", "A");
+        assertThat(p.collectionRequests).hasValue(1);
+        assertThat(p.seriesRequests).hasValue(1);
+    }
+
+    @Test
+    public void testSharedLoaderWithOtherPaths() throws Exception {
+        File first = temp.newFolder();
+        File second = temp.newFolder();
+        write(new File(first, "data.txt"), "1.0");
+        write(new File(second, "data.txt"), "2.0");
+
+        CountingTxtProvider p = new CountingTxtProvider();
+        DataSource dataSource = p.getDataSource(new File("data.txt"));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        p.onRequest = paths -> {
+            if (paths.equals(Arrays.asList(first))) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        Future<TsCollectionInformation> x = executor.submit(() -> ProviderTool.of(p).withPaths(first).get(dataSource));
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<TsCollectionInformation> y = executor.submit(() -> ProviderTool.of(p).withPaths(second).get(dataSource));
+
+        // the second tool waits until the first one has released the loader
+        assertThatThrownBy(() -> y.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        assertThat(p.getPaths()).containsExactly(first);
+        assertThat(p.requestPaths).hasSize(1);
+
+        release.countDown();
+        assertThat(x.get(10, TimeUnit.SECONDS).items.get(0).data.get(0)).isEqualTo(1.0);
+        y.get(10, TimeUnit.SECONDS);
+        assertThat(p.requestPaths).containsExactly(Arrays.asList(first), Arrays.asList(second));
+        assertThat(p.getPaths()).isEmpty();
+    }
+
+    @Test
+    public void testCacheInvalidation() throws Exception {
+        File file = temp.newFile("data.txt");
+        ProviderCache cache = ProviderCache.onDisk(temp.newFolder().toPath(), Long.MAX_VALUE);
+
+        write(file, "1.0");
+        long lastModified = file.lastModified();
+        CountingTxtProvider p = new CountingTxtProvider();
+        assertThat(getFirstValue(p, file, cache)).isEqualTo(1.0);
+        assertThat(p.loads).hasValue(1);
+
+        // each provider stands for another run of a command
+        p = new CountingTxtProvider();
+        assertThat(getFirstValue(p, file, cache)).isEqualTo(1.0);
+        assertThat(p.loads).hasValue(0);
+
+        // same modification time, other size
+        write(file, "10.0");
+        assertThat(file.setLastModified(lastModified)).isTrue();
+        p = new CountingTxtProvider();
+        assertThat(getFirstValue(p, file, cache)).isEqualTo(10.0);
+        assertThat(p.loads).hasValue(1);
+
+        // same size, other modification time
+        write(file, "20.0");
+        assertThat(file.setLastModified(lastModified + 10000)).isTrue();
+        p = new CountingTxtProvider();
+        assertThat(getFirstValue(p, file, cache)).isEqualTo(20.0);
+        assertThat(p.loads).hasValue(1);
+    }
+
+    static final class CountingTxtProvider extends TxtProvider {
+
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger collectionRequests = new AtomicInteger();
+        final AtomicInteger seriesRequests = new AtomicInteger();
+        final List<List<File>> requestPaths = new CopyOnWriteArrayList<>();
+        volatile String hidden = null;
+        volatile Consumer<List<File>> onRequest = o -> {
+        };
+
+        @Override
+        protected TxtSource loadFromBean(TxtBean bean) throws Exception {
+            loads.incrementAndGet();
+            return super.loadFromBean(bean);
+        }
+
+        @Override
+        protected void fillCollection(TsCollectionInformation info, DataSource dataSource) throws IOException {
+            collectionRequests.incrementAndGet();
+            request(Arrays.asList(getPaths()));
+            super.fillCollection(info, dataSource);
+            info.items.removeIf(o -> o.name.equals(hidden));
+        }
+
+        @Override
+        protected void fillSeries(TsInformation info, DataSet dataSet) throws IOException {
+            seriesRequests.incrementAndGet();
+            request(Arrays.asList(getPaths()));
+            super.fillSeries(info, dataSet);
+        }
+
+        private void request(List<File> paths) {
+            requestPaths.add(paths);
+            onRequest.accept(paths);
+        }
+
+        DataSource getDataSource(File file) {
+            TxtBean bean = newBean();
+            bean.setFile(file);
+            return encodeBean(bean);
+        }
+    }
+
+    static void write(File file, String first) throws IOException {
+        StringBuilder content = new StringBuilder("date\tA\tB\n");
+        for (int i = 0; i < 3; i++) {
+            content.append("2010-0").append(i + 1).append("-01\t").append(first).append('\t').append(i).append('\n');
+        }
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static URI toURI(DataSource dataSource) {
+        return URI.create(DataSource.uriFormatter().formatAsString(dataSource));
+    }
+
+    private static URI toURI(DataSet dataSet) {
+        return URI.create(DataSet.uriFormatter().formatAsString(dataSet));
+    }
+
+    private static double getFirstValue(CountingTxtProvider p, File file, ProviderCache cache) throws IOException {
+        TsCollectionInformation result = ProviderTool.of(p).withCache(cache).get(p.getDataSource(file));
+        return result.items.get(0).data.get(0);
+    }
+}
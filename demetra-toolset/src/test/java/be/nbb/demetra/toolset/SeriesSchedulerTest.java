@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 National Bank of Belgium
+ * 
+ * Licensed under the EUPL, Version 1.1 or - as soon they will be approved 
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ * 
+ * http://ec.europa.eu/idabc/eupl
+ * 
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and 
+ * limitations under the Licence.
+ */
+package be.nbb.demetra.toolset;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ *
+ * @author Philippe Charles
+ */
+public class SeriesSchedulerTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMap() {
+        List<Integer> input = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        SeriesScheduler scheduler = new SeriesScheduler(executor, 2);
+
+        assertThat(scheduler.map(input, o -> o % 7, o -> o * 2))
+                .containsExactlyElementsOf(input.stream().map(o -> o * 2).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        List<Integer> input = IntStream.range(0, 40).boxed().collect(Collectors.toList());
+        // one chunk of ten items per quarter, so the stuck item shares its chunk
+        SeriesScheduler scheduler = new SeriesScheduler(executor, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean lateReturn = new AtomicBoolean(false);
+        List<Integer> progress = new ArrayList<>();
+        List<Integer> accepted = Collections.synchronizedList(new ArrayList<>());
+
+        List<String> result;
+        try {
+            result = scheduler.map(input, o -> 1, o -> {
+                if (o == 3) {
+                    awaitUninterruptibly(release);
+                    lateReturn.set(true);
+                } else if (o % 10 == 0) {
+                    sleepUninterruptibly(10);
+                }
+                return "value" + o;
+            }, Duration.ofMillis(200), o -> "fallback" + o, (o, value) -> {
+                assertThat(value).isEqualTo("value" + o);
+                accepted.add(o);
+            }, progress::add);
+        } finally {
+            release.countDown();
+        }
+
+        List<String> expected = input.stream().map(o -> o == 3 ? "fallback3" : "value" + o).collect(Collectors.toList());
+        assertThat(result).containsExactlyElementsOf(expected);
+        assertThat(progress).isNotEmpty().isSorted().endsWith(40);
+
+        // the late result of the stuck item is dropped
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(lateReturn).isTrue();
+        assertThat(result).containsExactlyElementsOf(expected);
+        assertThat(accepted).hasSize(39).doesNotContain(3);
+    }
+
+    @Test
+    public void testWithoutTimeout() {
+        List<Integer> input = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        SeriesScheduler scheduler = new SeriesScheduler(executor, 2);
+        List<Integer> progress = new ArrayList<>();
+
+        assertThat(scheduler.map(input, o -> 1, o -> {
+            sleepUninterruptibly(5);
+            return o;
+        }, Duration.ZERO, o -> -1, progress::add)).containsExactlyElementsOf(input);
+        assertThat(progress).endsWith(10);
+    }
+
+    @Test
+    public void testFailure() {
+        List<Integer> input = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        SeriesScheduler scheduler = new SeriesScheduler(executor, 2);
+
+        assertThatThrownBy(() -> scheduler.map(input, o -> 1, o -> {
+            if (o == 5) {
+                throw new IllegalStateException("boom");
+            }
+            return o;
+        }, Duration.ofSeconds(10), o -> -1, o -> {
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException ex) {
+                // a stuck computation ignores interruption
+            }
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}